@@ -0,0 +1,144 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2014 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.benchmark;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonar.api.issue.Issue;
+import org.sonar.api.issue.internal.DefaultIssue;
+import org.sonar.api.issue.internal.DefaultIssueComment;
+import org.sonar.api.issue.internal.FieldDiffs;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.api.rule.Severity;
+import org.sonar.api.utils.System2;
+import org.sonar.api.utils.internal.Uuids;
+import org.sonar.core.issue.db.UpdateConflictResolver;
+import org.sonar.core.persistence.DbTester;
+import org.sonar.server.computation.issue.IssueCache;
+import org.sonar.server.computation.issue.RuleCache;
+import org.sonar.server.computation.issue.RuleCacheLoader;
+import org.sonar.server.computation.step.PersistIssuesStep;
+import org.sonar.server.db.DbClient;
+import org.sonar.server.issue.db.IssueDao;
+import org.sonar.server.rule.db.RuleDao;
+import org.sonar.server.util.cache.DiskCache;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Smoke benchmark of {@link PersistIssuesStep}: durations are not calibrated, assertions only detect major regressions.
+ */
+public class PersistIssuesStepTest {
+
+  public static final Logger LOGGER = LoggerFactory.getLogger("perfTestPersistIssuesStep");
+
+  public static final int NUMBER_OF_ISSUES = 100000;
+  public static final String PROJECT_UUID = Uuids.create();
+  public static final long MAX_DURATION_MS = 15_000L;
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  @Rule
+  public DbTester dbTester = new DbTester();
+
+  @Rule
+  public Benchmark benchmark = new Benchmark();
+
+  @Test
+  public void smoke_benchmark() throws Exception {
+    dbTester.prepareDbUnit(getClass(), "rules.xml");
+    DbClient dbClient = new DbClient(dbTester.database(), dbTester.myBatis(), new IssueDao(dbTester.myBatis()), new RuleDao(System2.INSTANCE));
+
+    List<String> issueKeys = new ArrayList<>();
+    for (int i = 0; i < NUMBER_OF_ISSUES; i++) {
+      issueKeys.add(Uuids.create());
+    }
+
+    LOGGER.info("Insert issues");
+    IssueCache issueCache = new IssueCache(temp.newFile(), System2.INSTANCE);
+    DiskCache<DefaultIssue>.DiskAppender appender = issueCache.newAppender();
+    for (String issueKey : issueKeys) {
+      appender.append(newIssue(issueKey)
+        .setStatus(Issue.STATUS_OPEN)
+        .setNew(true)
+        .addComment(newComment(issueKey)));
+    }
+    appender.close();
+    long duration = persistIssues(dbClient, issueCache);
+    assertThat(dbTester.countRowsOfTable("issues")).isEqualTo(NUMBER_OF_ISSUES);
+    LOGGER.info(String.format("%d new issues have been persisted in %d ms", NUMBER_OF_ISSUES, duration));
+    benchmark.expectBetween("Duration to persist new issues", duration, 0L, MAX_DURATION_MS);
+
+    LOGGER.info("Update issues");
+    issueCache = new IssueCache(temp.newFile(), System2.INSTANCE);
+    appender = issueCache.newAppender();
+    for (String issueKey : issueKeys) {
+      appender.append(newIssue(issueKey)
+        .setStatus(Issue.STATUS_CLOSED)
+        .setResolution(Issue.RESOLUTION_FIXED)
+        .setNew(false)
+        .setChanged(true)
+        .setCurrentChange(new FieldDiffs()
+          .setIssueKey(issueKey)
+          .setDiff("status", Issue.STATUS_OPEN, Issue.STATUS_CLOSED)));
+    }
+    appender.close();
+    duration = persistIssues(dbClient, issueCache);
+    assertThat(dbTester.countRowsOfTable("issue_changes")).isEqualTo(2 * NUMBER_OF_ISSUES);
+    LOGGER.info(String.format("%d issues have been updated in %d ms", NUMBER_OF_ISSUES, duration));
+    benchmark.expectBetween("Duration to update issues", duration, 0L, MAX_DURATION_MS);
+  }
+
+  private static long persistIssues(DbClient dbClient, IssueCache issueCache) {
+    PersistIssuesStep step = new PersistIssuesStep(dbClient, System2.INSTANCE, new UpdateConflictResolver(),
+      new RuleCache(new RuleCacheLoader(dbClient)), issueCache);
+
+    long start = System.currentTimeMillis();
+    step.execute();
+    return System.currentTimeMillis() - start;
+  }
+
+  private static DefaultIssue newIssue(String issueKey) {
+    return new DefaultIssue()
+      .setKey(issueKey)
+      .setRuleKey(RuleKey.of("xoo", "S01"))
+      .setComponentUuid(PROJECT_UUID)
+      .setProjectUuid(PROJECT_UUID)
+      .setSeverity(Severity.MAJOR)
+      .setMessage("message");
+  }
+
+  private static DefaultIssueComment newComment(String issueKey) {
+    return new DefaultIssueComment()
+      .setKey(Uuids.create())
+      .setIssueKey(issueKey)
+      .setUserLogin("john")
+      .setMarkdownText("comment")
+      .setNew(true);
+  }
+
+}
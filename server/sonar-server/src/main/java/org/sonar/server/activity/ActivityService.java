@@ -23,10 +23,14 @@ import org.sonar.api.server.ServerSide;
 import org.sonar.api.utils.KeyValueFormat;
 import org.sonar.api.utils.internal.Uuids;
 import org.sonar.core.activity.db.ActivityDto;
+import org.sonar.core.persistence.DbSession;
 import org.sonar.server.activity.index.ActivityIndexer;
 import org.sonar.server.db.DbClient;
 import org.sonar.server.user.UserSession;
 
+import java.util.Collection;
+import java.util.Collections;
+
 @ServerSide
 public class ActivityService {
 
@@ -41,14 +45,32 @@ public class ActivityService {
   }
 
   public void save(Activity activity) {
-    ActivityDto dto = new ActivityDto()
-      .setKey(Uuids.create())
-      .setAuthor(userSession.getLogin())
-      .setAction(activity.getAction())
-      .setMessage(activity.getMessage())
-      .setData(KeyValueFormat.format(activity.getData()))
-      .setType(activity.getType().name());
-    dbClient.activityDao().insert(dto);
+    save(Collections.singletonList(activity));
+  }
+
+  /**
+   * Activities are inserted in a single batch session, then indexed at once.
+   */
+  public void save(Collection<Activity> activities) {
+    if (activities.isEmpty()) {
+      return;
+    }
+    DbSession session = dbClient.openSession(true);
+    try {
+      for (Activity activity : activities) {
+        ActivityDto dto = new ActivityDto()
+          .setKey(Uuids.create())
+          .setAuthor(userSession.getLogin())
+          .setAction(activity.getAction())
+          .setMessage(activity.getMessage())
+          .setData(KeyValueFormat.format(activity.getData()))
+          .setType(activity.getType().name());
+        dbClient.activityDao().insert(session, dto);
+      }
+      session.commit();
+    } finally {
+      session.close();
+    }
     indexer.index();
   }
 }
@@ -20,7 +20,9 @@
 
 package org.sonar.server.batch;
 
-import org.apache.commons.io.IOUtils;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import org.sonar.api.server.ws.Request;
 import org.sonar.api.server.ws.Response;
 import org.sonar.api.server.ws.WebService;
@@ -72,7 +74,9 @@ public class ProjectAction implements BatchWsAction {
       .setProfileName(request.param(PARAM_PROFILE))
       .setPreview(request.mandatoryParamAsBoolean(PARAM_PREVIEW)));
     response.stream().setMediaType(MimeTypes.JSON);
-    IOUtils.write(ref.toJson(), response.stream().output());
+    Writer writer = new OutputStreamWriter(response.stream().output(), StandardCharsets.UTF_8);
+    ref.writeJson(writer);
+    writer.flush();
   }
 
 }
@@ -31,6 +31,7 @@ import org.sonar.core.purge.IdUuidPair;
 import org.sonar.server.db.DbClient;
 import org.sonar.server.issue.index.IssueAuthorizationIndexer;
 import org.sonar.server.issue.index.IssueIndexer;
+import org.sonar.server.measure.index.ProjectMeasuresIndexer;
 import org.sonar.server.source.index.SourceLineIndexer;
 import org.sonar.server.test.index.TestIndexer;
 
@@ -44,15 +45,17 @@ public class ComponentCleanerService {
   private final IssueIndexer issueIndexer;
   private final SourceLineIndexer sourceLineIndexer;
   private final TestIndexer testIndexer;
+  private final ProjectMeasuresIndexer projectMeasuresIndexer;
   private final ResourceTypes resourceTypes;
 
   public ComponentCleanerService(DbClient dbClient, IssueAuthorizationIndexer issueAuthorizationIndexer, IssueIndexer issueIndexer,
-    SourceLineIndexer sourceLineIndexer, TestIndexer testIndexer, ResourceTypes resourceTypes) {
+    SourceLineIndexer sourceLineIndexer, TestIndexer testIndexer, ProjectMeasuresIndexer projectMeasuresIndexer, ResourceTypes resourceTypes) {
     this.dbClient = dbClient;
     this.issueAuthorizationIndexer = issueAuthorizationIndexer;
     this.issueIndexer = issueIndexer;
     this.sourceLineIndexer = sourceLineIndexer;
     this.testIndexer = testIndexer;
+    this.projectMeasuresIndexer = projectMeasuresIndexer;
     this.resourceTypes = resourceTypes;
   }
 
@@ -88,6 +91,7 @@ public class ComponentCleanerService {
     issueIndexer.deleteProject(projectUuid, true);
     sourceLineIndexer.deleteByProject(projectUuid);
     testIndexer.deleteByProject(projectUuid);
+    projectMeasuresIndexer.deleteProject(projectUuid);
   }
 
   private static boolean hasNotProjectScope(ComponentDto project) {
@@ -27,29 +27,39 @@ import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import org.picocontainer.Startable;
+import org.sonar.api.config.Settings;
 import org.sonar.api.platform.Server;
 import org.sonar.api.platform.ServerStartHandler;
 import org.sonar.core.platform.ComponentContainer;
 import org.sonar.server.computation.container.ContainerFactory;
 import org.sonar.server.computation.container.ContainerFactoryImpl;
 
+/**
+ * Starts the workers that pop and integrate the analysis reports. The number of workers
+ * is defined by the property {@link #WORKERS_PROPERTY}. Reports of a same project are never
+ * processed concurrently, see {@link ReportQueue#pop()}.
+ */
 public class ComputationThreadLauncher implements Startable, ServerStartHandler {
 
   public static final String THREAD_NAME_PREFIX = "computation-";
+  public static final String WORKERS_PROPERTY = "sonar.computation.workers";
+  public static final int DEFAULT_WORKERS = 1;
 
   private final ReportQueue queue;
   private final ComponentContainer sqContainer;
   private final ScheduledExecutorService executorService;
   private final ContainerFactory containerFactory;
+  private final int workers;
 
   private final long delayBetweenTasks;
   private final long delayForFirstStart;
   private final TimeUnit timeUnit;
 
-  public ComputationThreadLauncher(ReportQueue queue, ComponentContainer sqContainer) {
+  public ComputationThreadLauncher(ReportQueue queue, ComponentContainer sqContainer, Settings settings) {
     this.queue = queue;
     this.sqContainer = sqContainer;
-    this.executorService = Executors.newSingleThreadScheduledExecutor(newThreadFactory());
+    this.workers = workers(settings);
+    this.executorService = Executors.newScheduledThreadPool(workers, newThreadFactory());
     this.containerFactory = new ContainerFactoryImpl();
 
     this.delayBetweenTasks = 10;
@@ -59,11 +69,12 @@ public class ComputationThreadLauncher implements Startable, ServerStartHandler
 
   @VisibleForTesting
   ComputationThreadLauncher(ReportQueue queue, ComponentContainer sqContainer, ContainerFactory containerFactory,
-    long delayForFirstStart, long delayBetweenTasks, TimeUnit timeUnit) {
+    int workers, long delayForFirstStart, long delayBetweenTasks, TimeUnit timeUnit) {
     this.queue = queue;
     this.sqContainer = sqContainer;
     this.containerFactory = containerFactory;
-    this.executorService = Executors.newSingleThreadScheduledExecutor(newThreadFactory());
+    this.workers = workers;
+    this.executorService = Executors.newScheduledThreadPool(workers, newThreadFactory());
 
     this.delayBetweenTasks = delayBetweenTasks;
     this.delayForFirstStart = delayForFirstStart;
@@ -80,13 +91,31 @@ public class ComputationThreadLauncher implements Startable, ServerStartHandler
     executorService.shutdown();
   }
 
+  /**
+   * Wakes up a worker without waiting for the next scheduled run, for example when a report has just been submitted.
+   */
   public void startAnalysisTaskNow() {
     executorService.execute(new ComputationThread(queue, sqContainer, containerFactory));
   }
 
   @Override
   public void onServerStart(Server server) {
-    executorService.scheduleAtFixedRate(new ComputationThread(queue, sqContainer, containerFactory), delayForFirstStart, delayBetweenTasks, timeUnit);
+    for (int i = 0; i < workers; i++) {
+      executorService.scheduleWithFixedDelay(new ComputationThread(queue, sqContainer, containerFactory), delayForFirstStart, delayBetweenTasks, timeUnit);
+    }
+  }
+
+  @VisibleForTesting
+  int getWorkers() {
+    return workers;
+  }
+
+  private static int workers(Settings settings) {
+    int workers = settings.getInt(WORKERS_PROPERTY);
+    if (workers <= 0) {
+      return DEFAULT_WORKERS;
+    }
+    return workers;
   }
 
   private static ThreadFactory newThreadFactory() {
@@ -97,8 +97,12 @@ public class ReportQueue {
     }
   }
 
+  /**
+   * Books the oldest pending report whose project has no report in progress. This method is
+   * synchronized so that concurrent workers of the same server never book two reports of the same project.
+   */
   @CheckForNull
-  public Item pop() {
+  public synchronized Item pop() {
     DbSession session = dbClient.openSession(false);
     try {
       AnalysisReportDto dto = dao().pop(session);
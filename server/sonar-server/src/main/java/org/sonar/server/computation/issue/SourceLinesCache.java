@@ -19,7 +19,7 @@
  */
 package org.sonar.server.computation.issue;
 
-import java.util.Date;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -29,9 +29,10 @@ import org.apache.commons.lang.StringUtils;
 import org.sonar.batch.protocol.output.BatchReport;
 import org.sonar.batch.protocol.output.BatchReport.Changesets.Changeset;
 import org.sonar.batch.protocol.output.BatchReport.Changesets.Changeset.Builder;
+import org.sonar.core.source.db.FileSourceDto;
 import org.sonar.server.computation.batch.BatchReportReader;
-import org.sonar.server.source.index.SourceLineDoc;
-import org.sonar.server.source.index.SourceLineIndex;
+import org.sonar.server.db.DbClient;
+import org.sonar.server.source.db.FileSourceDb;
 
 /**
  * Cache of the lines of the currently processed file. Only a <strong>single</strong> file
@@ -40,13 +41,13 @@ import org.sonar.server.source.index.SourceLineIndex;
  * It relies on:
  * <ul>
  *   <li>the SCM information sent in the report for modified files</li>
- *   <li>the source line index for non-modified files</li>
+ *   <li>the sources stored in database for non-modified files</li>
  * </ul>
  *
  */
 public class SourceLinesCache {
 
-  private final SourceLineIndex index;
+  private final DbClient dbClient;
   private BatchReportReader reportReader;
 
   private boolean loaded = false;
@@ -57,8 +58,8 @@ public class SourceLinesCache {
   private long lastCommitDate = 0L;
   private String lastCommitAuthor = null;
 
-  public SourceLinesCache(SourceLineIndex index) {
-    this.index = index;
+  public SourceLinesCache(DbClient dbClient) {
+    this.dbClient = dbClient;
   }
 
   /**
@@ -103,7 +104,7 @@ public class SourceLinesCache {
     }
 
     if (!loaded) {
-      scm = loadLinesFromIndexAndBuildScm();
+      scm = loadLinesFromDbAndBuildScm();
       loaded = true;
     }
 
@@ -114,22 +115,21 @@ public class SourceLinesCache {
     return reportReader.readChangesets(currentFileReportRef);
   }
 
-  private BatchReport.Changesets loadLinesFromIndexAndBuildScm() {
-    List<SourceLineDoc> lines = index.getLines(currentFileUuid);
+  private BatchReport.Changesets loadLinesFromDbAndBuildScm() {
+    FileSourceDto dto = dbClient.fileSourceDao().selectSource(currentFileUuid);
+    List<FileSourceDb.Line> lines = dto == null ? Collections.<FileSourceDb.Line>emptyList() : dto.getSourceData().getLinesList();
     Map<String, BatchReport.Changesets.Changeset> changesetByRevision = new HashMap<>();
     BatchReport.Changesets.Builder scmBuilder = BatchReport.Changesets.newBuilder()
       .setComponentRef(currentFileReportRef);
-    for (SourceLineDoc sourceLine : lines) {
-      String scmRevision = sourceLine.scmRevision();
+    for (FileSourceDb.Line sourceLine : lines) {
+      String scmRevision = sourceLine.hasScmRevision() ? sourceLine.getScmRevision() : null;
       if (scmRevision == null || changesetByRevision.get(scmRevision) == null) {
         Builder changeSetBuilder = BatchReport.Changesets.Changeset.newBuilder();
-        String scmAuthor = sourceLine.scmAuthor();
-        if (scmAuthor != null) {
-          changeSetBuilder.setAuthor(scmAuthor);
+        if (sourceLine.hasScmAuthor()) {
+          changeSetBuilder.setAuthor(sourceLine.getScmAuthor());
         }
-        Date scmDate = sourceLine.scmDate();
-        if (scmDate != null) {
-          changeSetBuilder.setDate(scmDate.getTime());
+        if (sourceLine.hasScmDate()) {
+          changeSetBuilder.setDate(sourceLine.getScmDate());
         }
         if (scmRevision != null) {
           changeSetBuilder.setRevision(scmRevision);
@@ -23,10 +23,9 @@ import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableSetMultimap;
 import com.google.common.collect.SetMultimap;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Objects;
-import java.util.Set;
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.Immutable;
 import org.sonar.batch.protocol.output.BatchReport;
@@ -45,14 +44,26 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static java.lang.String.format;
 import static java.util.Objects.requireNonNull;
 
+/**
+ * Measures added or updated by the Compute Engine are kept in memory for the whole computation. Measures
+ * of the batch report are not: only those of the {@link #BATCH_MEASURES_CACHE_SIZE} last read components are
+ * kept in memory, the others are read again from the report when needed.
+ */
 public class MeasureRepositoryImpl implements MeasureRepository {
+  static final int BATCH_MEASURES_CACHE_SIZE = 1000;
+
   private final DbClient dbClient;
   private final BatchReportReader reportReader;
   private final BatchMeasureToMeasure batchMeasureToMeasure;
   private final MetricRepository metricRepository;
   private final MeasureDtoToMeasure measureDtoToMeasure = new MeasureDtoToMeasure();
-  private final Set<Integer> loadedComponents = new HashSet<>();
   private final Map<Integer, Map<MeasureKey, Measure>> measures = new HashMap<>();
+  private final Map<Integer, Map<MeasureKey, Measure>> batchMeasures = new LinkedHashMap<Integer, Map<MeasureKey, Measure>>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<Integer, Map<MeasureKey, Measure>> eldest) {
+      return size() > BATCH_MEASURES_CACHE_SIZE;
+    }
+  };
 
   public MeasureRepositoryImpl(DbClient dbClient, BatchReportReader reportReader,
     final MetricRepository metricRepository, final RuleCache ruleCache) {
@@ -80,14 +91,7 @@ public class MeasureRepositoryImpl implements MeasureRepository {
     requireNonNull(component);
     requireNonNull(metric);
 
-    Optional<Measure> local = findLocal(component, metric, null, null);
-    if (local.isPresent()) {
-      return local;
-    }
-
-    // look up in batch after loading (if not yet loaded) measures from batch
-    loadBatchMeasuresForComponent(component);
-    return findLocal(component, metric, null, null);
+    return find(component, new MeasureKey(metric.getKey(), (RuleDto) null, null));
   }
 
   @Override
@@ -97,7 +101,7 @@ public class MeasureRepositoryImpl implements MeasureRepository {
     requireNonNull(metric);
     requireNonNull(rule);
 
-    return findLocal(component, metric, rule, null);
+    return find(component, new MeasureKey(metric.getKey(), rule, null));
   }
 
   @Override
@@ -107,7 +111,7 @@ public class MeasureRepositoryImpl implements MeasureRepository {
     requireNonNull(metric);
     requireNonNull(characteristic);
 
-    return findLocal(component, metric, null, characteristic);
+    return find(component, new MeasureKey(metric.getKey(), null, characteristic));
   }
 
   @Override
@@ -115,7 +119,7 @@ public class MeasureRepositoryImpl implements MeasureRepository {
     requireNonNull(component);
     checkValueTypeConsistency(metric, measure);
 
-    Optional<Measure> existingMeasure = findLocal(component, metric, measure);
+    Optional<Measure> existingMeasure = find(component, newMeasureKey(metric, measure));
     if (existingMeasure.isPresent()) {
       throw new UnsupportedOperationException(
         format(
@@ -125,7 +129,7 @@ public class MeasureRepositoryImpl implements MeasureRepository {
           buildRuleOrCharacteristicMsgPart(measure)
         ));
     }
-    addLocal(component, metric, measure, OverridePolicy.OVERRIDE);
+    addLocal(component, metric, measure);
   }
 
   @Override
@@ -133,7 +137,7 @@ public class MeasureRepositoryImpl implements MeasureRepository {
     requireNonNull(component);
     checkValueTypeConsistency(metric, measure);
 
-    Optional<Measure> existingMeasure = findLocal(component, metric, measure);
+    Optional<Measure> existingMeasure = find(component, newMeasureKey(metric, measure));
     if (!existingMeasure.isPresent()) {
       throw new UnsupportedOperationException(
         format(
@@ -143,7 +147,7 @@ public class MeasureRepositoryImpl implements MeasureRepository {
           buildRuleOrCharacteristicMsgPart(measure)
         ));
     }
-    addLocal(component, metric, measure, OverridePolicy.OVERRIDE);
+    addLocal(component, metric, measure);
   }
 
   private static void checkValueTypeConsistency(Metric metric, Measure measure) {
@@ -166,9 +170,12 @@ public class MeasureRepositoryImpl implements MeasureRepository {
 
   @Override
   public SetMultimap<String, Measure> getRawMeasures(Component component) {
-    loadBatchMeasuresForComponent(component);
-    Map<MeasureKey, Measure> rawMeasures = measures.get(component.getRef());
-    if (rawMeasures == null) {
+    Map<MeasureKey, Measure> rawMeasures = new HashMap<>(loadBatchMeasures(component));
+    Map<MeasureKey, Measure> localMeasures = measures.get(component.getRef());
+    if (localMeasures != null) {
+      rawMeasures.putAll(localMeasures);
+    }
+    if (rawMeasures.isEmpty()) {
       return ImmutableSetMultimap.of();
     }
 
@@ -179,49 +186,48 @@ public class MeasureRepositoryImpl implements MeasureRepository {
     return builder.build();
   }
 
-  private void loadBatchMeasuresForComponent(Component component) {
-    if (loadedComponents.contains(component.getRef())) {
-      return;
+  private Map<MeasureKey, Measure> loadBatchMeasures(Component component) {
+    Map<MeasureKey, Measure> result = batchMeasures.get(component.getRef());
+    if (result != null) {
+      return result;
     }
 
+    result = new HashMap<>();
     for (BatchReport.Measure batchMeasure : reportReader.readComponentMeasures(component.getRef())) {
       Metric metric = metricRepository.getByKey(batchMeasure.getMetricKey());
-      addLocal(component, metric, batchMeasureToMeasure.toMeasure(batchMeasure, metric).get(), OverridePolicy.DO_NOT_OVERRIDE);
+      Measure measure = batchMeasureToMeasure.toMeasure(batchMeasure, metric).get();
+      MeasureKey key = new MeasureKey(metric.getKey(), measure.getRuleId(), measure.getCharacteristicId());
+      if (!result.containsKey(key)) {
+        result.put(key, measure);
+      }
     }
-    loadedComponents.add(component.getRef());
+    batchMeasures.put(component.getRef(), result);
+    return result;
   }
 
-  private Optional<Measure> findLocal(Component component, Metric metric,
-    @Nullable RuleDto rule, @Nullable Characteristic characteristic) {
-    Map<MeasureKey, Measure> measuresPerMetric = measures.get(component.getRef());
-    if (measuresPerMetric == null) {
-      return Optional.absent();
+  /**
+   * Measure added by the Compute Engine, else measure of the batch report. Batch measures are loaded if they are not
+   * in memory anymore, so that the result does not depend on the content of {@link #batchMeasures}.
+   */
+  private Optional<Measure> find(Component component, MeasureKey key) {
+    Map<MeasureKey, Measure> localMeasures = measures.get(component.getRef());
+    if (localMeasures != null && localMeasures.containsKey(key)) {
+      return Optional.of(localMeasures.get(key));
     }
-    return Optional.fromNullable(measuresPerMetric.get(new MeasureKey(metric.getKey(), rule, characteristic)));
+    return Optional.fromNullable(loadBatchMeasures(component).get(key));
   }
 
-  private Optional<Measure> findLocal(Component component, Metric metric, Measure measure) {
-    Map<MeasureKey, Measure> measuresPerMetric = measures.get(component.getRef());
-    if (measuresPerMetric == null) {
-      return Optional.absent();
-    }
-    return Optional.fromNullable(measuresPerMetric.get(new MeasureKey(metric.getKey(), measure.getRuleId(), measure.getCharacteristicId())));
+  private static MeasureKey newMeasureKey(Metric metric, Measure measure) {
+    return new MeasureKey(metric.getKey(), measure.getRuleId(), measure.getCharacteristicId());
   }
 
-  private void addLocal(Component component, Metric metric, Measure measure, OverridePolicy overridePolicy) {
+  private void addLocal(Component component, Metric metric, Measure measure) {
     Map<MeasureKey, Measure> measuresPerMetric = measures.get(component.getRef());
     if (measuresPerMetric == null) {
       measuresPerMetric = new HashMap<>();
       measures.put(component.getRef(), measuresPerMetric);
     }
-    MeasureKey key = new MeasureKey(metric.getKey(), measure.getRuleId(), measure.getCharacteristicId());
-    if (!measuresPerMetric.containsKey(key) || overridePolicy == OverridePolicy.OVERRIDE) {
-      measuresPerMetric.put(key, measure);
-    }
-  }
-
-  private enum OverridePolicy {
-    OVERRIDE, DO_NOT_OVERRIDE
+    measuresPerMetric.put(newMeasureKey(metric, measure), measure);
   }
 
   @Immutable
@@ -28,6 +28,7 @@ import org.sonar.server.computation.component.DbIdsRepository;
 import org.sonar.server.computation.component.TreeRootHolder;
 import org.sonar.server.db.DbClient;
 import org.sonar.server.issue.index.IssueAuthorizationIndexer;
+import org.sonar.server.user.AuthorizationCache;
 
 /**
  * Apply default permissions on new projects and index issues/authorization
@@ -39,14 +40,16 @@ public class ApplyPermissionsStep implements ComputationStep {
   private final IssueAuthorizationIndexer indexer;
   private final PermissionFacade permissionFacade;
   private final TreeRootHolder treeRootHolder;
+  private final AuthorizationCache authorizationCache;
 
   public ApplyPermissionsStep(DbClient dbClient, DbIdsRepository dbIdsRepository, IssueAuthorizationIndexer indexer,
-    PermissionFacade permissionFacade, TreeRootHolder treeRootHolder) {
+    PermissionFacade permissionFacade, TreeRootHolder treeRootHolder, AuthorizationCache authorizationCache) {
     this.dbClient = dbClient;
     this.dbIdsRepository = dbIdsRepository;
     this.indexer = indexer;
     this.permissionFacade = permissionFacade;
     this.treeRootHolder = treeRootHolder;
+    this.authorizationCache = authorizationCache;
   }
 
   @Override
@@ -58,7 +61,9 @@ public class ApplyPermissionsStep implements ComputationStep {
         permissionFacade.grantDefaultRoles(session, projectId, Qualifiers.PROJECT);
         session.commit();
       }
-      // As batch is still apply permission on project, indexing of issue authorization must always been done
+      // As batch is still apply permission on project, indexing of issue authorization must always been done,
+      // and cached authorizations must always be invalidated.
+      authorizationCache.invalidate();
       indexer.index();
     } finally {
       MyBatis.closeQuietly(session);
@@ -90,6 +90,7 @@ public class ComputationSteps {
       IndexIssuesStep.class,
       IndexSourceLinesStep.class,
       IndexTestsStep.class,
+      IndexProjectMeasuresStep.class,
 
       // notifications are sent at the end, so that webapp displays up-to-date information
       SendIssueNotificationsStep.class);
@@ -19,6 +19,8 @@
  */
 package org.sonar.server.computation.step;
 
+import java.util.ArrayList;
+import java.util.List;
 import org.sonar.api.issue.Issue;
 import org.sonar.api.issue.IssueComment;
 import org.sonar.api.issue.internal.DefaultIssue;
@@ -30,6 +32,7 @@ import org.sonar.core.issue.db.IssueChangeMapper;
 import org.sonar.core.issue.db.IssueDto;
 import org.sonar.core.issue.db.IssueMapper;
 import org.sonar.core.issue.db.UpdateConflictResolver;
+import org.sonar.core.persistence.BatchSession;
 import org.sonar.core.persistence.DbSession;
 import org.sonar.core.persistence.MyBatis;
 import org.sonar.server.computation.issue.IssueCache;
@@ -39,6 +42,12 @@ import org.sonar.server.util.CloseableIterator;
 
 public class PersistIssuesStep implements ComputationStep {
 
+  /**
+   * Issues are committed by groups of statements smaller than the size of {@link BatchSession}, which commits on its own
+   * when this size is reached. An issue is therefore always committed with its changes.
+   */
+  private static final int MAX_STATEMENTS_BY_TRANSACTION = BatchSession.MAX_BATCH_SIZE - 1;
+
   private final DbClient dbClient;
   private final System2 system2;
   private final UpdateConflictResolver conflictResolver;
@@ -59,36 +68,22 @@ public class PersistIssuesStep implements ComputationStep {
     DbSession session = dbClient.openSession(true);
     IssueMapper mapper = session.getMapper(IssueMapper.class);
     IssueChangeMapper changeMapper = session.getMapper(IssueChangeMapper.class);
+    Statements statements = new Statements();
 
     CloseableIterator<DefaultIssue> issues = issueCache.traverse();
     try {
       while (issues.hasNext()) {
         DefaultIssue issue = issues.next();
-        boolean saved = false;
-        if (issue.isNew()) {
-          Integer ruleId = ruleCache.get(issue.ruleKey()).getId();
-          mapper.insert(IssueDto.toDtoForComputationInsert(issue, ruleId, system2.now()));
-          saved = true;
-        } else if (issue.isChanged()) {
-          IssueDto dto = IssueDto.toDtoForUpdate(issue, system2.now());
-          if (Issue.STATUS_CLOSED.equals(issue.status()) || issue.selectedAt() == null) {
-            // Issue is closed by scan or changed by end-user
-            mapper.update(dto);
-          } else {
-            int updateCount = mapper.updateIfBeforeSelectedDate(dto);
-            if (updateCount == 0) {
-              // End-user and scan changed the issue at the same time.
-              // See https://jira.sonarsource.com/browse/SONAR-4309
-              conflictResolver.resolve(issue, mapper);
-            }
+        if (issue.isNew() || issue.isChanged()) {
+          List<IssueChangeDto> changes = changes(issue);
+          if (statements.size() + 1 + changes.size() > MAX_STATEMENTS_BY_TRANSACTION) {
+            statements.execute(mapper, changeMapper);
+            session.commit();
           }
-          saved = true;
-        }
-        if (saved) {
-          insertChanges(changeMapper, issue);
+          statements.add(issue, changes);
         }
       }
-      session.flushStatements();
+      statements.execute(mapper, changeMapper);
       session.commit();
     } finally {
       MyBatis.closeQuietly(session);
@@ -96,18 +91,72 @@ public class PersistIssuesStep implements ComputationStep {
     }
   }
 
-  private static void insertChanges(IssueChangeMapper mapper, DefaultIssue issue) {
+  private static List<IssueChangeDto> changes(DefaultIssue issue) {
+    List<IssueChangeDto> changes = new ArrayList<>();
     for (IssueComment comment : issue.comments()) {
       DefaultIssueComment c = (DefaultIssueComment) comment;
       if (c.isNew()) {
-        IssueChangeDto changeDto = IssueChangeDto.of(c);
-        mapper.insert(changeDto);
+        changes.add(IssueChangeDto.of(c));
       }
     }
     FieldDiffs diffs = issue.currentChange();
     if (!issue.isNew() && diffs != null) {
-      IssueChangeDto changeDto = IssueChangeDto.of(issue.key(), diffs);
-      mapper.insert(changeDto);
+      changes.add(IssueChangeDto.of(issue.key(), diffs));
+    }
+    return changes;
+  }
+
+  /**
+   * Statements of a transaction, grouped by kind. JDBC batches are only effective when the same statement is executed
+   * consecutively, so inserts, updates and changes of issues are not executed in the order of issues.
+   */
+  private class Statements {
+    private final List<DefaultIssue> inserts = new ArrayList<>();
+    private final List<DefaultIssue> updates = new ArrayList<>();
+    private final List<IssueChangeDto> changes = new ArrayList<>();
+
+    int size() {
+      return inserts.size() + updates.size() + changes.size();
+    }
+
+    void add(DefaultIssue issue, List<IssueChangeDto> issueChanges) {
+      if (issue.isNew()) {
+        inserts.add(issue);
+      } else {
+        updates.add(issue);
+      }
+      changes.addAll(issueChanges);
+    }
+
+    void execute(IssueMapper mapper, IssueChangeMapper changeMapper) {
+      for (DefaultIssue issue : inserts) {
+        Integer ruleId = ruleCache.get(issue.ruleKey()).getId();
+        mapper.insert(IssueDto.toDtoForComputationInsert(issue, ruleId, system2.now()));
+      }
+      for (DefaultIssue issue : updates) {
+        update(mapper, issue);
+      }
+      for (IssueChangeDto change : changes) {
+        changeMapper.insert(change);
+      }
+      inserts.clear();
+      updates.clear();
+      changes.clear();
+    }
+  }
+
+  private void update(IssueMapper mapper, DefaultIssue issue) {
+    IssueDto dto = IssueDto.toDtoForUpdate(issue, system2.now());
+    if (Issue.STATUS_CLOSED.equals(issue.status()) || issue.selectedAt() == null) {
+      // Issue is closed by scan or changed by end-user
+      mapper.update(dto);
+    } else {
+      int updateCount = mapper.updateIfBeforeSelectedDate(dto);
+      if (updateCount == 0) {
+        // End-user and scan changed the issue at the same time.
+        // See https://jira.sonarsource.com/browse/SONAR-4309
+        conflictResolver.resolve(issue, mapper);
+      }
     }
   }
 
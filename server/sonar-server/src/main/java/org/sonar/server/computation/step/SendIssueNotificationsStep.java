@@ -20,10 +20,13 @@
 package org.sonar.server.computation.step;
 
 import com.google.common.collect.ImmutableSet;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import org.sonar.api.issue.internal.DefaultIssue;
+import org.sonar.api.notifications.Notification;
 import org.sonar.server.computation.batch.BatchReportReader;
 import org.sonar.server.computation.component.Component;
 import org.sonar.server.computation.component.TreeRootHolder;
@@ -109,7 +112,8 @@ public class SendIssueNotificationsStep implements ComputationStep {
         .setDebt(globalStatistics.debt());
       service.deliver(notification);
 
-      // send email to each user having issues
+      // send email to each user having issues. Notifications are delivered at once so that subscribers are loaded only once.
+      List<Notification> myNewIssuesNotifications = new ArrayList<>();
       for (Map.Entry<String, NewIssuesStatistics.Stats> assigneeAndStatisticsTuple : statistics.assigneesStatistics().entrySet()) {
         String assignee = assigneeAndStatisticsTuple.getKey();
         NewIssuesStatistics.Stats assigneeStatistics = assigneeAndStatisticsTuple.getValue();
@@ -122,8 +126,9 @@ public class SendIssueNotificationsStep implements ComputationStep {
           .setStatistics(projectName, assigneeStatistics)
           .setDebt(assigneeStatistics.debt());
 
-        service.deliver(myNewIssuesNotification);
+        myNewIssuesNotifications.add(myNewIssuesNotification);
       }
+      service.deliver(myNewIssuesNotifications);
     }
   }
 
@@ -20,6 +20,9 @@
 package org.sonar.server.es;
 
 import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.Striped;
 import com.google.common.util.concurrent.Uninterruptibles;
 import org.picocontainer.Startable;
 import org.sonar.api.server.ServerSide;
@@ -29,14 +32,37 @@ import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
 
 @ServerSide
 public abstract class BaseIndexer implements Startable {
 
+  private static final int PROJECT_LOCK_STRIPES = 64;
+  private static final int MAX_INDEXED_PROJECTS = 10_000;
+
   private final ThreadPoolExecutor executor;
   private final String indexName, typeName, dateFieldName;
   protected final EsClient esClient;
-  private volatile long lastUpdatedAt = -1L;
+  private long initialUpdatedAt = -1L;
+  private long lastUpdatedAt = -1L;
+
+  /**
+   * Date of the last indexed document of each project indexed through {@link #index(String, IndexerTask)}.
+   * Projects are not indexed in the same order as their documents are updated, so they can't rely on {@link #lastUpdatedAt}.
+   * Evicted projects are indexed again since the date of the last document indexed before server startup.
+   */
+  private final Cache<String, Long> lastUpdatedAtByProject = CacheBuilder.newBuilder()
+    .maximumSize(MAX_INDEXED_PROJECTS)
+    .build();
+  private final Striped<Lock> projectLocks = Striped.lock(PROJECT_LOCK_STRIPES);
+
+  /**
+   * Number of projects being indexed and date of the last document they indexed. {@link #lastUpdatedAt} is moved
+   * forward to this date only when no project is being indexed anymore, so that the documents of a project
+   * still being indexed are not skipped by global indexing. Guarded by this.
+   */
+  private int indexedProjects = 0;
+  private long indexedProjectsUpdatedAt = -1L;
 
   /**
    * Indexers are disabled during server startup, to avoid too many consecutive refreshes of the same index
@@ -65,13 +91,10 @@ public abstract class BaseIndexer implements Startable {
       Future submit = executor.submit(new Runnable() {
         @Override
         public void run() {
-          if (lastUpdatedAt == -1L) {
-            lastUpdatedAt = esClient.getMaxFieldValue(indexName, typeName, dateFieldName);
-          }
-          if (requestedAt > lastUpdatedAt) {
-            long l = task.index(lastUpdatedAt);
+          long since = getLastUpdatedAt();
+          if (requestedAt > since) {
             // l can be 0 if no documents were indexed
-            lastUpdatedAt = Math.max(l, lastUpdatedAt);
+            updateLastUpdatedAt(task.index(since));
           }
         }
       });
@@ -83,6 +106,33 @@ public abstract class BaseIndexer implements Startable {
     }
   }
 
+  /**
+   * Indexes the documents of a single project. The task is executed in the calling thread, so that indexing
+   * of a project does not wait for the indexing of other projects. Tasks of a same project are executed
+   * sequentially. Once no project is being indexed anymore, the date used by global indexing is moved forward,
+   * so that it does not index these documents again.
+   */
+  public void index(String projectUuid, IndexerTask task) {
+    if (enabled) {
+      long requestedAt = System.currentTimeMillis();
+      long l = -1L;
+      startProjectIndexing();
+      Lock lock = projectLocks.get(projectUuid);
+      lock.lock();
+      try {
+        Long projectUpdatedAt = lastUpdatedAtByProject.getIfPresent(projectUuid);
+        long since = projectUpdatedAt == null ? getInitialUpdatedAt() : projectUpdatedAt;
+        if (requestedAt > since) {
+          l = task.index(since);
+          lastUpdatedAtByProject.put(projectUuid, Math.max(l, since));
+        }
+      } finally {
+        lock.unlock();
+        stopProjectIndexing(l);
+      }
+    }
+  }
+
   public void index() {
     index(new IndexerTask() {
       @Override
@@ -94,6 +144,37 @@ public abstract class BaseIndexer implements Startable {
 
   protected abstract long doIndex(long lastUpdatedAt);
 
+  private synchronized long getInitialUpdatedAt() {
+    if (initialUpdatedAt == -1L) {
+      initialUpdatedAt = esClient.getMaxFieldValue(indexName, typeName, dateFieldName);
+    }
+    return initialUpdatedAt;
+  }
+
+  private synchronized long getLastUpdatedAt() {
+    if (lastUpdatedAt == -1L) {
+      lastUpdatedAt = getInitialUpdatedAt();
+    }
+    return lastUpdatedAt;
+  }
+
+  private synchronized void updateLastUpdatedAt(long l) {
+    lastUpdatedAt = Math.max(l, getLastUpdatedAt());
+  }
+
+  private synchronized void startProjectIndexing() {
+    indexedProjects++;
+  }
+
+  private synchronized void stopProjectIndexing(long l) {
+    indexedProjectsUpdatedAt = Math.max(l, indexedProjectsUpdatedAt);
+    indexedProjects--;
+    if (indexedProjects == 0 && indexedProjectsUpdatedAt > 0L) {
+      updateLastUpdatedAt(indexedProjectsUpdatedAt);
+      indexedProjectsUpdatedAt = -1L;
+    }
+  }
+
   public BaseIndexer setEnabled(boolean b) {
     this.enabled = b;
     return this;
@@ -77,7 +77,7 @@ public class BulkIndexer implements Startable {
     this.client = client;
     this.indexName = indexName;
     this.progress = new ProgressLogger(String.format("Progress[BulkIndexer[%s]]", indexName), counter, LOGGER)
-      .setPluralLabel("requests");
+      .setPluralLabel(String.format("documents of index %s", indexName));
 
     this.concurrentRequests = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
     this.semaphore = new Semaphore(concurrentRequests);
@@ -51,8 +51,8 @@ import org.sonar.server.issue.actionplan.ActionPlanService;
 import org.sonar.server.issue.index.IssueDoc;
 import org.sonar.server.issue.index.IssueIndex;
 import org.sonar.server.issue.notification.IssueChangeNotification;
-import org.sonar.server.source.index.SourceLineDoc;
-import org.sonar.server.source.index.SourceLineIndex;
+import org.sonar.server.source.SourceLineRepository;
+import org.sonar.server.source.db.FileSourceDb;
 import org.sonar.server.user.UserSession;
 import org.sonar.server.user.index.UserDoc;
 import org.sonar.server.user.index.UserIndex;
@@ -81,7 +81,7 @@ public class IssueService {
   private final RuleFinder ruleFinder;
   private final UserFinder userFinder;
   private final UserIndex userIndex;
-  private final SourceLineIndex sourceLineIndex;
+  private final SourceLineRepository sourceLineRepository;
   private final UserSession userSession;
 
   public IssueService(DbClient dbClient, IssueIndex issueIndex,
@@ -92,7 +92,7 @@ public class IssueService {
     ActionPlanService actionPlanService,
     RuleFinder ruleFinder,
     UserFinder userFinder,
-    UserIndex userIndex, SourceLineIndex sourceLineIndex, UserSession userSession) {
+    UserIndex userIndex, SourceLineRepository sourceLineRepository, UserSession userSession) {
     this.dbClient = dbClient;
     this.issueIndex = issueIndex;
     this.workflow = workflow;
@@ -103,7 +103,7 @@ public class IssueService {
     this.notificationService = notificationService;
     this.userFinder = userFinder;
     this.userIndex = userIndex;
-    this.sourceLineIndex = sourceLineIndex;
+    this.sourceLineRepository = sourceLineRepository;
     this.userSession = userSession;
   }
 
@@ -364,8 +364,8 @@ public class IssueService {
   @CheckForNull
   private String findSourceLineUser(String fileUuid, @Nullable Integer line) {
     if (line != null) {
-      SourceLineDoc sourceLine = sourceLineIndex.getLine(fileUuid, line);
-      String scmAuthor = sourceLine.scmAuthor();
+      FileSourceDb.Line sourceLine = sourceLineRepository.getLine(fileUuid, line);
+      String scmAuthor = sourceLine == null ? null : sourceLine.getScmAuthor();
       if (!Strings.isNullOrEmpty(scmAuthor)) {
         UserDoc userDoc = userIndex.getNullableByScmAccount(scmAuthor);
         if (userDoc != null) {
@@ -30,6 +30,8 @@ import org.sonar.server.es.BaseIndexer;
 import org.sonar.server.es.BulkIndexer;
 import org.sonar.server.es.EsClient;
 
+import javax.annotation.Nullable;
+
 import java.sql.Connection;
 import java.util.Iterator;
 
@@ -42,13 +44,25 @@ public class IssueIndexer extends BaseIndexer {
     this.dbClient = dbClient;
   }
 
+  /**
+   * Indexes the issues of the given project that have been updated since the last indexing of this project.
+   */
+  public void index(final String projectUuid) {
+    super.index(projectUuid, new IndexerTask() {
+      @Override
+      public long index(long lastUpdatedAt) {
+        return doIndex(createBulkIndexer(false), lastUpdatedAt, projectUuid);
+      }
+    });
+  }
+
   @Override
   protected long doIndex(long lastUpdatedAt) {
-    return doIndex(createBulkIndexer(false), lastUpdatedAt);
+    return doIndex(createBulkIndexer(false), lastUpdatedAt, null);
   }
 
   public void indexAll() {
-    doIndex(createBulkIndexer(true), 0L);
+    doIndex(createBulkIndexer(true), 0L, null);
   }
 
   /**
@@ -58,12 +72,12 @@ public class IssueIndexer extends BaseIndexer {
     doIndex(createBulkIndexer(false), issues);
   }
 
-  private long doIndex(BulkIndexer bulk, long lastUpdatedAt) {
+  private long doIndex(BulkIndexer bulk, long lastUpdatedAt, @Nullable String projectUuid) {
     DbSession dbSession = dbClient.openSession(false);
     Connection dbConnection = dbSession.getConnection();
     long maxDate;
     try {
-      IssueResultSetIterator rowIt = IssueResultSetIterator.create(dbClient, dbConnection, lastUpdatedAt);
+      IssueResultSetIterator rowIt = IssueResultSetIterator.create(dbClient, dbConnection, lastUpdatedAt, projectUuid);
       maxDate = doIndex(bulk, rowIt);
       rowIt.close();
       return maxDate;
@@ -92,6 +92,10 @@ class IssueResultSetIterator extends ResultSetIterator<IssueDoc> {
 
   private static final String SQL_AFTER_DATE = SQL_ALL + " where i.updated_at>?";
 
+  private static final String SQL_PROJECT = SQL_ALL + " where i.project_uuid=?";
+
+  private static final String SQL_PROJECT_AFTER_DATE = SQL_PROJECT + " and i.updated_at>?";
+
   private static final Splitter TAGS_SPLITTER = Splitter.on(',').trimResults().omitEmptyStrings();
 
   private static final Splitter MODULE_PATH_SPLITTER = Splitter.on('.').trimResults().omitEmptyStrings();
@@ -101,11 +105,25 @@ class IssueResultSetIterator extends ResultSetIterator<IssueDoc> {
   }
 
   static IssueResultSetIterator create(DbClient dbClient, Connection connection, long afterDate) {
+    return create(dbClient, connection, afterDate, null);
+  }
+
+  static IssueResultSetIterator create(DbClient dbClient, Connection connection, long afterDate, @Nullable String projectUuid) {
     try {
-      String sql = afterDate > 0L ? SQL_AFTER_DATE : SQL_ALL;
+      String sql;
+      if (projectUuid == null) {
+        sql = afterDate > 0L ? SQL_AFTER_DATE : SQL_ALL;
+      } else {
+        sql = afterDate > 0L ? SQL_PROJECT_AFTER_DATE : SQL_PROJECT;
+      }
       PreparedStatement stmt = dbClient.newScrollingSelectStatement(connection, sql);
+      int index = 1;
+      if (projectUuid != null) {
+        stmt.setString(index, projectUuid);
+        index++;
+      }
       if (afterDate > 0L) {
-        stmt.setLong(1, afterDate);
+        stmt.setLong(index, afterDate);
       }
       return new IssueResultSetIterator(stmt);
     } catch (SQLException e) {
@@ -175,7 +175,7 @@ public class MeasureFilter {
     return measureConditions;
   }
 
-  MeasureFilterSort sort() {
+  public MeasureFilterSort sort() {
     return sort;
   }
 
@@ -37,9 +37,11 @@ public class MeasureFilterEngine {
 
   private final MeasureFilterFactory factory;
   private final MeasureFilterExecutor executor;
+  private final MeasureFilterIndexExecutor indexExecutor;
 
-  public MeasureFilterEngine(MeasureFilterFactory factory, MeasureFilterExecutor executor) {
+  public MeasureFilterEngine(MeasureFilterFactory factory, MeasureFilterExecutor executor, MeasureFilterIndexExecutor indexExecutor) {
     this.executor = executor;
+    this.indexExecutor = indexExecutor;
     this.factory = factory;
   }
 
@@ -52,7 +54,12 @@ public class MeasureFilterEngine {
     try {
       profiler.addContext("request", context.getData());
       MeasureFilter filter = factory.create(filterMap);
-      List<MeasureFilterRow> rows = executor.execute(filter, context);
+      List<MeasureFilterRow> rows;
+      if (indexExecutor.accept(filter)) {
+        rows = indexExecutor.execute(filter, context);
+      } else {
+        rows = executor.execute(filter, context);
+      }
       result.setRows(rows);
 
     } catch (NumberFormatException e) {
@@ -0,0 +1,144 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2014 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.measure;
+
+import com.google.common.collect.ImmutableSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.apache.commons.lang.StringUtils;
+import org.elasticsearch.action.search.SearchRequestBuilder;
+import org.sonar.api.config.Settings;
+import org.sonar.api.resources.Qualifiers;
+import org.sonar.api.resources.Scopes;
+import org.sonar.api.server.ServerSide;
+import org.sonar.server.measure.index.ProjectMeasuresDoc;
+import org.sonar.server.measure.index.ProjectMeasuresIndex;
+import org.sonar.server.measure.index.ProjectMeasuresIndexDefinition;
+
+import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.FIELD_MEASURE_TEXT_VALUE;
+import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.FIELD_MEASURE_VALUE;
+
+/**
+ * Executes measure filters on projects and modules with the Elasticsearch index {@link ProjectMeasuresIndexDefinition}
+ * instead of the SQL requests of {@link MeasureFilterExecutor}. The other filters, for example on files or
+ * on favourites, are not supported, see {@link #accept(MeasureFilter)}.
+ */
+@ServerSide
+public class MeasureFilterIndexExecutor {
+
+  private static final Set<String> SUPPORTED_QUALIFIERS = ImmutableSet.of(Qualifiers.PROJECT, Qualifiers.MODULE);
+  private static final Set<String> SUPPORTED_SCOPES = ImmutableSet.of(Scopes.PROJECT);
+
+  private final ProjectMeasuresIndex index;
+  private final Settings settings;
+
+  public MeasureFilterIndexExecutor(ProjectMeasuresIndex index, Settings settings) {
+    this.index = index;
+    this.settings = settings;
+  }
+
+  public boolean accept(MeasureFilter filter) {
+    return !settings.getBoolean("sonar.internal.es.disableIndexes")
+      && StringUtils.isEmpty(filter.getBaseResourceKey())
+      && !filter.isOnFavourites()
+      && StringUtils.isBlank(filter.getResourceName())
+      && StringUtils.isBlank(filter.getResourceKey())
+      && !filter.getResourceQualifiers().isEmpty()
+      && SUPPORTED_QUALIFIERS.containsAll(filter.getResourceQualifiers())
+      && SUPPORTED_SCOPES.containsAll(filter.getResourceScopes())
+      && acceptPeriods(filter);
+  }
+
+  private static boolean acceptPeriods(MeasureFilter filter) {
+    for (MeasureFilterCondition condition : filter.getMeasureConditions()) {
+      if (condition.period() != null && condition.period() > ProjectMeasuresIndexDefinition.MAX_PERIODS) {
+        return false;
+      }
+    }
+    Integer sortPeriod = filter.sort().period();
+    return sortPeriod == null || sortPeriod <= ProjectMeasuresIndexDefinition.MAX_PERIODS;
+  }
+
+  /**
+   * Conditions are applied by Elasticsearch, which returns only the identifiers and the sort value of each row.
+   * Rows are then sorted in memory with the same rules as {@link MeasureFilterSql}, for example case-insensitive
+   * names or the order of quality gate statuses.
+   */
+  public List<MeasureFilterRow> execute(MeasureFilter filter, MeasureFilterContext context) {
+    if (filter.isEmpty() || !MeasureFilterExecutor.isValid(filter, context)) {
+      return Collections.emptyList();
+    }
+    SearchRequestBuilder request = index.prepareSearch(filter);
+    context.setSql(request.toString());
+    List<ProjectMeasuresDoc> docs = index.search(request, filter.sort());
+    List<MeasureFilterRow> rows = new ArrayList<>(docs.size());
+    for (ProjectMeasuresDoc doc : docs) {
+      MeasureFilterRow row = new MeasureFilterRow(doc.snapshotId(), doc.componentId(), doc.rootComponentId());
+      setSortValue(filter.sort(), doc, row);
+      rows.add(row);
+    }
+    return MeasureFilterSql.newRowProcessor(filter.sort()).sort(rows, filter.sort().isAsc());
+  }
+
+  private static void setSortValue(MeasureFilterSort sort, ProjectMeasuresDoc doc, MeasureFilterRow row) {
+    switch (sort.field()) {
+      case KEY:
+        row.setSortText(doc.key());
+        break;
+      case NAME:
+        row.setSortText(doc.longName());
+        break;
+      case SHORT_NAME:
+        row.setSortText(doc.name());
+        break;
+      case DESCRIPTION:
+        row.setSortText(doc.description());
+        break;
+      case VERSION:
+        row.setSortText(doc.version());
+        break;
+      case DATE:
+        row.setSortDate(doc.analysedAt());
+        break;
+      case PROJECT_CREATION_DATE:
+        row.setSortDate(doc.createdAt());
+        break;
+      case METRIC:
+        setMeasureSortValue(sort, doc, row);
+        break;
+      default:
+        throw new IllegalArgumentException("Unsupported sorting: " + sort.field());
+    }
+  }
+
+  private static void setMeasureSortValue(MeasureFilterSort sort, ProjectMeasuresDoc doc, MeasureFilterRow row) {
+    Map<String, Object> measure = doc.measure(sort.metric().getId());
+    if (sort.metric().isNumericType()) {
+      String field = sort.period() != null ? ProjectMeasuresIndexDefinition.variationField(sort.period()) : FIELD_MEASURE_VALUE;
+      Number value = measure == null ? null : (Number) measure.get(field);
+      row.setSortDouble(value == null ? null : value.doubleValue());
+    } else {
+      row.setSortText(measure == null ? null : (String) measure.get(FIELD_MEASURE_TEXT_VALUE));
+    }
+  }
+}
@@ -22,7 +22,7 @@ package org.sonar.server.measure;
 import org.sonar.api.measures.CoreMetrics;
 import org.sonar.api.measures.Metric;
 
-class MeasureFilterSort {
+public class MeasureFilterSort {
   private Field field = Field.NAME;
   private Metric metric = null;
   private Integer period = null;
@@ -40,7 +40,7 @@ class MeasureFilterSort {
     this.metric = metric;
   }
 
-  Integer period() {
+  public Integer period() {
     return period;
   }
 
@@ -56,7 +56,7 @@ class MeasureFilterSort {
     return field == Field.METRIC;
   }
 
-  Metric metric() {
+  public Metric metric() {
     return metric;
   }
 
@@ -80,7 +80,7 @@ class MeasureFilterSort {
     return metric != null && metric.getKey().equals(CoreMetrics.ALERT_STATUS_KEY);
   }
 
-  boolean isAsc() {
+  public boolean isAsc() {
     return asc;
   }
 
@@ -208,18 +208,7 @@ class MeasureFilterSql {
 
   List<MeasureFilterRow> process(ResultSet rs) throws SQLException {
     List<MeasureFilterRow> rows = Lists.newArrayList();
-    RowProcessor rowProcessor;
-    if (filter.sort().isOnNumericMeasure()) {
-      rowProcessor = new NumericSortRowProcessor();
-    } else if (filter.sort().isOnDate()) {
-      rowProcessor = new DateSortRowProcessor();
-    } else if (filter.sort().isOnTime()) {
-      rowProcessor = new LongSortRowProcessor();
-    } else if (filter.sort().isOnAlert()) {
-      rowProcessor = new AlertSortRowProcessor();
-    } else {
-      rowProcessor = new TextSortRowProcessor();
-    }
+    RowProcessor rowProcessor = newRowProcessor(filter.sort());
 
     while (rs.next()) {
       rows.add(rowProcessor.fetch(rs));
@@ -228,6 +217,22 @@ class MeasureFilterSql {
     return rowProcessor.sort(rows, filter.sort().isAsc());
   }
 
+  static RowProcessor newRowProcessor(MeasureFilterSort sort) {
+    if (sort.isOnNumericMeasure()) {
+      return new NumericSortRowProcessor();
+    }
+    if (sort.isOnDate()) {
+      return new DateSortRowProcessor();
+    }
+    if (sort.isOnTime()) {
+      return new LongSortRowProcessor();
+    }
+    if (sort.isOnAlert()) {
+      return new AlertSortRowProcessor();
+    }
+    return new TextSortRowProcessor();
+  }
+
   /**
    * Replace escape percent and underscore by adding a slash just before
    */
@@ -0,0 +1,242 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2014 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.measure.index;
+
+import com.google.common.collect.Maps;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.sonar.server.search.BaseDoc;
+
+import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.FIELD_ANALYSED_AT;
+import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.FIELD_COMPONENT_ID;
+import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.FIELD_CREATED_AT;
+import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.FIELD_DESCRIPTION;
+import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.FIELD_KEY;
+import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.FIELD_LONG_NAME;
+import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.FIELD_MEASURES;
+import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.FIELD_MEASURE_METRIC_ID;
+import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.FIELD_MEASURE_TEXT_VALUE;
+import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.FIELD_MEASURE_VALUE;
+import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.FIELD_NAME;
+import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.FIELD_PROJECT_UUID;
+import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.FIELD_QUALIFIER;
+import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.FIELD_ROOT_COMPONENT_ID;
+import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.FIELD_SCOPE;
+import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.FIELD_SNAPSHOT_ID;
+import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.FIELD_UPDATED_AT;
+import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.FIELD_UUID;
+import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.FIELD_VERSION;
+import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.variationField;
+
+/**
+ * Last snapshot of a project or of a module, with its measures
+ */
+public class ProjectMeasuresDoc extends BaseDoc {
+
+  public ProjectMeasuresDoc(Map<String, Object> fields) {
+    super(fields);
+  }
+
+  public ProjectMeasuresDoc() {
+    this(Maps.<String, Object>newHashMapWithExpectedSize(16));
+    setField(FIELD_MEASURES, new ArrayList<Map<String, Object>>());
+  }
+
+  public String uuid() {
+    return getField(FIELD_UUID);
+  }
+
+  public ProjectMeasuresDoc setUuid(String s) {
+    setField(FIELD_UUID, s);
+    return this;
+  }
+
+  public String projectUuid() {
+    return getField(FIELD_PROJECT_UUID);
+  }
+
+  public ProjectMeasuresDoc setProjectUuid(String s) {
+    setField(FIELD_PROJECT_UUID, s);
+    return this;
+  }
+
+  public long snapshotId() {
+    return ((Number) getField(FIELD_SNAPSHOT_ID)).longValue();
+  }
+
+  public ProjectMeasuresDoc setSnapshotId(long l) {
+    setField(FIELD_SNAPSHOT_ID, l);
+    return this;
+  }
+
+  public long componentId() {
+    return ((Number) getField(FIELD_COMPONENT_ID)).longValue();
+  }
+
+  public ProjectMeasuresDoc setComponentId(long l) {
+    setField(FIELD_COMPONENT_ID, l);
+    return this;
+  }
+
+  public long rootComponentId() {
+    return ((Number) getField(FIELD_ROOT_COMPONENT_ID)).longValue();
+  }
+
+  public ProjectMeasuresDoc setRootComponentId(long l) {
+    setField(FIELD_ROOT_COMPONENT_ID, l);
+    return this;
+  }
+
+  public String scope() {
+    return getField(FIELD_SCOPE);
+  }
+
+  public ProjectMeasuresDoc setScope(String s) {
+    setField(FIELD_SCOPE, s);
+    return this;
+  }
+
+  public String qualifier() {
+    return getField(FIELD_QUALIFIER);
+  }
+
+  public ProjectMeasuresDoc setQualifier(String s) {
+    setField(FIELD_QUALIFIER, s);
+    return this;
+  }
+
+  public String key() {
+    return getField(FIELD_KEY);
+  }
+
+  public ProjectMeasuresDoc setKey(String s) {
+    setField(FIELD_KEY, s);
+    return this;
+  }
+
+  @CheckForNull
+  public String name() {
+    return getNullableField(FIELD_NAME);
+  }
+
+  public ProjectMeasuresDoc setName(@Nullable String s) {
+    setField(FIELD_NAME, s);
+    return this;
+  }
+
+  @CheckForNull
+  public String longName() {
+    return getNullableField(FIELD_LONG_NAME);
+  }
+
+  public ProjectMeasuresDoc setLongName(@Nullable String s) {
+    setField(FIELD_LONG_NAME, s);
+    return this;
+  }
+
+  @CheckForNull
+  public String description() {
+    return getNullableField(FIELD_DESCRIPTION);
+  }
+
+  public ProjectMeasuresDoc setDescription(@Nullable String s) {
+    setField(FIELD_DESCRIPTION, s);
+    return this;
+  }
+
+  @CheckForNull
+  public String version() {
+    return getNullableField(FIELD_VERSION);
+  }
+
+  public ProjectMeasuresDoc setVersion(@Nullable String s) {
+    setField(FIELD_VERSION, s);
+    return this;
+  }
+
+  /**
+   * Date of the analysis, as defined by the property sonar.projectDate
+   */
+  @CheckForNull
+  public Long analysedAt() {
+    return toLong(getNullableField(FIELD_ANALYSED_AT));
+  }
+
+  public ProjectMeasuresDoc setAnalysedAt(@Nullable Long l) {
+    setField(FIELD_ANALYSED_AT, l);
+    return this;
+  }
+
+  /**
+   * Creation date of the component
+   */
+  @CheckForNull
+  public Long createdAt() {
+    return toLong(getNullableField(FIELD_CREATED_AT));
+  }
+
+  public ProjectMeasuresDoc setCreatedAt(@Nullable Long l) {
+    setField(FIELD_CREATED_AT, l);
+    return this;
+  }
+
+  public long updatedAt() {
+    return ((Number) getField(FIELD_UPDATED_AT)).longValue();
+  }
+
+  public ProjectMeasuresDoc setUpdatedAt(long l) {
+    setField(FIELD_UPDATED_AT, l);
+    return this;
+  }
+
+  public List<Map<String, Object>> measures() {
+    return getField(FIELD_MEASURES);
+  }
+
+  public ProjectMeasuresDoc addMeasure(int metricId, @Nullable Double value, @Nullable String textValue, Double[] variations) {
+    Map<String, Object> measure = Maps.newHashMapWithExpectedSize(3 + variations.length);
+    measure.put(FIELD_MEASURE_METRIC_ID, metricId);
+    measure.put(FIELD_MEASURE_VALUE, value);
+    measure.put(FIELD_MEASURE_TEXT_VALUE, textValue);
+    for (int index = 0; index < variations.length; index++) {
+      measure.put(variationField(index + 1), variations[index]);
+    }
+    measures().add(measure);
+    return this;
+  }
+
+  @CheckForNull
+  public Map<String, Object> measure(int metricId) {
+    for (Map<String, Object> measure : measures()) {
+      if (((Number) measure.get(FIELD_MEASURE_METRIC_ID)).intValue() == metricId) {
+        return measure;
+      }
+    }
+    return null;
+  }
+
+  @CheckForNull
+  private static Long toLong(@Nullable Object value) {
+    return value == null ? null : ((Number) value).longValue();
+  }
+}
@@ -0,0 +1,272 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2014 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.measure.index;
+
+import com.google.common.collect.ObjectArrays;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.commons.lang.StringUtils;
+import org.elasticsearch.action.search.SearchRequestBuilder;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.SearchType;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.index.query.BoolFilterBuilder;
+import org.elasticsearch.index.query.FilterBuilder;
+import org.elasticsearch.index.query.FilterBuilders;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.index.query.RangeFilterBuilder;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.sort.SortBuilders;
+import org.elasticsearch.search.sort.SortOrder;
+import org.sonar.api.server.ServerSide;
+import org.sonar.server.es.BaseIndex;
+import org.sonar.server.es.EsClient;
+import org.sonar.server.es.EsUtils;
+import org.sonar.server.measure.MeasureFilter;
+import org.sonar.server.measure.MeasureFilterCondition;
+import org.sonar.server.measure.MeasureFilterSort;
+
+import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.FIELD_ANALYSED_AT;
+import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.FIELD_COMPONENT_ID;
+import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.FIELD_CREATED_AT;
+import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.FIELD_DESCRIPTION;
+import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.FIELD_KEY;
+import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.FIELD_LONG_NAME;
+import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.FIELD_MEASURES;
+import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.FIELD_MEASURE_METRIC_ID;
+import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.FIELD_MEASURE_TEXT_VALUE;
+import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.FIELD_MEASURE_VALUE;
+import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.FIELD_NAME;
+import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.FIELD_QUALIFIER;
+import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.FIELD_ROOT_COMPONENT_ID;
+import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.FIELD_SCOPE;
+import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.FIELD_SNAPSHOT_ID;
+import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.FIELD_VERSION;
+import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.INDEX;
+import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.TYPE;
+import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.variationField;
+
+@ServerSide
+public class ProjectMeasuresIndex extends BaseIndex {
+
+  private static final int SCROLL_SIZE = 100;
+  private static final String[] ID_FIELDS = {FIELD_SNAPSHOT_ID, FIELD_COMPONENT_ID, FIELD_ROOT_COMPONENT_ID};
+
+  public ProjectMeasuresIndex(EsClient client) {
+    super(client);
+  }
+
+  /**
+   * Prepares the search of the documents matching the qualifiers, scopes, dates and measure conditions of the filter.
+   * Other criteria of the filter are ignored. Only the identifiers of documents and the field used to sort are loaded,
+   * see {@link #search(SearchRequestBuilder, MeasureFilterSort)}.
+   */
+  public SearchRequestBuilder prepareSearch(MeasureFilter filter) {
+    MeasureFilterSort sort = filter.sort();
+    SearchRequestBuilder request = getClient().prepareSearch(INDEX)
+      .setTypes(TYPE)
+      .setScroll(TimeValue.timeValueMinutes(EsUtils.SCROLL_TIME_IN_MINUTES))
+      .setSize(SCROLL_SIZE)
+      .setQuery(QueryBuilders.filteredQuery(QueryBuilders.matchAllQuery(), createFilter(filter)))
+      .setFetchSource(ObjectArrays.concat(ID_FIELDS, sortFields(sort), String.class), null);
+    if (isSortedOnNumericMeasure(sort)) {
+      // the value of the measure is returned as the sort value of each document, so that other measures are not loaded
+      request.addSort(SortBuilders.fieldSort(nestedField(numericMeasureField(sort)))
+        .setNestedPath(FIELD_MEASURES)
+        .setNestedFilter(FilterBuilders.termFilter(nestedField(FIELD_MEASURE_METRIC_ID), sort.metric().getId()))
+        .order(sort.isAsc() ? SortOrder.ASC : SortOrder.DESC)
+        .missing("_last"));
+    } else {
+      request.setSearchType(SearchType.SCAN);
+    }
+    return request;
+  }
+
+  /**
+   * Executes a request prepared by {@link #prepareSearch(MeasureFilter)} and returns all the matching documents.
+   * The order of documents is not specified. When sorted on a measure, documents contain only the measure of the
+   * sorted metric.
+   */
+  public List<ProjectMeasuresDoc> search(SearchRequestBuilder request, MeasureFilterSort sort) {
+    String[] sortFields = sortFields(sort);
+    SearchResponse response = request.get();
+    List<ProjectMeasuresDoc> docs = new ArrayList<>((int) response.getHits().getTotalHits());
+    do {
+      for (SearchHit hit : response.getHits().getHits()) {
+        docs.add(toDoc(hit, sort, sortFields));
+      }
+      response = getClient().prepareSearchScroll(response.getScrollId())
+        .setScroll(TimeValue.timeValueMinutes(EsUtils.SCROLL_TIME_IN_MINUTES))
+        .get();
+    } while (response.getHits().getHits().length > 0);
+    return docs;
+  }
+
+  private static ProjectMeasuresDoc toDoc(SearchHit hit, MeasureFilterSort sort, String[] sortFields) {
+    ProjectMeasuresDoc doc = new ProjectMeasuresDoc(hit.getSource());
+    if (sort.field() == MeasureFilterSort.Field.METRIC) {
+      doc.setField(FIELD_MEASURES, sortedMeasures(hit, doc, sort));
+    } else {
+      for (String sortField : sortFields) {
+        // null values may be dropped by source filtering
+        if (!doc.getFields().containsKey(sortField)) {
+          doc.setField(sortField, null);
+        }
+      }
+    }
+    return doc;
+  }
+
+  private static List<Map<String, Object>> sortedMeasures(SearchHit hit, ProjectMeasuresDoc doc, MeasureFilterSort sort) {
+    List<Map<String, Object>> measures = new ArrayList<>();
+    if (isSortedOnNumericMeasure(sort)) {
+      Object value = hit.getSortValues()[0];
+      // documents without measure are sorted with an infinite value
+      if (value instanceof Number && !Double.isInfinite(((Number) value).doubleValue())) {
+        Map<String, Object> measure = new HashMap<>();
+        measure.put(FIELD_MEASURE_METRIC_ID, sort.metric().getId());
+        measure.put(numericMeasureField(sort), value);
+        measures.add(measure);
+      }
+    } else if (doc.getFields().get(FIELD_MEASURES) != null) {
+      Map<String, Object> measure = doc.measure(sort.metric().getId());
+      if (measure != null) {
+        measures.add(measure);
+      }
+    }
+    return measures;
+  }
+
+  /**
+   * Fields of documents to load in addition to their identifiers, according to the sort
+   */
+  private static String[] sortFields(MeasureFilterSort sort) {
+    switch (sort.field()) {
+      case KEY:
+        return new String[] {FIELD_KEY};
+      case NAME:
+        return new String[] {FIELD_LONG_NAME};
+      case SHORT_NAME:
+        return new String[] {FIELD_NAME};
+      case DESCRIPTION:
+        return new String[] {FIELD_DESCRIPTION};
+      case VERSION:
+        return new String[] {FIELD_VERSION};
+      case DATE:
+        return new String[] {FIELD_ANALYSED_AT};
+      case PROJECT_CREATION_DATE:
+        return new String[] {FIELD_CREATED_AT};
+      case METRIC:
+        // numeric values are returned as sort values
+        return isSortedOnNumericMeasure(sort) ? new String[0] : new String[] {nestedField(FIELD_MEASURE_METRIC_ID), nestedField(FIELD_MEASURE_TEXT_VALUE)};
+      default:
+        throw new IllegalArgumentException("Unsupported sorting: " + sort.field());
+    }
+  }
+
+  private static boolean isSortedOnNumericMeasure(MeasureFilterSort sort) {
+    return sort.field() == MeasureFilterSort.Field.METRIC && sort.metric().isNumericType();
+  }
+
+  private static String numericMeasureField(MeasureFilterSort sort) {
+    return sort.period() != null ? variationField(sort.period()) : FIELD_MEASURE_VALUE;
+  }
+
+  private static FilterBuilder createFilter(MeasureFilter filter) {
+    BoolFilterBuilder esFilter = FilterBuilders.boolFilter();
+    if (!filter.getResourceQualifiers().isEmpty()) {
+      esFilter.must(FilterBuilders.termsFilter(FIELD_QUALIFIER, filter.getResourceQualifiers()));
+    }
+    if (!filter.getResourceScopes().isEmpty()) {
+      esFilter.must(FilterBuilders.termsFilter(FIELD_SCOPE, filter.getResourceScopes()));
+    }
+    Date fromDate = filter.getFromDate();
+    if (fromDate != null) {
+      esFilter.must(FilterBuilders.rangeFilter(FIELD_ANALYSED_AT).gte(fromDate.getTime()));
+    }
+    Date toDate = filter.getToDate();
+    if (toDate != null) {
+      esFilter.must(FilterBuilders.rangeFilter(FIELD_ANALYSED_AT).lte(toDate.getTime()));
+    }
+    for (MeasureFilterCondition condition : filter.getMeasureConditions()) {
+      esFilter.must(FilterBuilders.nestedFilter(FIELD_MEASURES, FilterBuilders.boolFilter()
+        .must(FilterBuilders.termFilter(nestedField(FIELD_MEASURE_METRIC_ID), condition.metric().getId()))
+        .must(createConditionFilter(condition))));
+    }
+    if (!esFilter.hasClauses()) {
+      return FilterBuilders.matchAllFilter();
+    }
+    return esFilter;
+  }
+
+  private static FilterBuilder createConditionFilter(MeasureFilterCondition condition) {
+    String field;
+    Object value;
+    if (condition.period() != null) {
+      field = nestedField(variationField(condition.period()));
+      value = condition.value();
+    } else if (condition.textValue() == null) {
+      field = nestedField(FIELD_MEASURE_VALUE);
+      value = condition.value();
+    } else {
+      field = nestedField(FIELD_MEASURE_TEXT_VALUE);
+      value = condition.textValue();
+    }
+
+    RangeFilterBuilder range = FilterBuilders.rangeFilter(field);
+    switch (condition.operator()) {
+      case EQUALS:
+        return FilterBuilders.termFilter(field, value);
+      case GREATER:
+        return range.gt(value);
+      case GREATER_OR_EQUALS:
+        return range.gte(value);
+      case LESS:
+        return range.lt(value);
+      case LESS_OR_EQUALS:
+        return range.lte(value);
+      case IN:
+        return FilterBuilders.termsFilter(field, parseInValues(String.valueOf(value)));
+      default:
+        throw new IllegalArgumentException("Unsupported operator: " + condition.operator());
+    }
+  }
+
+  /**
+   * Text values of conditions with operator IN are SQL lists, for example "('ERROR', 'WARN')"
+   */
+  static List<String> parseInValues(String sqlList) {
+    List<String> values = new ArrayList<>();
+    for (String value : StringUtils.split(StringUtils.removeEnd(StringUtils.removeStart(sqlList.trim(), "("), ")"), ',')) {
+      String unquoted = StringUtils.removeEnd(StringUtils.removeStart(value.trim(), "'"), "'");
+      if (!unquoted.isEmpty()) {
+        values.add(unquoted);
+      }
+    }
+    return values;
+  }
+
+  private static String nestedField(String field) {
+    return FIELD_MEASURES + "." + field;
+  }
+}
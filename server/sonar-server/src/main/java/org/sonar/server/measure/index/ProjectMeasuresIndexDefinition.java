@@ -0,0 +1,101 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2014 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.measure.index;
+
+import org.sonar.api.config.Settings;
+import org.sonar.server.es.IndexDefinition;
+import org.sonar.server.es.NewIndex;
+
+/**
+ * Definition of ES index "projectmeasures". It contains the last measures of projects and modules,
+ * and is used to execute measure filters.
+ */
+public class ProjectMeasuresIndexDefinition implements IndexDefinition {
+
+  public static final String INDEX = "projectmeasures";
+  public static final String TYPE = "projectmeasure";
+
+  public static final String FIELD_UUID = "uuid";
+  public static final String FIELD_PROJECT_UUID = "projectUuid";
+  public static final String FIELD_SNAPSHOT_ID = "snapshotId";
+  public static final String FIELD_COMPONENT_ID = "componentId";
+  public static final String FIELD_ROOT_COMPONENT_ID = "rootComponentId";
+  public static final String FIELD_SCOPE = "scope";
+  public static final String FIELD_QUALIFIER = "qualifier";
+  public static final String FIELD_KEY = "key";
+  public static final String FIELD_NAME = "name";
+  public static final String FIELD_LONG_NAME = "longName";
+  public static final String FIELD_DESCRIPTION = "description";
+  public static final String FIELD_VERSION = "version";
+  public static final String FIELD_ANALYSED_AT = "analysedAt";
+  public static final String FIELD_CREATED_AT = "createdAt";
+  public static final String FIELD_UPDATED_AT = "updatedAt";
+  public static final String FIELD_MEASURES = "measures";
+  public static final String FIELD_MEASURE_METRIC_ID = "metricId";
+  public static final String FIELD_MEASURE_VALUE = "value";
+  public static final String FIELD_MEASURE_TEXT_VALUE = "textValue";
+  public static final String FIELD_MEASURE_VARIATION_PREFIX = "variation";
+
+  public static final int MAX_PERIODS = 5;
+
+  private final Settings settings;
+
+  public ProjectMeasuresIndexDefinition(Settings settings) {
+    this.settings = settings;
+  }
+
+  @Override
+  public void define(IndexDefinitionContext context) {
+    NewIndex index = context.create(INDEX);
+
+    index.refreshHandledByIndexer();
+    index.setShards(settings);
+
+    NewIndex.NewIndexType nestedMapping = index.createType(TYPE);
+    nestedMapping.createIntegerField(FIELD_MEASURE_METRIC_ID);
+    nestedMapping.createDoubleField(FIELD_MEASURE_VALUE);
+    nestedMapping.stringFieldBuilder(FIELD_MEASURE_TEXT_VALUE).build();
+    for (int period = 1; period <= MAX_PERIODS; period++) {
+      nestedMapping.createDoubleField(variationField(period));
+    }
+
+    NewIndex.NewIndexType mapping = index.createType(TYPE);
+    mapping.stringFieldBuilder(FIELD_UUID).build();
+    mapping.stringFieldBuilder(FIELD_PROJECT_UUID).build();
+    mapping.createLongField(FIELD_SNAPSHOT_ID);
+    mapping.createLongField(FIELD_COMPONENT_ID);
+    mapping.createLongField(FIELD_ROOT_COMPONENT_ID);
+    mapping.stringFieldBuilder(FIELD_SCOPE).build();
+    mapping.stringFieldBuilder(FIELD_QUALIFIER).build();
+    mapping.stringFieldBuilder(FIELD_KEY).disableSearch().build();
+    mapping.stringFieldBuilder(FIELD_NAME).disableSearch().build();
+    mapping.stringFieldBuilder(FIELD_LONG_NAME).disableSearch().build();
+    mapping.stringFieldBuilder(FIELD_DESCRIPTION).disableSearch().build();
+    mapping.stringFieldBuilder(FIELD_VERSION).disableSearch().build();
+    mapping.createLongField(FIELD_ANALYSED_AT);
+    mapping.createLongField(FIELD_CREATED_AT);
+    mapping.createDateTimeField(FIELD_UPDATED_AT);
+    mapping.nestedObjectBuilder(FIELD_MEASURES, nestedMapping).build();
+  }
+
+  public static String variationField(int period) {
+    return FIELD_MEASURE_VARIATION_PREFIX + period;
+  }
+}
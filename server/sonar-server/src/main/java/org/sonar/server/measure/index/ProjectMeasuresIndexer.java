@@ -0,0 +1,122 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2014 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.measure.index;
+
+import com.google.common.collect.Iterators;
+import com.google.common.collect.PeekingIterator;
+import java.sql.Connection;
+import java.util.Iterator;
+import javax.annotation.Nullable;
+import org.elasticsearch.action.search.SearchRequestBuilder;
+import org.elasticsearch.action.update.UpdateRequest;
+import org.elasticsearch.index.query.FilterBuilders;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.sonar.core.persistence.DbSession;
+import org.sonar.server.db.DbClient;
+import org.sonar.server.es.BaseIndexer;
+import org.sonar.server.es.BulkIndexer;
+import org.sonar.server.es.EsClient;
+
+import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.FIELD_PROJECT_UUID;
+import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.FIELD_UPDATED_AT;
+import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.INDEX;
+import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.TYPE;
+
+/**
+ * Add to Elasticsearch index {@link ProjectMeasuresIndexDefinition} the last snapshots of projects and modules
+ * that are not indexed yet
+ */
+public class ProjectMeasuresIndexer extends BaseIndexer {
+
+  private final DbClient dbClient;
+
+  public ProjectMeasuresIndexer(DbClient dbClient, EsClient esClient) {
+    super(esClient, 300, INDEX, TYPE, FIELD_UPDATED_AT);
+    this.dbClient = dbClient;
+  }
+
+  /**
+   * Replaces the documents of a project and of its modules. Modules that have been removed
+   * from the project are deleted from index.
+   */
+  public void index(final String projectUuid) {
+    deleteProject(projectUuid);
+    super.index(projectUuid, new IndexerTask() {
+      @Override
+      public long index(long lastUpdatedAt) {
+        return doIndex(lastUpdatedAt, projectUuid);
+      }
+    });
+  }
+
+  @Override
+  protected long doIndex(long lastUpdatedAt) {
+    return doIndex(lastUpdatedAt, null);
+  }
+
+  private long doIndex(long lastUpdatedAt, @Nullable String projectUuid) {
+    final BulkIndexer bulk = new BulkIndexer(esClient, INDEX);
+    bulk.setLarge(lastUpdatedAt == 0L);
+
+    DbSession dbSession = dbClient.openSession(false);
+    Connection dbConnection = dbSession.getConnection();
+    try {
+      ProjectMeasuresResultSetIterator rowIt = ProjectMeasuresResultSetIterator.create(dbClient, dbConnection, lastUpdatedAt, projectUuid);
+      long maxUpdatedAt = doIndex(bulk, rowIt);
+      rowIt.close();
+      return maxUpdatedAt;
+
+    } finally {
+      dbSession.close();
+    }
+  }
+
+  private static long doIndex(BulkIndexer bulk, Iterator<ProjectMeasuresDoc> rows) {
+    long maxUpdatedAt = 0L;
+    PeekingIterator<ProjectMeasuresDoc> docs = Iterators.peekingIterator(rows);
+    bulk.start();
+    while (docs.hasNext()) {
+      ProjectMeasuresDoc doc = docs.next();
+      // rows of a same snapshot are consecutive, each one contains a single measure
+      while (docs.hasNext() && docs.peek().snapshotId() == doc.snapshotId()) {
+        doc.measures().addAll(docs.next().measures());
+      }
+      bulk.add(newUpsertRequest(doc));
+      maxUpdatedAt = Math.max(maxUpdatedAt, doc.updatedAt());
+    }
+    bulk.stop();
+    return maxUpdatedAt;
+  }
+
+  private static UpdateRequest newUpsertRequest(ProjectMeasuresDoc doc) {
+    return new UpdateRequest(INDEX, TYPE, doc.uuid())
+      .doc(doc.getFields())
+      .upsert(doc.getFields());
+  }
+
+  public void deleteProject(String projectUuid) {
+    SearchRequestBuilder searchRequest = esClient.prepareSearch(INDEX)
+      .setTypes(TYPE)
+      .setQuery(QueryBuilders.filteredQuery(
+        QueryBuilders.matchAllQuery(),
+        FilterBuilders.termFilter(FIELD_PROJECT_UUID, projectUuid).cache(false)));
+    BulkIndexer.delete(esClient, INDEX, searchRequest);
+  }
+}
@@ -0,0 +1,161 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2014 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.measure.index;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.apache.commons.lang.StringUtils;
+import org.sonar.api.resources.Qualifiers;
+import org.sonar.api.resources.Scopes;
+import org.sonar.server.db.DbClient;
+import org.sonar.server.db.ResultSetIterator;
+
+import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.MAX_PERIODS;
+
+/**
+ * Scrolls over the last snapshots of projects and modules, joined with their measures. There is one row
+ * per measure, rows of a same snapshot are consecutive. Each row is converted to a document containing
+ * at most one measure, see {@link ProjectMeasuresIndexer} for the merge of the documents of a snapshot.
+ */
+class ProjectMeasuresResultSetIterator extends ResultSetIterator<ProjectMeasuresDoc> {
+
+  private static final String[] FIELDS = {
+    // column 1
+    "s.id",
+    "s.project_id",
+    "s.root_project_id",
+    "s.scope",
+    "s.qualifier",
+    "s.version",
+    "s.created_at",
+    "s.build_date",
+    "p.uuid",
+    "p.project_uuid",
+
+    // column 11
+    "p.kee",
+    "p.name",
+    "p.long_name",
+    "p.description",
+    "p.created_at",
+    "pm.metric_id",
+    "pm.value",
+    "pm.text_value",
+    "pm.variation_value_1",
+    "pm.variation_value_2",
+
+    // column 21
+    "pm.variation_value_3",
+    "pm.variation_value_4",
+    "pm.variation_value_5"
+  };
+
+  private static final String SQL_ALL = "select " + StringUtils.join(FIELDS, ",") + " from snapshots s " +
+    "inner join projects p on p.id=s.project_id " +
+    "left outer join project_measures pm on pm.snapshot_id=s.id and pm.rule_id is null and pm.rule_priority is null " +
+    "and pm.characteristic_id is null and pm.person_id is null " +
+    "where s.islast=? and s.status='P' and s.scope='" + Scopes.PROJECT + "' " +
+    "and s.qualifier in ('" + Qualifiers.PROJECT + "','" + Qualifiers.MODULE + "') " +
+    "and p.enabled=? and p.copy_resource_id is null ";
+
+  private static final String SQL_AFTER_DATE = "and s.build_date>? ";
+
+  private static final String SQL_PROJECT = "and p.project_uuid=? ";
+
+  private static final String SQL_ORDER = "order by s.id";
+
+  static ProjectMeasuresResultSetIterator create(DbClient dbClient, Connection connection, long afterDate, @Nullable String projectUuid) {
+    try {
+      StringBuilder sql = new StringBuilder(SQL_ALL);
+      if (afterDate > 0L) {
+        sql.append(SQL_AFTER_DATE);
+      }
+      if (projectUuid != null) {
+        sql.append(SQL_PROJECT);
+      }
+      sql.append(SQL_ORDER);
+      PreparedStatement stmt = dbClient.newScrollingSelectStatement(connection, sql.toString());
+      int index = 1;
+      stmt.setBoolean(index++, true);
+      stmt.setBoolean(index++, true);
+      if (afterDate > 0L) {
+        stmt.setLong(index++, afterDate);
+      }
+      if (projectUuid != null) {
+        stmt.setString(index, projectUuid);
+      }
+      return new ProjectMeasuresResultSetIterator(stmt);
+    } catch (SQLException e) {
+      throw new IllegalStateException("Fail to prepare SQL request to select project measures", e);
+    }
+  }
+
+  private ProjectMeasuresResultSetIterator(PreparedStatement stmt) throws SQLException {
+    super(stmt);
+  }
+
+  @Override
+  protected ProjectMeasuresDoc read(ResultSet rs) throws SQLException {
+    ProjectMeasuresDoc doc = new ProjectMeasuresDoc()
+      .setSnapshotId(rs.getLong(1))
+      .setComponentId(rs.getLong(2))
+      .setRootComponentId(rs.getLong(3))
+      .setScope(rs.getString(4))
+      .setQualifier(rs.getString(5))
+      .setVersion(rs.getString(6))
+      .setAnalysedAt(getLong(rs, 7))
+      .setUpdatedAt(rs.getLong(8))
+      .setUuid(rs.getString(9))
+      .setProjectUuid(rs.getString(10))
+      .setKey(rs.getString(11))
+      .setName(rs.getString(12))
+      .setLongName(rs.getString(13))
+      .setDescription(rs.getString(14));
+    Timestamp createdAt = rs.getTimestamp(15);
+    doc.setCreatedAt(createdAt == null ? null : createdAt.getTime());
+
+    int metricId = rs.getInt(16);
+    if (!rs.wasNull()) {
+      Double[] variations = new Double[MAX_PERIODS];
+      for (int period = 0; period < MAX_PERIODS; period++) {
+        variations[period] = getDouble(rs, 19 + period);
+      }
+      doc.addMeasure(metricId, getDouble(rs, 17), rs.getString(18), variations);
+    }
+    return doc;
+  }
+
+  @CheckForNull
+  private static Long getLong(ResultSet rs, int index) throws SQLException {
+    long l = rs.getLong(index);
+    return rs.wasNull() ? null : l;
+  }
+
+  @CheckForNull
+  private static Double getDouble(ResultSet rs, int index) throws SQLException {
+    double d = rs.getDouble(index);
+    return rs.wasNull() ? null : d;
+  }
+}
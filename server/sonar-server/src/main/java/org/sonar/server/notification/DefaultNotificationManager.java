@@ -22,13 +22,19 @@ package org.sonar.server.notification;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Function;
 import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableSetMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.SetMultimap;
 import java.io.IOException;
 import java.io.InvalidClassException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.sonar.api.notifications.Notification;
 import org.sonar.api.notifications.NotificationChannel;
@@ -51,6 +57,8 @@ public class DefaultNotificationManager implements NotificationManager {
 
   private boolean alreadyLoggedDeserializationIssue = false;
 
+  private final ThreadLocal<Map<String, Multimap<String, NotificationChannel>>> subscribersCache = new ThreadLocal<>();
+
   /**
    * Default constructor used by Pico
    */
@@ -87,23 +95,30 @@ public class DefaultNotificationManager implements NotificationManager {
   }
 
   /**
-   * Give the notification queue so that it can be processed
+   * Give the oldest notifications of the queue so that they can be processed. They are removed from the queue.
+   * Notifications that can't be deserialized are ignored, so the result can be smaller than the batch size.
    */
-  public Notification getFromQueue() {
-    int batchSize = 1;
+  public List<Notification> getFromQueue(int batchSize) {
     List<NotificationQueueDto> notificationDtos = notificationQueueDao.findOldest(batchSize);
     if (notificationDtos.isEmpty()) {
-      return null;
+      return Collections.emptyList();
     }
     notificationQueueDao.delete(notificationDtos);
 
-    return convertToNotification(notificationDtos);
+    List<Notification> notifications = new ArrayList<>(notificationDtos.size());
+    for (NotificationQueueDto notificationDto : notificationDtos) {
+      Notification notification = convertToNotification(notificationDto);
+      if (notification != null) {
+        notifications.add(notification);
+      }
+    }
+    return notifications;
   }
 
-  private Notification convertToNotification(List<NotificationQueueDto> notifications) {
+  @CheckForNull
+  private Notification convertToNotification(NotificationQueueDto notification) {
     try {
-      // If batchSize is increased then we should return a list instead of a single element
-      return notifications.get(0).toNotification();
+      return notification.toNotification();
     } catch (InvalidClassException e) {
       // SONAR-4739
       if (!alreadyLoggedDeserializationIssue) {
@@ -128,6 +143,18 @@ public class DefaultNotificationManager implements NotificationManager {
     return notificationQueueDao.count();
   }
 
+  /**
+   * Until {@link #stopCachingSubscribers()} is called, the subscribers found by the current thread are kept in memory,
+   * so that they are loaded only once when delivering a batch of notifications on the same project.
+   */
+  void startCachingSubscribers() {
+    subscribersCache.set(new HashMap<String, Multimap<String, NotificationChannel>>());
+  }
+
+  void stopCachingSubscribers() {
+    subscribersCache.remove();
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -135,6 +162,11 @@ public class DefaultNotificationManager implements NotificationManager {
   public Multimap<String, NotificationChannel> findSubscribedRecipientsForDispatcher(NotificationDispatcher dispatcher,
                                                                                      @Nullable String projectUuid) {
     String dispatcherKey = dispatcher.getKey();
+    String cacheKey = "recipients|" + dispatcherKey + "|" + projectUuid;
+    Multimap<String, NotificationChannel> cachedRecipients = getCachedSubscribers(cacheKey);
+    if (cachedRecipients != null) {
+      return cachedRecipients;
+    }
 
     SetMultimap<String, NotificationChannel> recipients = HashMultimap.create();
     for (NotificationChannel channel : notificationChannels) {
@@ -149,19 +181,41 @@ public class DefaultNotificationManager implements NotificationManager {
       }
     }
 
-    return recipients;
+    return cacheSubscribers(cacheKey, recipients);
   }
 
   @Override
   public Multimap<String, NotificationChannel> findNotificationSubscribers(NotificationDispatcher dispatcher, @Nullable String componentKey) {
     String dispatcherKey = dispatcher.getKey();
+    String cacheKey = "subscribers|" + dispatcherKey + "|" + componentKey;
+    Multimap<String, NotificationChannel> cachedRecipients = getCachedSubscribers(cacheKey);
+    if (cachedRecipients != null) {
+      return cachedRecipients;
+    }
 
     SetMultimap<String, NotificationChannel> recipients = HashMultimap.create();
     for (NotificationChannel channel : notificationChannels) {
       addUsersToRecipientListForChannel(propertiesDao.findNotificationSubscribers(dispatcherKey, channel.getKey(), componentKey), recipients, channel);
     }
 
-    return recipients;
+    return cacheSubscribers(cacheKey, recipients);
+  }
+
+  @CheckForNull
+  private Multimap<String, NotificationChannel> getCachedSubscribers(String cacheKey) {
+    Map<String, Multimap<String, NotificationChannel>> cache = subscribersCache.get();
+    return cache == null ? null : cache.get(cacheKey);
+  }
+
+  private Multimap<String, NotificationChannel> cacheSubscribers(String cacheKey, SetMultimap<String, NotificationChannel> recipients) {
+    Map<String, Multimap<String, NotificationChannel>> cache = subscribersCache.get();
+    if (cache == null) {
+      return recipients;
+    }
+    // shared by all the notifications of the batch
+    Multimap<String, NotificationChannel> immutableRecipients = ImmutableSetMultimap.copyOf(recipients);
+    cache.put(cacheKey, immutableRecipients);
+    return immutableRecipients;
   }
 
   @VisibleForTesting
@@ -23,12 +23,18 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.SetMultimap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import org.picocontainer.Startable;
@@ -41,6 +47,7 @@ import org.sonar.api.server.ServerSide;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.server.db.DbClient;
+import org.sonar.server.notification.email.EmailNotificationChannel;
 
 @Properties({
   @Property(
@@ -54,6 +61,12 @@ import org.sonar.server.db.DbClient;
     defaultValue = "600",
     name = "Delay before reporting notification status, in seconds",
     project = false,
+    global = false),
+  @Property(
+    key = NotificationService.PROPERTY_DELIVERY_THREADS,
+    defaultValue = "4",
+    name = "Number of threads delivering emails of notifications",
+    project = false,
     global = false)
 })
 @ServerSide
@@ -63,15 +76,22 @@ public class NotificationService implements Startable {
 
   public static final String PROPERTY_DELAY = "sonar.notifications.delay";
   public static final String PROPERTY_DELAY_BEFORE_REPORTING_STATUS = "sonar.notifications.runningDelayBeforeReportingStatus";
+  public static final String PROPERTY_DELIVERY_THREADS = "sonar.notifications.delivery.threads";
+
+  /**
+   * Number of notifications loaded from the queue at once
+   */
+  private static final int BATCH_SIZE = 100;
 
   private final long delayInSeconds;
   private final long delayBeforeReportingStatusInSeconds;
   private final DefaultNotificationManager manager;
   private final List<NotificationDispatcher> dispatchers;
   private final DbClient dbClient;
+  private final ExecutorService deliveryExecutorService;
 
   private ScheduledExecutorService executorService;
-  private boolean stopping = false;
+  private volatile boolean stopping = false;
 
   public NotificationService(Settings settings, DefaultNotificationManager manager, DbClient dbClient,
     NotificationDispatcher[] dispatchers) {
@@ -80,6 +100,8 @@ public class NotificationService implements Startable {
     this.manager = manager;
     this.dbClient = dbClient;
     this.dispatchers = ImmutableList.copyOf(dispatchers);
+    this.deliveryExecutorService = Executors.newFixedThreadPool(Math.max(1, settings.getInt(PROPERTY_DELIVERY_THREADS)),
+      new ThreadFactoryBuilder().setNameFormat("notification-delivery-%d").setDaemon(true).build());
   }
 
   /**
@@ -110,7 +132,12 @@ public class NotificationService implements Startable {
     try {
       stopping = true;
       executorService.shutdown();
-      executorService.awaitTermination(5, TimeUnit.SECONDS);
+      if (!executorService.awaitTermination(5, TimeUnit.SECONDS)) {
+        LOG.warn("Notification queue is still being processed");
+      }
+      // emails that are still submitted are then delivered by the queue thread, see dispatch()
+      deliveryExecutorService.shutdown();
+      deliveryExecutorService.awaitTermination(5, TimeUnit.SECONDS);
     } catch (InterruptedException e) {
       LOG.error("Error during stop of notification service", e);
     }
@@ -123,11 +150,13 @@ public class NotificationService implements Startable {
     long lastLog = start;
     long notifSentCount = 0;
 
-    Notification notifToSend = manager.getFromQueue();
-    while (notifToSend != null) {
-      deliver(notifToSend);
-      notifSentCount++;
-      if (stopping) {
+    List<Notification> notifsToSend = manager.getFromQueue(BATCH_SIZE);
+    while (!notifsToSend.isEmpty()) {
+      int deliveredCount = deliver(notifsToSend, true);
+      notifSentCount += deliveredCount;
+      if (deliveredCount < notifsToSend.size()) {
+        // service is stopping. Notifications have been removed from the queue, so put back the ones not delivered yet.
+        manager.scheduleForSending(new ArrayList<>(notifsToSend.subList(deliveredCount, notifsToSend.size())));
         break;
       }
       long now = now();
@@ -137,7 +166,7 @@ public class NotificationService implements Startable {
         long spentTimeInMinutes = (now - start) / (60 * 1000);
         log(notifSentCount, remainingNotifCount, spentTimeInMinutes);
       }
-      notifToSend = manager.getFromQueue();
+      notifsToSend = manager.getFromQueue(BATCH_SIZE);
     }
   }
 
@@ -153,6 +182,41 @@ public class NotificationService implements Startable {
   }
 
   public void deliver(Notification notification) {
+    deliver(Collections.singletonList(notification));
+  }
+
+  /**
+   * Subscribers are loaded once for all the notifications. Emails are sent by a pool of threads, other channels
+   * are not expected to be thread-safe and deliver the notifications on the calling thread.
+   */
+  public void deliver(Collection<Notification> notifications) {
+    deliver(notifications, false);
+  }
+
+  /**
+   * @return the number of delivered notifications, which is lower than the number of given notifications if
+   * {@code stopIfStopping} is true and the service is stopping
+   */
+  private int deliver(Collection<Notification> notifications, boolean stopIfStopping) {
+    int count = 0;
+    List<Future<?>> deliveries = new ArrayList<>();
+    manager.startCachingSubscribers();
+    try {
+      for (Notification notification : notifications) {
+        if (stopIfStopping && stopping) {
+          break;
+        }
+        dispatch(notification, findRecipients(notification), deliveries);
+        count++;
+      }
+    } finally {
+      manager.stopCachingSubscribers();
+      waitFor(deliveries);
+    }
+    return count;
+  }
+
+  private SetMultimap<String, NotificationChannel> findRecipients(Notification notification) {
     final SetMultimap<String, NotificationChannel> recipients = HashMultimap.create();
     for (NotificationDispatcher dispatcher : dispatchers) {
       NotificationDispatcher.Context context = new NotificationDispatcher.Context() {
@@ -175,25 +239,69 @@ public class NotificationService implements Startable {
         LOG.warn("Unable to dispatch notification " + notification + " using " + dispatcher, e);
       }
     }
-    dispatch(notification, recipients);
+    return recipients;
   }
 
-  private void dispatch(Notification notification, SetMultimap<String, NotificationChannel> recipients) {
+  private void dispatch(Notification notification, SetMultimap<String, NotificationChannel> recipients, List<Future<?>> deliveries) {
     for (Map.Entry<String, Collection<NotificationChannel>> entry : recipients.asMap().entrySet()) {
       String username = entry.getKey();
       Collection<NotificationChannel> userChannels = entry.getValue();
       LOG.debug("For user {} via {}", username, userChannels);
       for (NotificationChannel channel : userChannels) {
-        try {
-          channel.deliver(notification, username);
-        } catch (Exception e) {
-          // catch all exceptions in order to deliver via other channels
-          LOG.warn("Unable to deliver notification " + notification + " for user " + username + " via " + channel, e);
+        Delivery delivery = new Delivery(notification, username, channel);
+        if (channel instanceof EmailNotificationChannel) {
+          submit(delivery, deliveries);
+        } else {
+          delivery.run();
         }
       }
     }
   }
 
+  private void submit(Delivery delivery, List<Future<?>> deliveries) {
+    try {
+      deliveries.add(deliveryExecutorService.submit(delivery));
+    } catch (RejectedExecutionException e) {
+      // service is stopped
+      delivery.run();
+    }
+  }
+
+  private static void waitFor(List<Future<?>> deliveries) {
+    for (Future<?> delivery : deliveries) {
+      try {
+        delivery.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      } catch (ExecutionException e) {
+        LOG.warn("Unable to deliver notification", e.getCause());
+      }
+    }
+  }
+
+  private static class Delivery implements Runnable {
+    private final Notification notification;
+    private final String username;
+    private final NotificationChannel channel;
+
+    private Delivery(Notification notification, String username, NotificationChannel channel) {
+      this.notification = notification;
+      this.username = username;
+      this.channel = channel;
+    }
+
+    @Override
+    public void run() {
+      try {
+        channel.deliver(notification, username);
+      } catch (Exception e) {
+        // catch all exceptions in order to deliver via other channels
+        LOG.warn("Unable to deliver notification " + notification + " for user " + username + " via " + channel, e);
+      }
+    }
+  }
+
   @VisibleForTesting
   protected List<NotificationDispatcher> getDispatchers() {
     return dispatchers;
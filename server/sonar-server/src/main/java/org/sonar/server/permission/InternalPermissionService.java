@@ -38,6 +38,7 @@ import org.sonar.server.db.DbClient;
 import org.sonar.server.exceptions.BadRequestException;
 import org.sonar.server.exceptions.ForbiddenException;
 import org.sonar.server.issue.index.IssueAuthorizationIndexer;
+import org.sonar.server.user.AuthorizationCache;
 import org.sonar.server.user.UserSession;
 
 /**
@@ -58,14 +59,16 @@ public class InternalPermissionService {
   private final PermissionFacade permissionFacade;
   private final PermissionFinder finder;
   private final IssueAuthorizationIndexer issueAuthorizationIndexer;
+  private final AuthorizationCache authorizationCache;
   private final UserSession userSession;
 
   public InternalPermissionService(DbClient dbClient, PermissionFacade permissionFacade, PermissionFinder finder,
-    IssueAuthorizationIndexer issueAuthorizationIndexer, UserSession userSession) {
+    IssueAuthorizationIndexer issueAuthorizationIndexer, AuthorizationCache authorizationCache, UserSession userSession) {
     this.dbClient = dbClient;
     this.permissionFacade = permissionFacade;
     this.finder = finder;
     this.issueAuthorizationIndexer = issueAuthorizationIndexer;
+    this.authorizationCache = authorizationCache;
     this.userSession = userSession;
   }
 
@@ -277,6 +280,7 @@ public class InternalPermissionService {
   }
 
   private void indexProjectPermissions() {
+    authorizationCache.invalidate();
     issueAuthorizationIndexer.index();
   }
 }
@@ -163,7 +163,11 @@ import org.sonar.server.language.ws.LanguageWs;
 import org.sonar.server.measure.MeasureFilterEngine;
 import org.sonar.server.measure.MeasureFilterExecutor;
 import org.sonar.server.measure.MeasureFilterFactory;
+import org.sonar.server.measure.MeasureFilterIndexExecutor;
 import org.sonar.server.measure.custom.ws.CustomMeasuresWsModule;
+import org.sonar.server.measure.index.ProjectMeasuresIndex;
+import org.sonar.server.measure.index.ProjectMeasuresIndexDefinition;
+import org.sonar.server.measure.index.ProjectMeasuresIndexer;
 import org.sonar.server.measure.template.MyFavouritesFilter;
 import org.sonar.server.measure.template.ProjectFilter;
 import org.sonar.server.measure.ws.ManualMeasuresWs;
@@ -274,6 +278,7 @@ import org.sonar.server.rule.ws.RuleMapping;
 import org.sonar.server.rule.ws.RulesWs;
 import org.sonar.server.rule.ws.TagsAction;
 import org.sonar.server.source.HtmlSourceDecorator;
+import org.sonar.server.source.SourceLineRepository;
 import org.sonar.server.source.SourceService;
 import org.sonar.server.source.index.SourceLineIndex;
 import org.sonar.server.source.index.SourceLineIndexDefinition;
@@ -299,6 +304,7 @@ import org.sonar.server.ui.ws.GlobalNavigationAction;
 import org.sonar.server.ui.ws.NavigationWs;
 import org.sonar.server.ui.ws.SettingsNavigationAction;
 import org.sonar.server.updatecenter.ws.UpdateCenterWs;
+import org.sonar.server.user.AuthorizationCache;
 import org.sonar.server.user.DefaultUserService;
 import org.sonar.server.user.GroupMembershipFinder;
 import org.sonar.server.user.GroupMembershipService;
@@ -488,7 +494,11 @@ public class PlatformLevel4 extends PlatformLevel {
       // measure
       MeasureFilterFactory.class,
       MeasureFilterExecutor.class,
+      MeasureFilterIndexExecutor.class,
       MeasureFilterEngine.class,
+      ProjectMeasuresIndexDefinition.class,
+      ProjectMeasuresIndex.class,
+      ProjectMeasuresIndexer.class,
       ManualMeasuresWs.class,
       MetricsWsModule.class,
       CustomMeasuresWsModule.class,
@@ -562,6 +572,7 @@ public class PlatformLevel4 extends PlatformLevel {
 
       // permissions
       PermissionFacade.class,
+      AuthorizationCache.class,
       InternalPermissionService.class,
       InternalPermissionTemplateService.class,
       PermissionFinder.class,
@@ -663,6 +674,7 @@ public class PlatformLevel4 extends PlatformLevel {
       // source
       HtmlSourceDecorator.class,
       SourceService.class,
+      SourceLineRepository.class,
       SourcesWs.class,
       org.sonar.server.source.ws.ShowAction.class,
       LinesAction.class,
@@ -79,21 +79,34 @@ public class RuleActivator {
   }
 
   public List<ActiveRuleChange> activate(DbSession dbSession, RuleActivation activation, String profileKey) {
-    RuleActivatorContext context = contextFactory.create(profileKey, activation.getRuleKey(), dbSession);
-    return doActivate(dbSession, activation, context);
+    RuleActivatorCache cache = contextFactory.createCache(dbSession);
+    List<ActiveRuleChange> changes = activate(dbSession, activation, profileKey, cache);
+    flush(dbSession, cache);
+    return changes;
   }
 
   public List<ActiveRuleChange> activate(DbSession dbSession, RuleActivation activation, QProfileName profileName) {
-    RuleActivatorContext context = contextFactory.create(profileName, activation.getRuleKey(), dbSession);
-    return doActivate(dbSession, activation, context);
+    QualityProfileDto profile = db.qualityProfileDao().getByNameAndLanguage(profileName.getName(), profileName.getLanguage(), dbSession);
+    if (profile == null) {
+      throw new BadRequestException("Quality profile not found: " + profileName);
+    }
+    return activate(dbSession, activation, profile);
   }
 
   List<ActiveRuleChange> activate(DbSession dbSession, RuleActivation activation, QualityProfileDto profileDto) {
-    RuleActivatorContext context = contextFactory.create(profileDto, activation.getRuleKey(), dbSession);
-    return doActivate(dbSession, activation, context);
+    RuleActivatorCache cache = contextFactory.createCache(dbSession);
+    cache.putProfile(profileDto);
+    List<ActiveRuleChange> changes = activate(dbSession, activation, profileDto.getKey(), cache);
+    flush(dbSession, cache);
+    return changes;
+  }
+
+  private List<ActiveRuleChange> activate(DbSession dbSession, RuleActivation activation, String profileKey, RuleActivatorCache cache) {
+    RuleActivatorContext context = contextFactory.create(profileKey, activation.getRuleKey(), cache);
+    return doActivate(dbSession, activation, context, cache);
   }
 
-  private List<ActiveRuleChange> doActivate(DbSession dbSession, RuleActivation activation, RuleActivatorContext context) {
+  private List<ActiveRuleChange> doActivate(DbSession dbSession, RuleActivation activation, RuleActivatorContext context, RuleActivatorCache cache) {
     context.verifyForActivation();
     List<ActiveRuleChange> changes = Lists.newArrayList();
     ActiveRuleChange change;
@@ -138,22 +151,34 @@ public class RuleActivator {
 
     if (change != null) {
       changes.add(change);
-      persist(change, context, dbSession);
+      persist(change, context, dbSession, cache);
     }
 
     if (!stopPropagation) {
-      changes.addAll(cascadeActivation(dbSession, activation, context.profile().getKey()));
+      changes.addAll(cascadeActivation(dbSession, activation, context.profile().getKey(), cache));
     }
 
     if (!changes.isEmpty()) {
-      updateProfileDate(dbSession, context);
+      updateProfileDate(context, cache);
     }
     return changes;
   }
 
-  private void updateProfileDate(DbSession dbSession, RuleActivatorContext context) {
+  private static void updateProfileDate(RuleActivatorContext context, RuleActivatorCache cache) {
     context.profile().setRulesUpdatedAtAsDate(context.getInitDate());
-    db.qualityProfileDao().update(dbSession, context.profile());
+    cache.markAsUpdated(context.profile());
+  }
+
+  /**
+   * Persists the profiles and the activities collected in cache. Each profile is updated only once
+   * and activities are indexed at once, whatever the number of changes.
+   */
+  private void flush(DbSession dbSession, RuleActivatorCache cache) {
+    for (QualityProfileDto profile : cache.updatedProfiles()) {
+      db.qualityProfileDao().update(dbSession, profile);
+    }
+    activityService.save(cache.activities());
+    cache.clearUpdates();
   }
 
   /**
@@ -219,19 +244,19 @@ public class RuleActivator {
     return null;
   }
 
-  private List<ActiveRuleChange> cascadeActivation(DbSession session, RuleActivation activation, String profileKey) {
+  private List<ActiveRuleChange> cascadeActivation(DbSession session, RuleActivation activation, String profileKey, RuleActivatorCache cache) {
     List<ActiveRuleChange> changes = Lists.newArrayList();
 
     // get all inherited profiles
-    List<QualityProfileDto> children = db.qualityProfileDao().findChildren(session, profileKey);
+    List<QualityProfileDto> children = cache.children(profileKey);
     for (QualityProfileDto child : children) {
       RuleActivation childActivation = new RuleActivation(activation).setCascade(true);
-      changes.addAll(activate(session, childActivation, child.getKey()));
+      changes.addAll(activate(session, childActivation, child.getKey(), cache));
     }
     return changes;
   }
 
-  private ActiveRuleDto persist(ActiveRuleChange change, RuleActivatorContext context, DbSession dbSession) {
+  private ActiveRuleDto persist(ActiveRuleChange change, RuleActivatorContext context, DbSession dbSession, RuleActivatorCache cache) {
     ActiveRuleDto activeRule = null;
     if (change.getType() == ActiveRuleChange.Type.ACTIVATED) {
       activeRule = doInsert(change, context, dbSession);
@@ -239,11 +264,15 @@ public class RuleActivator {
     } else if (change.getType() == ActiveRuleChange.Type.DEACTIVATED) {
       ActiveRuleDao dao = db.activeRuleDao();
       dao.deleteByKey(dbSession, change.getKey());
+      cache.removeActiveRule(change.getKey());
 
     } else if (change.getType() == ActiveRuleChange.Type.UPDATED) {
       activeRule = doUpdate(change, context, dbSession);
     }
-    activityService.save(change.toActivity());
+    if (activeRule != null) {
+      cache.putActiveRule(activeRule, context.activeRuleParamsAsMap().values());
+    }
+    cache.addActivity(change.toActivity());
     return activeRule;
   }
 
@@ -265,6 +294,7 @@ public class RuleActivator {
         ActiveRuleParamDto paramDto = ActiveRuleParamDto.createFor(context.ruleParamsByKeys().get(param.getKey()));
         paramDto.setValue(param.getValue());
         dao.addParam(dbSession, activeRule, paramDto);
+        context.activeRuleParamsAsMap().put(paramDto.getKey(), paramDto);
       }
     }
     return activeRule;
@@ -292,6 +322,7 @@ public class RuleActivator {
             activeRuleParamDto = ActiveRuleParamDto.createFor(context.ruleParamsByKeys().get(param.getKey()));
             activeRuleParamDto.setValue(param.getValue());
             dao.addParam(dbSession, activeRule, activeRuleParamDto);
+            context.activeRuleParamsAsMap().put(activeRuleParamDto.getKey(), activeRuleParamDto);
           }
         } else {
           if (param.getValue() != null) {
@@ -299,6 +330,7 @@ public class RuleActivator {
             dao.updateParam(dbSession, activeRule, activeRuleParamDto);
           } else {
             dao.deleteParam(dbSession, activeRule, activeRuleParamDto);
+            context.activeRuleParamsAsMap().remove(param.getKey());
           }
         }
       }
@@ -332,11 +364,13 @@ public class RuleActivator {
    * Deactivate a rule on a Quality profile WITHOUT committing db session, WITHOUT checking permissions, and forcing removal of inherited rules
    */
   public List<ActiveRuleChange> deactivate(DbSession dbSession, RuleDto ruleDto) {
+    RuleActivatorCache cache = contextFactory.createCache(dbSession);
     List<ActiveRuleChange> changes = Lists.newArrayList();
     List<ActiveRuleDto> activeRules = db.activeRuleDao().findByRule(dbSession, ruleDto);
     for (ActiveRuleDto activeRule : activeRules) {
-      changes.addAll(deactivate(dbSession, activeRule.getKey(), true));
+      changes.addAll(cascadeDeactivation(activeRule.getKey(), dbSession, false, true, cache));
     }
+    flush(dbSession, cache);
     return changes;
   }
 
@@ -344,12 +378,15 @@ public class RuleActivator {
    * @param force if true then inherited rules are deactivated
    */
   public List<ActiveRuleChange> deactivate(DbSession dbSession, ActiveRuleKey key, boolean force) {
-    return cascadeDeactivation(key, dbSession, false, force);
+    RuleActivatorCache cache = contextFactory.createCache(dbSession);
+    List<ActiveRuleChange> changes = cascadeDeactivation(key, dbSession, false, force, cache);
+    flush(dbSession, cache);
+    return changes;
   }
 
-  private List<ActiveRuleChange> cascadeDeactivation(ActiveRuleKey key, DbSession dbSession, boolean isCascade, boolean force) {
+  private List<ActiveRuleChange> cascadeDeactivation(ActiveRuleKey key, DbSession dbSession, boolean isCascade, boolean force, RuleActivatorCache cache) {
     List<ActiveRuleChange> changes = Lists.newArrayList();
-    RuleActivatorContext context = contextFactory.create(key.qProfile(), key.ruleKey(), dbSession);
+    RuleActivatorContext context = contextFactory.create(key.qProfile(), key.ruleKey(), cache);
     ActiveRuleChange change;
     ActiveRuleDto activeRuleDto = context.activeRule();
     if (activeRuleDto == null) {
@@ -360,18 +397,18 @@ public class RuleActivator {
     }
     change = ActiveRuleChange.createFor(ActiveRuleChange.Type.DEACTIVATED, key);
     changes.add(change);
-    persist(change, context, dbSession);
+    persist(change, context, dbSession, cache);
 
     // get all inherited profiles
-    List<QualityProfileDto> profiles = db.qualityProfileDao().findChildren(dbSession, key.qProfile());
+    List<QualityProfileDto> profiles = cache.children(key.qProfile());
 
     for (QualityProfileDto profile : profiles) {
       ActiveRuleKey activeRuleKey = ActiveRuleKey.of(profile.getKey(), key.ruleKey());
-      changes.addAll(cascadeDeactivation(activeRuleKey, dbSession, true, force));
+      changes.addAll(cascadeDeactivation(activeRuleKey, dbSession, true, force, cache));
     }
 
     if (!changes.isEmpty()) {
-      updateProfileDate(dbSession, context);
+      updateProfileDate(context, cache);
     }
 
     return changes;
@@ -396,6 +433,7 @@ public class RuleActivator {
     RuleIndex ruleIndex = index.get(RuleIndex.class);
     DbSession dbSession = db.openSession(false);
     try {
+      RuleActivatorCache cache = contextFactory.createBulkCache(dbSession);
       Result<Rule> ruleSearchResult = ruleIndex.search(ruleQuery, new QueryContext(userSession).setScroll(true)
         .setFieldsToReturn(Arrays.asList(RuleNormalizer.RuleField.KEY.field())));
       Iterator<Rule> rules = ruleSearchResult.scroll();
@@ -404,7 +442,7 @@ public class RuleActivator {
         try {
           RuleActivation activation = new RuleActivation(rule.key());
           activation.setSeverity(severity);
-          List<ActiveRuleChange> changes = activate(dbSession, activation, profileKey);
+          List<ActiveRuleChange> changes = activate(dbSession, activation, profileKey, cache);
           result.addChanges(changes);
           if (!changes.isEmpty()) {
             result.incrementSucceeded();
@@ -416,6 +454,7 @@ public class RuleActivator {
           result.getErrors().add(e.errors());
         }
       }
+      flush(dbSession, cache);
       dbSession.commit();
     } finally {
       dbSession.close();
@@ -427,6 +466,7 @@ public class RuleActivator {
     DbSession dbSession = db.openSession(false);
     try {
       RuleIndex ruleIndex = index.get(RuleIndex.class);
+      RuleActivatorCache cache = contextFactory.createBulkCache(dbSession);
       BulkChangeResult result = new BulkChangeResult();
       Result<Rule> ruleSearchResult = ruleIndex.search(ruleQuery, new QueryContext(userSession).setScroll(true)
         .setFieldsToReturn(Arrays.asList(RuleNormalizer.RuleField.KEY.field())));
@@ -435,7 +475,7 @@ public class RuleActivator {
         try {
           Rule rule = rules.next();
           ActiveRuleKey key = ActiveRuleKey.of(profile, rule.key());
-          List<ActiveRuleChange> changes = deactivate(dbSession, key);
+          List<ActiveRuleChange> changes = cascadeDeactivation(key, dbSession, false, false, cache);
           result.addChanges(changes);
           if (!changes.isEmpty()) {
             result.incrementSucceeded();
@@ -446,6 +486,7 @@ public class RuleActivator {
           result.getErrors().add(e.errors());
         }
       }
+      flush(dbSession, cache);
       dbSession.commit();
       return result;
     } finally {
@@ -465,43 +506,51 @@ public class RuleActivator {
   }
 
   void setParent(DbSession dbSession, String profileKey, @Nullable String parentKey) {
-    QualityProfileDto profile = db.qualityProfileDao().getNonNullByKey(dbSession, profileKey);
+    RuleActivatorCache cache = contextFactory.createBulkCache(dbSession);
+    QualityProfileDto profile = cache.profile(profileKey);
+    if (profile == null) {
+      throw new IllegalArgumentException("Quality profile not found: " + profileKey);
+    }
     if (parentKey == null) {
       // unset if parent is defined, else nothing to do
-      removeParent(dbSession, profile);
+      removeParent(dbSession, profile, cache);
 
     } else if (profile.getParentKee() == null || !parentKey.equals(profile.getParentKee())) {
-      QualityProfileDto parentProfile = db.qualityProfileDao().getNonNullByKey(dbSession, parentKey);
+      QualityProfileDto parentProfile = cache.profile(parentKey);
+      if (parentProfile == null) {
+        throw new IllegalArgumentException("Quality profile not found: " + parentKey);
+      }
       if (isDescendant(dbSession, profile, parentProfile)) {
         throw new BadRequestException(String.format("Descendant profile '%s' can not be selected as parent of '%s'", parentKey, profileKey));
       }
-      removeParent(dbSession, profile);
+      removeParent(dbSession, profile, cache);
 
       // set new parent
       profile.setParentKee(parentKey);
       db.qualityProfileDao().update(dbSession, profile);
-      for (ActiveRuleDto parentActiveRule : db.activeRuleDao().findByProfileKey(dbSession, parentKey)) {
+      for (ActiveRuleDto parentActiveRule : cache.activeRules(parentKey)) {
         try {
           RuleActivation activation = new RuleActivation(parentActiveRule.getKey().ruleKey());
-          activate(dbSession, activation, profileKey);
+          activate(dbSession, activation, profileKey, cache);
         } catch (BadRequestException e) {
           // for example because rule status is REMOVED
           // TODO return errors
         }
       }
     }
+    flush(dbSession, cache);
   }
 
   /**
    * Does not commit
    */
-  private void removeParent(DbSession dbSession, QualityProfileDto profileDto) {
+  private void removeParent(DbSession dbSession, QualityProfileDto profileDto, RuleActivatorCache cache) {
     if (profileDto.getParentKee() != null) {
       profileDto.setParentKee(null);
       db.qualityProfileDao().update(dbSession, profileDto);
-      for (ActiveRuleDto activeRule : db.activeRuleDao().findByProfileKey(dbSession, profileDto.getKey())) {
+      for (ActiveRuleDto activeRule : cache.activeRules(profileDto.getKey())) {
         if (ActiveRuleDto.INHERITED.equals(activeRule.getInheritance())) {
-          deactivate(dbSession, activeRule.getKey(), true);
+          cascadeDeactivation(activeRule.getKey(), dbSession, false, true, cache);
         } else if (ActiveRuleDto.OVERRIDES.equals(activeRule.getInheritance())) {
           activeRule.setInheritance(null);
           db.activeRuleDao().update(dbSession, activeRule);
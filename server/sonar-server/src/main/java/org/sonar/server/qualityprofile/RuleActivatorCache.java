@@ -0,0 +1,229 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2014 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.qualityprofile;
+
+import com.google.common.collect.Lists;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.core.persistence.DbSession;
+import org.sonar.core.qualityprofile.db.ActiveRuleDto;
+import org.sonar.core.qualityprofile.db.ActiveRuleKey;
+import org.sonar.core.qualityprofile.db.ActiveRuleParamDto;
+import org.sonar.core.qualityprofile.db.QualityProfileDto;
+import org.sonar.core.rule.RuleDto;
+import org.sonar.core.rule.RuleParamDto;
+import org.sonar.server.activity.Activity;
+import org.sonar.server.db.DbClient;
+
+import javax.annotation.CheckForNull;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.google.common.collect.Lists.newArrayList;
+
+/**
+ * Profiles, rules and active rules read by {@link RuleActivator} during a change, including the cascade
+ * to children profiles. Each of them is read from db only once, and the cache is kept up-to-date with
+ * the changes persisted by the activator. Profile dates and activity logs are collected until
+ * {@link RuleActivator} flushes them at the end of the change.
+ * <p/>
+ * On bulk changes, all the profiles are loaded at once and the active rules of a profile are loaded
+ * in a single request on first access. On single changes, only the requested keys are loaded.
+ */
+class RuleActivatorCache {
+
+  private final DbClient db;
+  private final DbSession session;
+  private final boolean bulk;
+
+  private final Map<String, QualityProfileDto> profilesByKey = new LinkedHashMap<>();
+  private final Map<String, List<QualityProfileDto>> childrenByParentKey = new HashMap<>();
+  private final Map<RuleKey, RuleDto> rulesByKey = new HashMap<>();
+  private final Map<RuleKey, List<RuleParamDto>> ruleParamsByRuleKey = new HashMap<>();
+  private final Set<String> loadedProfileKeys = new HashSet<>();
+  private final Map<ActiveRuleKey, ActiveRuleDto> activeRulesByKey = new HashMap<>();
+  private final Map<ActiveRuleKey, Collection<ActiveRuleParamDto>> activeRuleParamsByKey = new HashMap<>();
+
+  private final Map<String, QualityProfileDto> updatedProfiles = new LinkedHashMap<>();
+  private final List<Activity> activities = newArrayList();
+
+  private RuleActivatorCache(DbClient db, DbSession session, boolean bulk) {
+    this.db = db;
+    this.session = session;
+    this.bulk = bulk;
+  }
+
+  static RuleActivatorCache forSingleChange(DbClient db, DbSession session) {
+    return new RuleActivatorCache(db, session, false);
+  }
+
+  static RuleActivatorCache forBulkChange(DbClient db, DbSession session) {
+    RuleActivatorCache cache = new RuleActivatorCache(db, session, true);
+    for (QualityProfileDto profile : db.qualityProfileDao().findAll(session)) {
+      cache.profilesByKey.put(profile.getKey(), profile);
+    }
+    return cache;
+  }
+
+  /**
+   * Replaces the cached profile, for example when caller already loaded it.
+   */
+  void putProfile(QualityProfileDto profile) {
+    profilesByKey.put(profile.getKey(), profile);
+  }
+
+  @CheckForNull
+  QualityProfileDto profile(String profileKey) {
+    if (!bulk && !profilesByKey.containsKey(profileKey)) {
+      profilesByKey.put(profileKey, db.qualityProfileDao().getByKey(session, profileKey));
+    }
+    return profilesByKey.get(profileKey);
+  }
+
+  List<QualityProfileDto> children(String profileKey) {
+    if (bulk) {
+      // computed from the cached profiles, as parents may be changed during the bulk change
+      List<QualityProfileDto> children = newArrayList();
+      for (QualityProfileDto profile : profilesByKey.values()) {
+        if (profileKey.equals(profile.getParentKee())) {
+          children.add(profile);
+        }
+      }
+      return children;
+    }
+    List<QualityProfileDto> children = childrenByParentKey.get(profileKey);
+    if (children == null) {
+      children = db.qualityProfileDao().findChildren(session, profileKey);
+      childrenByParentKey.put(profileKey, children);
+    }
+    return children;
+  }
+
+  @CheckForNull
+  RuleDto rule(RuleKey ruleKey) {
+    if (!rulesByKey.containsKey(ruleKey)) {
+      RuleDto rule = db.ruleDao().getNullableByKey(session, ruleKey);
+      rulesByKey.put(ruleKey, rule);
+      if (rule != null) {
+        ruleParamsByRuleKey.put(ruleKey, db.ruleDao().findRuleParamsByRuleKey(session, ruleKey));
+      }
+    }
+    return rulesByKey.get(ruleKey);
+  }
+
+  Collection<RuleParamDto> ruleParams(RuleKey ruleKey) {
+    List<RuleParamDto> params = ruleParamsByRuleKey.get(ruleKey);
+    return params != null ? params : Collections.<RuleParamDto>emptyList();
+  }
+
+  @CheckForNull
+  ActiveRuleDto activeRule(ActiveRuleKey key) {
+    load(key);
+    return activeRulesByKey.get(key);
+  }
+
+  Collection<ActiveRuleParamDto> activeRuleParams(ActiveRuleKey key) {
+    load(key);
+    Collection<ActiveRuleParamDto> params = activeRuleParamsByKey.get(key);
+    return params != null ? params : Collections.<ActiveRuleParamDto>emptyList();
+  }
+
+  /**
+   * Active rules of a profile. Loaded from db when not already in cache.
+   */
+  Collection<ActiveRuleDto> activeRules(String profileKey) {
+    loadProfile(profileKey);
+    List<ActiveRuleDto> result = newArrayList();
+    for (ActiveRuleDto activeRule : activeRulesByKey.values()) {
+      if (activeRule != null && profileKey.equals(activeRule.getKey().qProfile())) {
+        result.add(activeRule);
+      }
+    }
+    return result;
+  }
+
+  void putActiveRule(ActiveRuleDto activeRule, Collection<ActiveRuleParamDto> params) {
+    activeRulesByKey.put(activeRule.getKey(), activeRule);
+    activeRuleParamsByKey.put(activeRule.getKey(), newArrayList(params));
+  }
+
+  void removeActiveRule(ActiveRuleKey key) {
+    activeRulesByKey.put(key, null);
+    activeRuleParamsByKey.remove(key);
+  }
+
+  void markAsUpdated(QualityProfileDto profile) {
+    updatedProfiles.put(profile.getKey(), profile);
+  }
+
+  Collection<QualityProfileDto> updatedProfiles() {
+    return updatedProfiles.values();
+  }
+
+  void addActivity(Activity activity) {
+    activities.add(activity);
+  }
+
+  List<Activity> activities() {
+    return activities;
+  }
+
+  void clearUpdates() {
+    updatedProfiles.clear();
+    activities.clear();
+  }
+
+  private void load(ActiveRuleKey key) {
+    if (bulk) {
+      loadProfile(key.qProfile());
+    } else if (!activeRulesByKey.containsKey(key)) {
+      ActiveRuleDto activeRule = db.activeRuleDao().getNullableByKey(session, key);
+      activeRulesByKey.put(key, activeRule);
+      if (activeRule != null) {
+        activeRuleParamsByKey.put(key, db.activeRuleDao().findParamsByActiveRuleKey(session, key));
+      }
+    }
+  }
+
+  private void loadProfile(String profileKey) {
+    if (loadedProfileKeys.add(profileKey)) {
+      Map<Integer, ActiveRuleKey> keysById = new HashMap<>();
+      for (ActiveRuleDto activeRule : db.activeRuleDao().findByProfileKey(session, profileKey)) {
+        if (!activeRulesByKey.containsKey(activeRule.getKey())) {
+          activeRulesByKey.put(activeRule.getKey(), activeRule);
+          activeRuleParamsByKey.put(activeRule.getKey(), Lists.<ActiveRuleParamDto>newArrayList());
+          keysById.put(activeRule.getId(), activeRule.getKey());
+        }
+      }
+      for (ActiveRuleParamDto param : db.activeRuleDao().findParamsByProfileKey(session, profileKey)) {
+        ActiveRuleKey key = keysById.get(param.getActiveRuleId());
+        if (key != null) {
+          activeRuleParamsByKey.get(key).add(param);
+        }
+      }
+    }
+  }
+}
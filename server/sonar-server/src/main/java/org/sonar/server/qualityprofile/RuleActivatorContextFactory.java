@@ -41,56 +41,48 @@ public class RuleActivatorContextFactory {
     this.db = db;
   }
 
-  RuleActivatorContext create(String profileKey, RuleKey ruleKey, DbSession session) {
-    RuleActivatorContext context = new RuleActivatorContext();
-    QualityProfileDto profile = db.qualityProfileDao().getByKey(session, profileKey);
-    if (profile == null) {
-      throw new BadRequestException("Quality profile not found: " + profileKey);
-    }
-    context.setProfile(profile);
-    return create(ruleKey, session, context);
-  }
-
-  RuleActivatorContext create(QProfileName profileName, RuleKey ruleKey, DbSession session) {
-    RuleActivatorContext context = new RuleActivatorContext();
-    QualityProfileDto profile = db.qualityProfileDao().getByNameAndLanguage(profileName.getName(), profileName.getLanguage(), session);
-    if (profile == null) {
-      throw new BadRequestException("Quality profile not found: " + profileName);
-    }
-    context.setProfile(profile);
-    return create(ruleKey, session, context);
+  RuleActivatorCache createCache(DbSession session) {
+    return RuleActivatorCache.forSingleChange(db, session);
   }
 
-  RuleActivatorContext create(QualityProfileDto profile, RuleKey ruleKey, DbSession session) {
-    return create(ruleKey, session, new RuleActivatorContext().setProfile(profile));
+  /**
+   * Cache to be used when activating or deactivating many rules, for example when changing the parent
+   * of a profile.
+   */
+  RuleActivatorCache createBulkCache(DbSession session) {
+    return RuleActivatorCache.forBulkChange(db, session);
   }
 
-  private RuleActivatorContext create(RuleKey ruleKey, DbSession session, RuleActivatorContext context) {
-    initRule(ruleKey, context, session);
-    initActiveRules(context.profile().getKey(), ruleKey, context, session, false);
-    String parentKee = context.profile().getParentKee();
+  RuleActivatorContext create(String profileKey, RuleKey ruleKey, RuleActivatorCache cache) {
+    QualityProfileDto profile = cache.profile(profileKey);
+    if (profile == null) {
+      throw new BadRequestException("Quality profile not found: " + profileKey);
+    }
+    RuleActivatorContext context = new RuleActivatorContext().setProfile(profile);
+    initRule(ruleKey, context, cache);
+    initActiveRules(profile.getKey(), ruleKey, context, cache, false);
+    String parentKee = profile.getParentKee();
     if (parentKee != null) {
-      initActiveRules(parentKee, ruleKey, context, session, true);
+      initActiveRules(parentKee, ruleKey, context, cache, true);
     }
     return context;
   }
 
-  private RuleDto initRule(RuleKey ruleKey, RuleActivatorContext context, DbSession dbSession) {
-    RuleDto rule = db.ruleDao().getNullableByKey(dbSession, ruleKey);
+  private static void initRule(RuleKey ruleKey, RuleActivatorContext context, RuleActivatorCache cache) {
+    RuleDto rule = cache.rule(ruleKey);
     if (rule == null) {
       throw new BadRequestException("Rule not found: " + ruleKey);
     }
     context.setRule(rule);
-    context.setRuleParams(db.ruleDao().findRuleParamsByRuleKey(dbSession, rule.getKey()));
-    return rule;
+    context.setRuleParams(cache.ruleParams(ruleKey));
   }
 
-  private void initActiveRules(String profileKey, RuleKey ruleKey, RuleActivatorContext context, DbSession session, boolean parent) {
+  private static void initActiveRules(String profileKey, RuleKey ruleKey, RuleActivatorContext context, RuleActivatorCache cache, boolean parent) {
     ActiveRuleKey key = ActiveRuleKey.of(profileKey, ruleKey);
-    ActiveRuleDto activeRule = db.activeRuleDao().getNullableByKey(session, key);
+    ActiveRuleDto activeRule = cache.activeRule(key);
     Collection<ActiveRuleParamDto> activeRuleParams = null;
     if (activeRule != null) {
-      activeRuleParams = db.activeRuleDao().findParamsByActiveRuleKey(session, key);
+      activeRuleParams = cache.activeRuleParams(key);
     }
     if (parent) {
       context.setParentActiveRule(activeRule);
@@ -123,6 +123,13 @@ public class ActiveRuleDao extends BaseDao<ActiveRuleMapper, ActiveRuleDto, Acti
     return mapper(dbSession).selectAll();
   }
 
+  /**
+   * Same as {@link #findAll(DbSession)} but the returned rows provide their {@link ActiveRuleDto#getKey()}
+   */
+  public List<ActiveRuleDto> findAllWithKeys(DbSession dbSession) {
+    return mapper(dbSession).selectAllWithKeys();
+  }
+
   public List<ActiveRuleParamDto> findAllParams(DbSession dbSession) {
     return mapper(dbSession).selectAllParams();
   }
@@ -188,6 +195,10 @@ public class ActiveRuleDao extends BaseDao<ActiveRuleMapper, ActiveRuleDto, Acti
     return mapper(session).selectParamsByActiveRuleId(activeRule.getId());
   }
 
+  public List<ActiveRuleParamDto> findParamsByProfileKey(DbSession session, String profileKey) {
+    return mapper(session).selectParamsByProfileKey(profileKey);
+  }
+
   @CheckForNull
   public ActiveRuleParamDto getParamByKeyAndName(ActiveRuleKey key, String name, DbSession session) {
     Preconditions.checkNotNull(key, ACTIVE_RULE_KEY_CANNOT_BE_NULL);
@@ -20,17 +20,25 @@
 package org.sonar.server.rule;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Charsets;
 import com.google.common.base.Function;
+import com.google.common.base.Joiner;
+import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.Ordering;
 import com.google.common.collect.Sets;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeSet;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.apache.commons.lang.ObjectUtils;
@@ -45,6 +53,7 @@ import org.sonar.api.utils.MessageException;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.api.utils.log.Profiler;
+import org.sonar.core.persistence.DatabaseVersion;
 import org.sonar.core.persistence.DbSession;
 import org.sonar.core.qualityprofile.db.ActiveRuleDto;
 import org.sonar.core.qualityprofile.db.ActiveRuleParamDto;
@@ -53,6 +62,7 @@ import org.sonar.core.rule.RuleDto.Format;
 import org.sonar.core.rule.RuleParamDto;
 import org.sonar.core.technicaldebt.db.CharacteristicDao;
 import org.sonar.core.technicaldebt.db.CharacteristicDto;
+import org.sonar.core.template.LoadedTemplateDto;
 import org.sonar.server.db.DbClient;
 import org.sonar.server.qualityprofile.RuleActivator;
 import org.sonar.server.startup.RegisterDebtModel;
@@ -65,6 +75,13 @@ import static com.google.common.collect.Lists.newArrayList;
 public class RegisterRules implements Startable {
 
   private static final Logger LOG = Loggers.get(RegisterRules.class);
+  private static final Joiner HASH_JOINER = Joiner.on('\u0001').useForNull("\u0002");
+  private static final Ordering<RulesDefinition.Param> PARAM_ORDERING = Ordering.<String>natural().onResultOf(new Function<RulesDefinition.Param, String>() {
+    @Override
+    public String apply(RulesDefinition.Param input) {
+      return input.key();
+    }
+  });
 
   private final RuleDefinitionsLoader defLoader;
   private final RuleActivator ruleActivator;
@@ -94,20 +111,31 @@ public class RegisterRules implements Startable {
     Profiler profiler = Profiler.create(LOG).startInfo("Register rules");
     DbSession session = dbClient.openSession(false);
     try {
-      Map<RuleKey, RuleDto> allRules = loadRules(session);
       Map<String, CharacteristicDto> allCharacteristics = loadCharacteristics(session);
-
       RulesDefinition.Context context = defLoader.load();
-      for (RulesDefinition.ExtendedRepository repoDef : getRepositories(context)) {
+      List<RulesDefinition.ExtendedRepository> repositories = getRepositories(context);
+
+      String definitionsHash = computeDefinitionsHash(repositories, allCharacteristics.values());
+      if (dbClient.loadedTemplateDao().countByTypeAndKey(LoadedTemplateDto.RULES_DEFINITIONS_TYPE, definitionsHash, session) > 0) {
+        LOG.info("Rule definitions are unchanged since last startup");
+        profiler.stopDebug();
+        return;
+      }
+
+      DbRules dbRules = new DbRules(dbClient, session);
+      for (RulesDefinition.ExtendedRepository repoDef : repositories) {
         if (languages.get(repoDef.language()) != null) {
           for (RulesDefinition.Rule ruleDef : repoDef.rules()) {
-            registerRule(ruleDef, allRules, allCharacteristics, session);
+            registerRule(ruleDef, dbRules, allCharacteristics, session);
           }
           session.commit();
         }
       }
-      List<RuleDto> activeRules = processRemainingDbRules(allRules.values(), session);
+      List<RuleDto> activeRules = processRemainingDbRules(dbRules, session);
       removeActiveRulesOnStillExistingRepositories(session, activeRules, context);
+
+      dbClient.loadedTemplateDao().deleteByType(session, LoadedTemplateDto.RULES_DEFINITIONS_TYPE);
+      dbClient.loadedTemplateDao().insert(new LoadedTemplateDto(definitionsHash, LoadedTemplateDto.RULES_DEFINITIONS_TYPE), session);
       session.commit();
       profiler.stopDebug();
     } finally {
@@ -120,10 +148,10 @@ public class RegisterRules implements Startable {
     // nothing
   }
 
-  private void registerRule(RulesDefinition.Rule ruleDef, Map<RuleKey, RuleDto> allRules, Map<String, CharacteristicDto> allCharacteristics, DbSession session) {
+  private void registerRule(RulesDefinition.Rule ruleDef, DbRules dbRules, Map<String, CharacteristicDto> allCharacteristics, DbSession session) {
     RuleKey ruleKey = RuleKey.of(ruleDef.repository().key(), ruleDef.key());
 
-    RuleDto rule = allRules.containsKey(ruleKey) ? allRules.remove(ruleKey) : createRuleDto(ruleDef, session);
+    RuleDto rule = dbRules.remaining.containsKey(ruleKey) ? dbRules.remaining.remove(ruleKey) : createRuleDto(ruleDef, session);
 
     boolean executeUpdate = false;
     if (mergeRule(ruleDef, rule)) {
@@ -143,15 +171,7 @@ public class RegisterRules implements Startable {
       dbClient.ruleDao().update(session, rule);
     }
 
-    mergeParams(ruleDef, rule, session);
-  }
-
-  private Map<RuleKey, RuleDto> loadRules(DbSession session) {
-    Map<RuleKey, RuleDto> rules = new HashMap<>();
-    for (RuleDto rule : dbClient.ruleDao().findByNonManual(session)) {
-      rules.put(rule.getKey(), rule);
-    }
-    return rules;
+    mergeParams(ruleDef, rule, dbRules, session);
   }
 
   private Map<String, CharacteristicDto> loadCharacteristics(DbSession session) {
@@ -315,14 +335,13 @@ public class RegisterRules implements Startable {
     return changed;
   }
 
-  private void mergeParams(RulesDefinition.Rule ruleDef, RuleDto rule, DbSession session) {
-    List<RuleParamDto> paramDtos = dbClient.ruleDao().findRuleParamsByRuleKey(session, rule.getKey());
+  private void mergeParams(RulesDefinition.Rule ruleDef, RuleDto rule, DbRules dbRules, DbSession session) {
     Map<String, RuleParamDto> existingParamsByName = Maps.newHashMap();
 
-    for (RuleParamDto paramDto : paramDtos) {
+    for (RuleParamDto paramDto : dbRules.params(rule)) {
       RulesDefinition.Param paramDef = ruleDef.param(paramDto.getName());
       if (paramDef == null) {
-        dbClient.activeRuleDao().deleteParamsByRuleParam(session, rule, paramDto.getName());
+        removeActiveRuleParams(rule, paramDto.getName(), dbRules, session);
         dbClient.ruleDao().removeRuleParam(session, rule, paramDto);
       } else {
         if (mergeParam(paramDto, paramDef)) {
@@ -344,7 +363,7 @@ public class RegisterRules implements Startable {
         dbClient.ruleDao().addRuleParam(session, rule, paramDto);
         if (!StringUtils.isEmpty(param.defaultValue())) {
           // Propagate the default value to existing active rules
-          for (ActiveRuleDto activeRule : dbClient.activeRuleDao().findByRule(session, rule)) {
+          for (ActiveRuleDto activeRule : dbRules.activeRules(rule)) {
             ActiveRuleParamDto activeParam = ActiveRuleParamDto.createFor(paramDto).setValue(param.defaultValue());
             dbClient.activeRuleDao().addParam(session, activeRule, activeParam);
           }
@@ -353,6 +372,16 @@ public class RegisterRules implements Startable {
     }
   }
 
+  private void removeActiveRuleParams(RuleDto rule, String paramKey, DbRules dbRules, DbSession session) {
+    for (ActiveRuleDto activeRule : dbRules.activeRules(rule)) {
+      for (ActiveRuleParamDto activeParam : dbRules.activeRuleParams(activeRule)) {
+        if (activeParam.getKey().equals(paramKey)) {
+          dbClient.activeRuleDao().deleteParam(session, activeRule, activeParam);
+        }
+      }
+    }
+  }
+
   private boolean mergeParam(RuleParamDto paramDto, RulesDefinition.Param paramDef) {
     boolean changed = false;
     if (!StringUtils.equals(paramDto.getType(), paramDef.type().toString())) {
@@ -386,12 +415,12 @@ public class RegisterRules implements Startable {
     return changed;
   }
 
-  private List<RuleDto> processRemainingDbRules(Collection<RuleDto> existingRules, DbSession session) {
+  private List<RuleDto> processRemainingDbRules(DbRules dbRules, DbSession session) {
     // custom rules check status of template, so they must be processed at the end
     List<RuleDto> customRules = newArrayList();
     List<RuleDto> removedRules = newArrayList();
 
-    for (RuleDto rule : existingRules) {
+    for (RuleDto rule : dbRules.remaining.values()) {
       if (rule.getTemplateId() != null) {
         customRules.add(rule);
       } else if (rule.getStatus() != RuleStatus.REMOVED) {
@@ -400,7 +429,7 @@ public class RegisterRules implements Startable {
     }
 
     for (RuleDto customRule : customRules) {
-      RuleDto template = dbClient.ruleDao().getTemplate(customRule, session);
+      RuleDto template = dbRules.byId.get(customRule.getTemplateId());
       if (template != null && template.getStatus() != RuleStatus.REMOVED) {
         if (updateCustomRuleFromTemplateRule(customRule, template)) {
           dbClient.ruleDao().update(session, customRule);
@@ -494,4 +523,102 @@ public class RegisterRules implements Startable {
       }
     }
   }
+
+  /**
+   * Fingerprint of everything the registration depends on: rule definitions, installed languages,
+   * enabled characteristics and database version. Rules are not registered again as long as it does not change.
+   */
+  private String computeDefinitionsHash(List<RulesDefinition.ExtendedRepository> repositories, Collection<CharacteristicDto> characteristics) {
+    List<String> lines = newArrayList();
+    lines.add(String.valueOf(DatabaseVersion.LAST_VERSION));
+    for (RulesDefinition.ExtendedRepository repoDef : repositories) {
+      lines.add(HASH_JOINER.join("repository", repoDef.key(), repoDef.language(), languages.get(repoDef.language()) != null));
+      for (RulesDefinition.Rule ruleDef : repoDef.rules()) {
+        lines.add(definitionLine(ruleDef));
+      }
+    }
+    for (CharacteristicDto characteristic : characteristics) {
+      lines.add(HASH_JOINER.join("characteristic", characteristic.getKey(), characteristic.getId(), characteristic.getParentId()));
+    }
+    // definitions are provided by hash-based collections, so lines are sorted to get a stable hash
+    Collections.sort(lines);
+    Hasher hasher = Hashing.sha1().newHasher();
+    for (String line : lines) {
+      hasher.putString(line, Charsets.UTF_8).putChar('\n');
+    }
+    return hasher.hash().toString();
+  }
+
+  private static String definitionLine(RulesDefinition.Rule ruleDef) {
+    List<Object> fields = newArrayList();
+    Collections.addAll(fields, "rule", ruleDef.repository().key(), ruleDef.key(), ruleDef.name(), ruleDef.htmlDescription(), ruleDef.markdownDescription(),
+      ruleDef.severity(), ruleDef.template(), ruleDef.status(), ruleDef.internalKey(), new TreeSet<>(ruleDef.tags()), ruleDef.debtSubCharacteristic(),
+      ruleDef.effortToFixDescription());
+    DebtRemediationFunction function = ruleDef.debtRemediationFunction();
+    if (function != null) {
+      Collections.addAll(fields, function.type(), function.coefficient(), function.offset());
+    }
+    for (RulesDefinition.Param param : PARAM_ORDERING.sortedCopy(ruleDef.params())) {
+      Collections.addAll(fields, "param", param.key(), param.name(), param.description(), param.defaultValue(), param.type());
+    }
+    return HASH_JOINER.join(fields);
+  }
+
+  /**
+   * Snapshot of the rules, parameters and active rules stored in db, loaded once per registration
+   * instead of being requested rule per rule. Active rules are loaded only when a parameter change
+   * has to be propagated.
+   */
+  private static class DbRules {
+    private final DbClient dbClient;
+    private final DbSession session;
+    private final Map<RuleKey, RuleDto> remaining = new HashMap<>();
+    private final Map<Integer, RuleDto> byId = new HashMap<>();
+    private final Multimap<Integer, RuleParamDto> paramsByRuleId = ArrayListMultimap.create();
+    private Multimap<Integer, ActiveRuleDto> activeRulesByRuleId;
+    private Multimap<Integer, ActiveRuleParamDto> activeRuleParamsByActiveRuleId;
+
+    DbRules(DbClient dbClient, DbSession session) {
+      this.dbClient = dbClient;
+      this.session = session;
+      for (RuleDto rule : dbClient.ruleDao().findByNonManual(session)) {
+        remaining.put(rule.getKey(), rule);
+        byId.put(rule.getId(), rule);
+      }
+      for (RuleParamDto param : dbClient.ruleDao().findAllRuleParams(session)) {
+        paramsByRuleId.put(param.getRuleId(), param);
+      }
+    }
+
+    Collection<RuleParamDto> params(RuleDto rule) {
+      return paramsByRuleId.get(rule.getId());
+    }
+
+    Collection<ActiveRuleDto> activeRules(RuleDto rule) {
+      if (!byId.containsKey(rule.getId())) {
+        // rule has just been created
+        return Collections.emptyList();
+      }
+      loadActiveRules();
+      return activeRulesByRuleId.get(rule.getId());
+    }
+
+    Collection<ActiveRuleParamDto> activeRuleParams(ActiveRuleDto activeRule) {
+      loadActiveRules();
+      return activeRuleParamsByActiveRuleId.get(activeRule.getId());
+    }
+
+    private void loadActiveRules() {
+      if (activeRulesByRuleId == null) {
+        activeRulesByRuleId = ArrayListMultimap.create();
+        for (ActiveRuleDto activeRule : dbClient.activeRuleDao().findAllWithKeys(session)) {
+          activeRulesByRuleId.put(activeRule.getRuleId(), activeRule);
+        }
+        activeRuleParamsByActiveRuleId = ArrayListMultimap.create();
+        for (ActiveRuleParamDto activeRuleParam : dbClient.activeRuleDao().findAllParams(session)) {
+          activeRuleParamsByActiveRuleId.put(activeRuleParam.getActiveRuleId(), activeRuleParam);
+        }
+      }
+    }
+  }
 }
@@ -19,7 +19,18 @@
  */
 package org.sonar.server.search;
 
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.Uninterruptibles;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
 import org.sonar.api.config.Settings;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
@@ -27,17 +38,28 @@ import org.sonar.core.persistence.DbSession;
 import org.sonar.server.activity.index.ActivityIndexer;
 import org.sonar.server.db.Dao;
 import org.sonar.server.db.DbClient;
+import org.sonar.server.es.BaseIndexer;
 import org.sonar.server.issue.index.IssueAuthorizationIndexer;
 import org.sonar.server.issue.index.IssueIndexer;
+import org.sonar.server.measure.index.ProjectMeasuresIndexer;
 import org.sonar.server.qualityprofile.index.ActiveRuleIndex;
 import org.sonar.server.rule.index.RuleIndex;
 import org.sonar.server.source.index.SourceLineIndexer;
 import org.sonar.server.test.index.TestIndexer;
 import org.sonar.server.user.index.UserIndexer;
+import org.sonar.server.util.ProgressLogger;
 import org.sonar.server.view.index.ViewIndexer;
 
+/**
+ * Populates the Elasticsearch indices at server startup. Indices are independent, so they are synchronized
+ * concurrently. The maximum number of indices synchronized at the same time is defined by the property
+ * {@link #THREADS_PROPERTY}.
+ */
 public class IndexSynchronizer {
 
+  public static final String THREADS_PROPERTY = "sonar.search.synchronizer.threads";
+  public static final int DEFAULT_THREADS = 2;
+
   private static final Logger LOG = Loggers.get(IndexSynchronizer.class);
 
   private final DbClient db;
@@ -49,16 +71,18 @@ public class IndexSynchronizer {
   private final UserIndexer userIndexer;
   private final ViewIndexer viewIndexer;
   private final ActivityIndexer activityIndexer;
+  private final ProjectMeasuresIndexer projectMeasuresIndexer;
   private final Settings settings;
 
   /**
    * Limitation - {@link org.sonar.server.es.BaseIndexer} are not injected through an array or a collection
    * because we need {@link org.sonar.server.issue.index.IssueAuthorizationIndexer} to be executed before
-   * {@link org.sonar.server.issue.index.IssueIndexer}
+   * {@link org.sonar.server.issue.index.IssueIndexer}. Both are executed sequentially by the same thread.
    */
   public IndexSynchronizer(DbClient db, IndexClient index, SourceLineIndexer sourceLineIndexer,
     TestIndexer testIndexer, IssueAuthorizationIndexer issueAuthorizationIndexer, IssueIndexer issueIndexer,
-    UserIndexer userIndexer, ViewIndexer viewIndexer, ActivityIndexer activityIndexer, Settings settings) {
+    UserIndexer userIndexer, ViewIndexer viewIndexer, ActivityIndexer activityIndexer, ProjectMeasuresIndexer projectMeasuresIndexer,
+    Settings settings) {
     this.db = db;
     this.index = index;
     this.sourceLineIndexer = sourceLineIndexer;
@@ -68,6 +92,7 @@ public class IndexSynchronizer {
     this.userIndexer = userIndexer;
     this.viewIndexer = viewIndexer;
     this.activityIndexer = activityIndexer;
+    this.projectMeasuresIndexer = projectMeasuresIndexer;
     this.settings = settings;
   }
 
@@ -84,25 +109,49 @@ public class IndexSynchronizer {
 
   public void execute() {
     if (!settings.getBoolean("sonar.internal.es.disableIndexes")) {
-      LOG.info("Index activities");
-      activityIndexer.setEnabled(true).index();
-
-      LOG.info("Index issues");
-      issueAuthorizationIndexer.setEnabled(true).index();
-      issueIndexer.setEnabled(true).index();
-
-      LOG.info("Index source lines");
-      sourceLineIndexer.setEnabled(true).index();
-
-      LOG.info("Index tests");
-      testIndexer.setEnabled(true).index();
+      List<IndexTask> tasks = new ArrayList<>();
+      tasks.add(new IndexTask("activities", activityIndexer));
+      // authorizations must be indexed before issues
+      tasks.add(new IndexTask("issues", issueAuthorizationIndexer, issueIndexer));
+      tasks.add(new IndexTask("source lines", sourceLineIndexer));
+      tasks.add(new IndexTask("tests", testIndexer));
+      tasks.add(new IndexTask("users", userIndexer));
+      tasks.add(new IndexTask("views", viewIndexer));
+      tasks.add(new IndexTask("project measures", projectMeasuresIndexer));
+      execute(tasks);
+    }
+  }
 
-      LOG.info("Index users");
-      userIndexer.setEnabled(true).index();
+  private void execute(List<IndexTask> tasks) {
+    int threads = Math.min(threads(settings), tasks.size());
+    ExecutorService executor = Executors.newFixedThreadPool(threads,
+      new ThreadFactoryBuilder().setNameFormat("IndexSynchronizer-%d").build());
+    AtomicLong counter = new AtomicLong(0L);
+    ProgressLogger progress = ProgressLogger.create(IndexSynchronizer.class, counter).setPluralLabel("indices");
+    progress.start();
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (IndexTask task : tasks) {
+        futures.add(executor.submit(new CountingRunnable(task, counter)));
+      }
+      for (Future<?> future : futures) {
+        Uninterruptibles.getUninterruptibly(future);
+      }
+    } catch (ExecutionException e) {
+      throw Throwables.propagate(e.getCause());
+    } finally {
+      progress.stop();
+      executor.shutdownNow();
+    }
+  }
 
-      LOG.info("Index views");
-      viewIndexer.setEnabled(true).index();
+  @VisibleForTesting
+  static int threads(Settings settings) {
+    int threads = settings.getInt(THREADS_PROPERTY);
+    if (threads <= 0) {
+      return DEFAULT_THREADS;
     }
+    return threads;
   }
 
   void synchronize(DbSession session, Dao dao, Index index) {
@@ -115,4 +164,40 @@ public class IndexSynchronizer {
       dao.synchronizeAfter(session, lastSynch);
     }
   }
+
+  private static class IndexTask implements Runnable {
+    private final String label;
+    private final BaseIndexer[] indexers;
+
+    private IndexTask(String label, BaseIndexer... indexers) {
+      this.label = label;
+      this.indexers = indexers;
+    }
+
+    @Override
+    public void run() {
+      LOG.info("Index {}", label);
+      long start = System.currentTimeMillis();
+      for (BaseIndexer indexer : indexers) {
+        indexer.setEnabled(true).index();
+      }
+      LOG.info("Index {} done in {} ms", label, System.currentTimeMillis() - start);
+    }
+  }
+
+  private static class CountingRunnable implements Runnable {
+    private final Runnable delegate;
+    private final AtomicLong counter;
+
+    private CountingRunnable(Runnable delegate, AtomicLong counter) {
+      this.delegate = delegate;
+      this.counter = counter;
+    }
+
+    @Override
+    public void run() {
+      delegate.run();
+      counter.incrementAndGet();
+    }
+  }
 }
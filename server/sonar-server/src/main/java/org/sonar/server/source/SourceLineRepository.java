@@ -0,0 +1,143 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2014 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.source;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+import org.sonar.api.server.ServerSide;
+import org.sonar.core.source.db.FileSourceDto;
+import org.sonar.server.db.DbClient;
+import org.sonar.server.source.db.FileSourceDb;
+
+import javax.annotation.CheckForNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Lines of source files, as stored in the column FILE_SOURCES.BINARY_DATA. Decoded files are kept in a cache
+ * bounded by the size of their data. An entry of the cache is used only if the hash of data of the file
+ * did not change in database since it has been loaded.
+ */
+@ServerSide
+public class SourceLineRepository {
+
+  /**
+   * Max total size of the cached files, in bytes of serialized data
+   */
+  static final long DEFAULT_MAX_WEIGHT = 32L * 1024 * 1024;
+
+  private final DbClient dbClient;
+  private final Cache<String, CachedSource> cache;
+
+  public SourceLineRepository(DbClient dbClient) {
+    this(dbClient, DEFAULT_MAX_WEIGHT);
+  }
+
+  @VisibleForTesting
+  SourceLineRepository(DbClient dbClient, long maxWeight) {
+    this.dbClient = dbClient;
+    this.cache = CacheBuilder.newBuilder()
+      .maximumWeight(maxWeight)
+      .weigher(SourceWeigher.INSTANCE)
+      .build();
+  }
+
+  /**
+   * Get lines of code for file with UUID <code>fileUuid</code> with line numbers
+   * between <code>from</code> and <code>to</code> (both inclusive). Line numbers
+   * start at 1. Returns an empty list if the file has no sources.
+   *
+   * @param fileUuid the UUID of the file for which to get source code
+   * @param from starting line; must be strictly positive
+   * @param to ending line; must be greater than or equal to <code>from</code>
+   */
+  public List<FileSourceDb.Line> getLines(String fileUuid, int from, int to) {
+    checkArgument(from > 0, "Minimum value for 'from' is 1");
+    checkArgument(to >= from, "'to' must be larger than or equal to 'from'");
+    List<FileSourceDb.Line> lines = new ArrayList<>();
+    for (FileSourceDb.Line line : getLines(fileUuid)) {
+      if (line.getLine() >= from && line.getLine() <= to) {
+        lines.add(line);
+      }
+    }
+    return lines;
+  }
+
+  /**
+   * All the lines of the file, ordered by line number. Returns an empty list if the file has no sources.
+   */
+  public List<FileSourceDb.Line> getLines(String fileUuid) {
+    FileSourceDb.Data data = getData(fileUuid);
+    return data == null ? Collections.<FileSourceDb.Line>emptyList() : data.getLinesList();
+  }
+
+  @CheckForNull
+  public FileSourceDb.Line getLine(String fileUuid, int line) {
+    List<FileSourceDb.Line> lines = getLines(fileUuid, line, line);
+    return lines.isEmpty() ? null : lines.get(0);
+  }
+
+  @CheckForNull
+  private FileSourceDb.Data getData(String fileUuid) {
+    String dataHash = dbClient.fileSourceDao().selectSourceDataHash(fileUuid);
+    if (dataHash != null) {
+      CachedSource cached = cache.getIfPresent(fileUuid);
+      if (cached != null && dataHash.equals(cached.dataHash)) {
+        return cached.data;
+      }
+    }
+
+    FileSourceDto dto = dbClient.fileSourceDao().selectSource(fileUuid);
+    if (dto == null) {
+      cache.invalidate(fileUuid);
+      return null;
+    }
+    FileSourceDb.Data data = dto.getSourceData();
+    if (dto.getDataHash() != null) {
+      cache.put(fileUuid, new CachedSource(dto.getDataHash(), data));
+    }
+    return data;
+  }
+
+  private static class CachedSource {
+    private final String dataHash;
+    private final FileSourceDb.Data data;
+
+    private CachedSource(String dataHash, FileSourceDb.Data data) {
+      this.dataHash = dataHash;
+      this.data = data;
+    }
+  }
+
+  private enum SourceWeigher implements Weigher<String, CachedSource> {
+    INSTANCE;
+
+    @Override
+    public int weigh(String fileUuid, CachedSource source) {
+      return source.data.getSerializedSize();
+    }
+  }
+}
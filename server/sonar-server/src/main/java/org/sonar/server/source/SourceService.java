@@ -23,8 +23,7 @@ package org.sonar.server.source;
 import org.apache.commons.lang.ObjectUtils;
 import org.elasticsearch.common.collect.Lists;
 import org.sonar.api.server.ServerSide;
-import org.sonar.server.source.index.SourceLineDoc;
-import org.sonar.server.source.index.SourceLineIndex;
+import org.sonar.server.source.db.FileSourceDb;
 
 import javax.annotation.Nullable;
 
@@ -34,11 +33,11 @@ import java.util.List;
 public class SourceService {
 
   private final HtmlSourceDecorator sourceDecorator;
-  private final SourceLineIndex sourceLineIndex;
+  private final SourceLineRepository sourceLineRepository;
 
-  public SourceService(HtmlSourceDecorator sourceDecorator, SourceLineIndex sourceLineIndex) {
+  public SourceService(HtmlSourceDecorator sourceDecorator, SourceLineRepository sourceLineRepository) {
     this.sourceDecorator = sourceDecorator;
-    this.sourceLineIndex = sourceLineIndex;
+    this.sourceLineRepository = sourceLineRepository;
   }
 
   /**
@@ -48,8 +47,8 @@ public class SourceService {
     int from = (Integer) ObjectUtils.defaultIfNull(fromParam, 1);
     int to = (Integer) ObjectUtils.defaultIfNull(toParam, Integer.MAX_VALUE);
     List<String> lines = Lists.newArrayList();
-    for (SourceLineDoc lineDoc : sourceLineIndex.getLines(fileUuid, from, to)) {
-      lines.add(lineDoc.source());
+    for (FileSourceDb.Line line : sourceLineRepository.getLines(fileUuid, from, to)) {
+      lines.add(line.getSource());
     }
     return lines;
   }
@@ -61,8 +60,8 @@ public class SourceService {
     int from = (Integer) ObjectUtils.defaultIfNull(fromParam, 1);
     int to = (Integer) ObjectUtils.defaultIfNull(toParam, Integer.MAX_VALUE);
     List<String> lines = Lists.newArrayList();
-    for (SourceLineDoc lineDoc : sourceLineIndex.getLines(fileUuid, from, to)) {
-      lines.add(sourceDecorator.getDecoratedSourceAsHtml(lineDoc.source(), lineDoc.highlighting(), lineDoc.symbols()));
+    for (FileSourceDb.Line line : sourceLineRepository.getLines(fileUuid, from, to)) {
+      lines.add(sourceDecorator.getDecoratedSourceAsHtml(line.getSource(), line.getHighlighting(), line.getSymbols()));
     }
     return lines;
   }
@@ -56,6 +56,19 @@ public class FileSourceDao implements DaoComponent {
     }
   }
 
+  /**
+   * Hash of the data of the source file. It changes each time the data is updated.
+   */
+  @CheckForNull
+  public String selectSourceDataHash(String fileUuid) {
+    DbSession session = mybatis.openSession(false);
+    try {
+      return mapper(session).selectDataHash(fileUuid, Type.SOURCE);
+    } finally {
+      MyBatis.closeQuietly(session);
+    }
+  }
+
   @CheckForNull
   public FileSourceDto selectTest(String fileUuid) {
     DbSession session = mybatis.openSession(false);
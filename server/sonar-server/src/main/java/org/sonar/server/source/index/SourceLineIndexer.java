@@ -51,7 +51,7 @@ public class SourceLineIndexer extends BaseIndexer {
   }
 
   public void index(final String projectUuid){
-    super.index(new IndexerTask() {
+    super.index(projectUuid, new IndexerTask() {
       @Override
       public long index(long lastUpdatedAt) {
         return doIndex(lastUpdatedAt, projectUuid);
@@ -33,8 +33,8 @@ import org.sonar.core.persistence.MyBatis;
 import org.sonar.server.db.DbClient;
 import org.sonar.server.exceptions.NotFoundException;
 import org.sonar.server.source.HtmlSourceDecorator;
-import org.sonar.server.source.index.SourceLineDoc;
-import org.sonar.server.source.index.SourceLineIndex;
+import org.sonar.server.source.SourceLineRepository;
+import org.sonar.server.source.db.FileSourceDb;
 import org.sonar.server.user.UserSession;
 
 import java.util.Date;
@@ -45,13 +45,13 @@ public class LinesAction implements SourcesWsAction {
   private static final String PARAM_UUID = "uuid";
   private static final String PARAM_KEY = "key";
 
-  private final SourceLineIndex sourceLineIndex;
+  private final SourceLineRepository sourceLineRepository;
   private final HtmlSourceDecorator htmlSourceDecorator;
   private final DbClient dbClient;
   private final UserSession userSession;
 
-  public LinesAction(DbClient dbClient, SourceLineIndex sourceLineIndex, HtmlSourceDecorator htmlSourceDecorator, UserSession userSession) {
-    this.sourceLineIndex = sourceLineIndex;
+  public LinesAction(DbClient dbClient, SourceLineRepository sourceLineRepository, HtmlSourceDecorator htmlSourceDecorator, UserSession userSession) {
+    this.sourceLineRepository = sourceLineRepository;
     this.htmlSourceDecorator = htmlSourceDecorator;
     this.dbClient = dbClient;
     this.userSession = userSession;
@@ -110,7 +110,7 @@ public class LinesAction implements SourcesWsAction {
     int from = Math.max(request.mandatoryParamAsInt("from"), 1);
     int to = (Integer) ObjectUtils.defaultIfNull(request.paramAsInt("to"), Integer.MAX_VALUE);
 
-    List<SourceLineDoc> sourceLines = sourceLineIndex.getLines(component.uuid(), from, to);
+    List<FileSourceDb.Line> sourceLines = sourceLineRepository.getLines(component.uuid(), from, to);
     if (sourceLines.isEmpty()) {
       throw new NotFoundException("File '" + component.key() + "' has no sources");
     }
@@ -121,23 +121,23 @@ public class LinesAction implements SourcesWsAction {
     json.endObject().close();
   }
 
-  private void writeSource(List<SourceLineDoc> lines, JsonWriter json) {
+  private void writeSource(List<FileSourceDb.Line> lines, JsonWriter json) {
     json.name("sources").beginArray();
-    for (SourceLineDoc line : lines) {
+    for (FileSourceDb.Line line : lines) {
       json.beginObject()
-        .prop("line", line.line())
-        .prop("code", htmlSourceDecorator.getDecoratedSourceAsHtml(line.source(), line.highlighting(), line.symbols()))
-        .prop("scmAuthor", line.scmAuthor())
-        .prop("scmRevision", line.scmRevision());
-      Date scmDate = line.scmDate();
+        .prop("line", line.getLine())
+        .prop("code", htmlSourceDecorator.getDecoratedSourceAsHtml(line.getSource(), line.getHighlighting(), line.getSymbols()))
+        .prop("scmAuthor", line.hasScmAuthor() ? line.getScmAuthor() : null)
+        .prop("scmRevision", line.hasScmRevision() ? line.getScmRevision() : null);
+      Date scmDate = line.hasScmDate() ? new Date(line.getScmDate()) : null;
       json.prop("scmDate", scmDate == null ? null : DateUtils.formatDateTime(scmDate));
-      json.prop("utLineHits", line.utLineHits())
-        .prop("utConditions", line.utConditions())
-        .prop("utCoveredConditions", line.utCoveredConditions())
-        .prop("itLineHits", line.itLineHits())
-        .prop("itConditions", line.itConditions())
-        .prop("itCoveredConditions", line.itCoveredConditions());
-      if (!line.duplications().isEmpty()) {
+      json.prop("utLineHits", line.hasUtLineHits() ? line.getUtLineHits() : null)
+        .prop("utConditions", line.hasUtConditions() ? line.getUtConditions() : null)
+        .prop("utCoveredConditions", line.hasUtCoveredConditions() ? line.getUtCoveredConditions() : null)
+        .prop("itLineHits", line.hasItLineHits() ? line.getItLineHits() : null)
+        .prop("itConditions", line.hasItConditions() ? line.getItConditions() : null)
+        .prop("itCoveredConditions", line.hasItCoveredConditions() ? line.getItCoveredConditions() : null);
+      if (line.getDuplicationCount() > 0) {
         json.prop("duplicated", true);
       }
       json.endObject();
@@ -53,7 +53,7 @@ public class TestIndexer extends BaseIndexer {
 
   public void index(final String projectUuid) {
     deleteByProject(projectUuid);
-    super.index(new IndexerTask() {
+    super.index(projectUuid, new IndexerTask() {
       @Override
       public long index(long lastUpdatedAt) {
         return doIndex(lastUpdatedAt, projectUuid);
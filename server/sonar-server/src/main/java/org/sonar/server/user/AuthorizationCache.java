@@ -0,0 +1,155 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2014 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.user;
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nullable;
+import org.sonar.api.server.ServerSide;
+import org.sonar.api.utils.System2;
+import org.sonar.core.user.AuthorizationDao;
+
+/**
+ * Server-wide cache of the root projects on which a user has a given permission. It is shared by all
+ * the {@link ServerUserSession}, so that the authorized projects are not loaded again on each HTTP request.
+ * <p/>
+ * The cache must be invalidated by every component that changes project permissions or group memberships.
+ * As the Rails webapp still writes some of these tables directly, entries also expire after {@link #TTL_MS}.
+ * The number of entries is bounded, the least recently used ones are evicted first.
+ */
+@ServerSide
+public class AuthorizationCache {
+
+  static final long TTL_MS = TimeUnit.SECONDS.toMillis(30);
+  private static final int MAX_ENTRIES = 5_000;
+
+  private enum Type {
+    KEYS, UUIDS
+  }
+
+  private final AuthorizationDao authorizationDao;
+  private final Cache<EntryKey, Entry> entries;
+  private final AtomicLong version = new AtomicLong();
+
+  public AuthorizationCache(AuthorizationDao authorizationDao, final System2 system) {
+    this.authorizationDao = authorizationDao;
+    this.entries = CacheBuilder.newBuilder()
+      .maximumSize(MAX_ENTRIES)
+      .expireAfterWrite(TTL_MS, TimeUnit.MILLISECONDS)
+      .ticker(new Ticker() {
+        @Override
+        public long read() {
+          return TimeUnit.MILLISECONDS.toNanos(system.now());
+        }
+      })
+      .build();
+  }
+
+  /**
+   * Keys of the root projects on which the user (or anonymous if {@code userId} is null) has the permission
+   */
+  public Set<String> authorizedProjectKeys(@Nullable Integer userId, String permission) {
+    return get(new EntryKey(userId, permission, Type.KEYS));
+  }
+
+  /**
+   * UUIDs of the root projects on which the user (or anonymous if {@code userId} is null) has the permission
+   */
+  public Set<String> authorizedProjectUuids(@Nullable Integer userId, String permission) {
+    return get(new EntryKey(userId, permission, Type.UUIDS));
+  }
+
+  /**
+   * Drop all the cached authorizations. Must be called once changes on permissions are committed.
+   */
+  public void invalidate() {
+    version.incrementAndGet();
+    entries.invalidateAll();
+  }
+
+  private Set<String> get(EntryKey key) {
+    long currentVersion = version.get();
+    Entry entry = entries.getIfPresent(key);
+    if (entry != null && entry.version == currentVersion) {
+      return entry.projects;
+    }
+    Set<String> projects = ImmutableSet.copyOf(load(key));
+    // do not publish a result loaded concurrently with an invalidation, it may be already stale
+    if (version.get() == currentVersion) {
+      entries.put(key, new Entry(projects, currentVersion));
+    }
+    return projects;
+  }
+
+  private Iterable<String> load(EntryKey key) {
+    if (key.type == Type.KEYS) {
+      return authorizationDao.selectAuthorizedRootProjectsKeys(key.userId, key.permission);
+    }
+    return authorizationDao.selectAuthorizedRootProjectsUuids(key.userId, key.permission);
+  }
+
+  private static class Entry {
+    private final Set<String> projects;
+    private final long version;
+
+    private Entry(Set<String> projects, long version) {
+      this.projects = projects;
+      this.version = version;
+    }
+  }
+
+  private static class EntryKey {
+    private final Integer userId;
+    private final String permission;
+    private final Type type;
+
+    private EntryKey(@Nullable Integer userId, String permission, Type type) {
+      this.userId = userId;
+      this.permission = permission;
+      this.type = type;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      EntryKey other = (EntryKey) o;
+      return type == other.type && permission.equals(other.permission)
+        && (userId == null ? other.userId == null : userId.equals(other.userId));
+    }
+
+    @Override
+    public int hashCode() {
+      int result = userId != null ? userId.hashCode() : 0;
+      result = 31 * result + permission.hashCode();
+      result = 31 * result + type.hashCode();
+      return result;
+    }
+  }
+}
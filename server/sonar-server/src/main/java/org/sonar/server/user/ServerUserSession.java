@@ -45,12 +45,14 @@ public class ServerUserSession extends AbstractUserSession<ServerUserSession>
   private Map<String, String> projectKeyByComponentKey = newHashMap();
 
   private final AuthorizationDao authorizationDao;
+  private final AuthorizationCache authorizationCache;
   private final ResourceDao resourceDao;
 
-  ServerUserSession(AuthorizationDao authorizationDao, ResourceDao resourceDao) {
+  ServerUserSession(AuthorizationDao authorizationDao, AuthorizationCache authorizationCache, ResourceDao resourceDao) {
     super(ServerUserSession.class);
     this.globalPermissions = null;
     this.authorizationDao = authorizationDao;
+    this.authorizationCache = authorizationCache;
     this.resourceDao = resourceDao;
     // Do not forget that when forceAuthentication is set to true, the Anyone group should not be set (but this will be check when
     // authentication will be done in Java)
@@ -76,7 +78,7 @@ public class ServerUserSession extends AbstractUserSession<ServerUserSession>
   @Override
   public boolean hasProjectPermission(String permission, String projectKey) {
     if (!projectPermissionsCheckedByKey.contains(permission)) {
-      Collection<String> projectKeys = authorizationDao.selectAuthorizedRootProjectsKeys(userId, permission);
+      Collection<String> projectKeys = authorizationCache.authorizedProjectKeys(userId, permission);
       for (String key : projectKeys) {
         projectKeyByPermission.put(permission, key);
       }
@@ -88,7 +90,7 @@ public class ServerUserSession extends AbstractUserSession<ServerUserSession>
   @Override
   public boolean hasProjectPermissionByUuid(String permission, String projectUuid) {
     if (!projectPermissionsCheckedByUuid.contains(permission)) {
-      Collection<String> projectUuids = authorizationDao.selectAuthorizedRootProjectsUuids(userId, permission);
+      Collection<String> projectUuids = authorizationCache.authorizedProjectUuids(userId, permission);
       addProjectPermission(permission, projectUuids);
     }
     return projectUuidByPermission.get(permission).contains(projectUuid);
@@ -69,14 +69,17 @@ public class UserUpdater {
   private final UserIndexer userIndexer;
   private final System2 system2;
   private final SecurityRealmFactory realmFactory;
+  private final AuthorizationCache authorizationCache;
 
-  public UserUpdater(NewUserNotifier newUserNotifier, Settings settings, DbClient dbClient, UserIndexer userIndexer, System2 system2, SecurityRealmFactory realmFactory) {
+  public UserUpdater(NewUserNotifier newUserNotifier, Settings settings, DbClient dbClient, UserIndexer userIndexer, System2 system2, SecurityRealmFactory realmFactory,
+    AuthorizationCache authorizationCache) {
     this.newUserNotifier = newUserNotifier;
     this.settings = settings;
     this.dbClient = dbClient;
     this.userIndexer = userIndexer;
     this.system2 = system2;
     this.realmFactory = realmFactory;
+    this.authorizationCache = authorizationCache;
   }
 
   /**
@@ -131,6 +134,7 @@ public class UserUpdater {
 
   public void deactivateUserByLogin(String login) {
     dbClient.userDao().deactivateUserByLogin(login);
+    authorizationCache.invalidate();
     userIndexer.index();
   }
 
@@ -30,6 +30,7 @@ import org.sonar.core.user.UserDto;
 import org.sonar.core.user.UserGroupDto;
 import org.sonar.server.db.DbClient;
 import org.sonar.server.exceptions.NotFoundException;
+import org.sonar.server.user.AuthorizationCache;
 import org.sonar.server.user.UserSession;
 
 import static org.sonar.core.persistence.MyBatis.closeQuietly;
@@ -41,10 +42,12 @@ public class RemoveUserAction implements UserGroupsWsAction {
 
   private final DbClient dbClient;
   private final UserSession userSession;
+  private final AuthorizationCache authorizationCache;
 
-  public RemoveUserAction(DbClient dbClient, UserSession userSession) {
+  public RemoveUserAction(DbClient dbClient, UserSession userSession, AuthorizationCache authorizationCache) {
     this.dbClient = dbClient;
     this.userSession = userSession;
+    this.authorizationCache = authorizationCache;
   }
 
   @Override
@@ -84,6 +87,7 @@ public class RemoveUserAction implements UserGroupsWsAction {
       UserGroupDto userGroup = new UserGroupDto().setGroupId(group.getId()).setUserId(user.getId());
       dbClient.userGroupDao().delete(dbSession, userGroup);
       dbSession.commit();
+      authorizationCache.invalidate();
       response.noContent();
     } finally {
       closeQuietly(dbSession);
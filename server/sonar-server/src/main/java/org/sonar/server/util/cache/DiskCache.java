@@ -19,12 +19,17 @@
  */
 package org.sonar.server.util.cache;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.ObjectOutputStream;
 import java.io.OutputStream;
 import java.io.Serializable;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.sonar.api.utils.System2;
@@ -33,9 +38,21 @@ import org.sonar.server.util.ObjectInputStreamIterator;
 
 /**
  * Serialize and deserialize objects on disk. No search capabilities, only traversal (full scan).
+ * Each call to {@link #traverse()} opens its own stream, so the cache can be traversed by several readers.
+ * Distinct objects appended to the same {@link DiskAppender} must not share mutable nested objects.
  */
 public class DiskCache<O extends Serializable> {
 
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  /**
+   * The serialization stream is reset every {@code RESET_INTERVAL} objects. It avoids writing class descriptions
+   * for each object while bounding the number of objects referenced by the stream.
+   * It is also reset before appending again an object, otherwise the stream would refer to the previous state
+   * of this object and of its nested objects.
+   */
+  private static final int RESET_INTERVAL = 1000;
+
   private final File file;
   private final System2 system2;
 
@@ -64,7 +81,7 @@ public class DiskCache<O extends Serializable> {
 
   public CloseableIterator<O> traverse() {
     try {
-      return new ObjectInputStreamIterator<>(FileUtils.openInputStream(file));
+      return new ObjectInputStreamIterator<>(new BufferedInputStream(FileUtils.openInputStream(file), BUFFER_SIZE));
     } catch (IOException e) {
       throw new IllegalStateException("Fail to traverse file: " + file, e);
     }
@@ -72,10 +89,11 @@ public class DiskCache<O extends Serializable> {
 
   public class DiskAppender implements AutoCloseable {
     private final ObjectOutputStream output;
+    private final Set<Object> appendedSinceReset = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
 
     private DiskAppender() {
       try {
-        this.output = new ObjectOutputStream(new FileOutputStream(file, true)) {
+        this.output = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(file, true), BUFFER_SIZE)) {
           @Override
           protected void writeStreamHeader() throws IOException {
             // do not write stream headers as it's already done in constructor of DiskCache
@@ -86,10 +104,18 @@ public class DiskCache<O extends Serializable> {
       }
     }
 
+    /**
+     * Appends the current state of {@code object}, even if it was already appended. Nested objects shared with
+     * other objects appended since the last reset of the stream are not written again: their changes are
+     * visible only to the next appender.
+     */
     public DiskAppender append(O object) {
       try {
+        if (appendedSinceReset.size() == RESET_INTERVAL || appendedSinceReset.contains(object)) {
+          reset();
+        }
         output.writeObject(object);
-        output.reset();
+        appendedSinceReset.add(object);
         return this;
       } catch (IOException e) {
         throw new IllegalStateException("Fail to write into file " + file, e);
@@ -98,7 +124,21 @@ public class DiskCache<O extends Serializable> {
 
     @Override
     public void close() {
+      try {
+        // next appenders continue the same stream, so they must not refer to the objects written by this one
+        if (!appendedSinceReset.isEmpty()) {
+          reset();
+        }
+      } catch (IOException e) {
+        IOUtils.closeQuietly(output);
+        throw new IllegalStateException("Fail to write into file " + file, e);
+      }
       system2.close(output);
     }
+
+    private void reset() throws IOException {
+      output.reset();
+      appendedSinceReset.clear();
+    }
   }
 }
@@ -19,6 +19,7 @@
  */
 package org.sonar.server.activity;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import org.assertj.core.data.MapEntry;
@@ -56,6 +57,8 @@ public class ActivityServiceTest {
 
   @Before
   public void before() {
+    db.truncateTables();
+    es.truncateIndices();
     ActivityDao activityDao = new ActivityDao(db.myBatis(), system);
     IssueDao issueDao = new IssueDao(db.myBatis());
     DbClient dbClient = new DbClient(db.database(), db.myBatis(), issueDao, activityDao);
@@ -90,4 +93,21 @@ public class ActivityServiceTest {
     assertThat(docs.get(0).getDetails()).containsOnly(MapEntry.entry("foo", "bar"));
   }
 
+  @Test
+  public void insert_and_index_many_activities() {
+    when(system.now()).thenReturn(1_500_000_000_000L);
+
+    List<Activity> activities = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      Activity activity = new Activity();
+      activity.setType(Activity.Type.QPROFILE);
+      activity.setAction("ACTION_" + i);
+      activities.add(activity);
+    }
+    service.save(activities);
+
+    assertThat(db.countRowsOfTable("activities")).isEqualTo(3);
+    assertThat(es.getDocumentFieldValues("activities", "activity", "action")).containsOnly("ACTION_0", "ACTION_1", "ACTION_2");
+  }
+
 }
@@ -50,8 +50,7 @@ public class ProjectActionTest {
   public void project_referentials() throws Exception {
     String projectKey = "org.codehaus.sonar:sonar";
 
-    ProjectRepositories projectReferentials = mock(ProjectRepositories.class);
-    when(projectReferentials.toJson()).thenReturn("{\"settingsByModule\": {}}");
+    ProjectRepositories projectReferentials = new ProjectRepositories();
 
     ArgumentCaptor<ProjectRepositoryQuery> queryArgumentCaptor = ArgumentCaptor.forClass(ProjectRepositoryQuery.class);
     when(projectRepositoryLoader.load(queryArgumentCaptor.capture())).thenReturn(projectReferentials);
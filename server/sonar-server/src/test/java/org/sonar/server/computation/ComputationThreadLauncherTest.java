@@ -28,10 +28,13 @@ import org.junit.Test;
 import org.junit.rules.DisableOnDebug;
 import org.junit.rules.TestRule;
 import org.junit.rules.Timeout;
+import org.sonar.api.config.Settings;
 import org.sonar.api.platform.Server;
 import org.sonar.core.platform.ComponentContainer;
 import org.sonar.server.computation.container.ContainerFactory;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.atLeast;
 import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
@@ -60,7 +63,7 @@ public class ComputationThreadLauncherTest {
 
   @Test
   public void call_findAndBook_when_launching_a_recurrent_task() throws Exception {
-    sut = new ComputationThreadLauncher(queue, componentContainer, containerFactory, 0, 1, TimeUnit.MILLISECONDS);
+    sut = new ComputationThreadLauncher(queue, componentContainer, containerFactory, 1, 0, 1, TimeUnit.MILLISECONDS);
 
     sut.onServerStart(mock(Server.class));
 
@@ -71,7 +74,7 @@ public class ComputationThreadLauncherTest {
 
   @Test
   public void call_findAndBook_when_executing_task_immediately() throws Exception {
-    sut = new ComputationThreadLauncher(queue, componentContainer, containerFactory, 1, 1, TimeUnit.HOURS);
+    sut = new ComputationThreadLauncher(queue, componentContainer, containerFactory, 1, 1, 1, TimeUnit.HOURS);
     sut.start();
 
     sut.startAnalysisTaskNow();
@@ -81,10 +84,32 @@ public class ComputationThreadLauncherTest {
     verify(queue, atLeastOnce()).pop();
   }
 
+  @Test
+  public void start_one_recurrent_task_per_worker() throws Exception {
+    sut = new ComputationThreadLauncher(queue, componentContainer, containerFactory, 3, 0, 1, TimeUnit.HOURS);
+
+    sut.onServerStart(mock(Server.class));
+
+    sleep();
+
+    verify(queue, atLeast(3)).pop();
+  }
+
   @Test
   public void test_real_constructor() throws Exception {
-    sut = new ComputationThreadLauncher(queue, componentContainer);
+    sut = new ComputationThreadLauncher(queue, componentContainer, new Settings());
     sut.start();
+
+    assertThat(sut.getWorkers()).isEqualTo(ComputationThreadLauncher.DEFAULT_WORKERS);
+  }
+
+  @Test
+  public void number_of_workers_is_configurable() throws Exception {
+    Settings settings = new Settings();
+    settings.setProperty(ComputationThreadLauncher.WORKERS_PROPERTY, 4);
+    sut = new ComputationThreadLauncher(queue, componentContainer, settings);
+
+    assertThat(sut.getWorkers()).isEqualTo(4);
   }
 
   private void sleep() throws InterruptedException {
@@ -19,19 +19,18 @@
  */
 package org.sonar.server.computation.issue;
 
-import java.util.Date;
 import org.junit.Before;
 import org.junit.ClassRule;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
-import org.sonar.api.config.Settings;
 import org.sonar.batch.protocol.output.BatchReport;
+import org.sonar.core.persistence.DbTester;
+import org.sonar.core.source.db.FileSourceDto;
 import org.sonar.server.computation.batch.BatchReportReaderRule;
-import org.sonar.server.es.EsTester;
-import org.sonar.server.source.index.SourceLineDoc;
-import org.sonar.server.source.index.SourceLineIndex;
-import org.sonar.server.source.index.SourceLineIndexDefinition;
+import org.sonar.server.db.DbClient;
+import org.sonar.server.source.db.FileSourceDao;
+import org.sonar.server.source.db.FileSourceDb;
 import org.sonar.test.DbTests;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -40,7 +39,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 public class SourceLinesCacheTest {
 
   @ClassRule
-  public static EsTester esTester = new EsTester().addDefinitions(new SourceLineIndexDefinition(new Settings()));
+  public static DbTester dbTester = new DbTester();
   @Rule
   public BatchReportReaderRule reportReader = new BatchReportReaderRule();
 
@@ -48,8 +47,8 @@ public class SourceLinesCacheTest {
 
   @Before
   public void setUp() throws Exception {
-    esTester.truncateIndices();
-    sut = new SourceLinesCache(new SourceLineIndex(esTester.client()));
+    dbTester.truncateTables();
+    sut = new SourceLinesCache(new DbClient(dbTester.database(), dbTester.myBatis(), new FileSourceDao(dbTester.myBatis())));
   }
 
   @Test
@@ -74,14 +73,21 @@ public class SourceLinesCacheTest {
   }
 
   @Test
-  public void line_author_from_index() throws Exception {
-    esTester.putDocuments(SourceLineIndexDefinition.INDEX, SourceLineIndexDefinition.TYPE,
-      newSourceLine("cabu", "123-456-789", 123_456_789, 1),
-      newSourceLine("cabu", "123-456-789", 123_456_789, 2),
-      newSourceLine("cabu", "123-123-789", 123_456_789, 3),
-      newSourceLine("wolinski", "987-654-321", 987_654_321, 4),
-      newSourceLine("cabu", "123-456-789", 123_456_789, 5)
-      );
+  public void line_author_from_db() throws Exception {
+    FileSourceDb.Data.Builder data = FileSourceDb.Data.newBuilder();
+    addSourceLine(data, "cabu", "123-456-789", 123_456_789, 1);
+    addSourceLine(data, "cabu", "123-456-789", 123_456_789, 2);
+    addSourceLine(data, "cabu", "123-123-789", 123_456_789, 3);
+    addSourceLine(data, "wolinski", "987-654-321", 987_654_321, 4);
+    addSourceLine(data, "cabu", "123-456-789", 123_456_789, 5);
+    new FileSourceDao(dbTester.myBatis()).insert(new FileSourceDto()
+      .setProjectUuid("PROJECT_UUID")
+      .setFileUuid("DEFAULT_UUID")
+      .setDataType(FileSourceDto.Type.SOURCE)
+      .setSourceData(data.build())
+      .setDataHash("DATA_HASH")
+      .setCreatedAt(1_500_000_000_000L)
+      .setUpdatedAt(1_500_000_000_000L));
 
     sut.init("DEFAULT_UUID", 123, reportReader);
 
@@ -106,13 +112,11 @@ public class SourceLinesCacheTest {
       .setDate(date);
   }
 
-  private SourceLineDoc newSourceLine(String author, String revision, long date, int lineNumber) {
-    return new SourceLineDoc()
+  private static void addSourceLine(FileSourceDb.Data.Builder data, String author, String revision, long date, int lineNumber) {
+    data.addLinesBuilder()
       .setScmAuthor(author)
       .setScmRevision(revision)
-      .setScmDate(new Date(date))
-      .setLine(lineNumber)
-      .setProjectUuid("PROJECT_UUID")
-      .setFileUuid("DEFAULT_UUID");
+      .setScmDate(date)
+      .setLine(lineNumber);
   }
 }
@@ -190,6 +190,30 @@ public class MeasureRepositoryImplTest {
     underTest.add(FILE_COMPONENT, metric1, SOME_MEASURE);
   }
 
+  @Test(expected = UnsupportedOperationException.class)
+  public void add_throws_UOE_if_measure_exists_in_batch_report() {
+    reportReader.putMeasures(FILE_COMPONENT.getRef(), ImmutableList.of(
+      BatchReport.Measure.newBuilder().setMetricKey(METRIC_KEY_1).setStringValue("some value").build()
+      ));
+
+    underTest.add(FILE_COMPONENT, metric1, SOME_MEASURE);
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void add_throws_UOE_if_measure_exists_in_batch_report_even_if_no_more_in_memory() {
+    reportReader.putMeasures(FILE_COMPONENT.getRef(), ImmutableList.of(
+      BatchReport.Measure.newBuilder().setMetricKey(METRIC_KEY_1).setStringValue("some value").build()
+      ));
+    underTest.getRawMeasures(FILE_COMPONENT);
+
+    // load enough components to remove FILE_COMPONENT from memory
+    for (int ref = 1000; ref < 1000 + MeasureRepositoryImpl.BATCH_MEASURES_CACHE_SIZE; ref++) {
+      underTest.getRawMeasures(DumbComponent.builder(Component.Type.FILE, ref).build());
+    }
+
+    underTest.add(FILE_COMPONENT, metric1, SOME_MEASURE);
+  }
+
   @Test(expected = NullPointerException.class)
   public void update_throws_NPE_if_Component_argument_is_null() {
     underTest.update(null, metric1, SOME_MEASURE);
@@ -369,13 +393,13 @@ public class MeasureRepositoryImplTest {
   }
 
   @Test
-  public void getRawMeasure_retrieves_added_measure_over_batch_measure() {
+  public void getRawMeasure_retrieves_updated_measure_over_batch_measure() {
     reportReader.putMeasures(FILE_COMPONENT.getRef(), ImmutableList.of(
       BatchReport.Measure.newBuilder().setMetricKey(METRIC_KEY_1).setStringValue("some value").build()
       ));
 
     Measure addedMeasure = SOME_MEASURE;
-    underTest.add(FILE_COMPONENT, metric1, addedMeasure);
+    underTest.update(FILE_COMPONENT, metric1, addedMeasure);
 
     Optional<Measure> res = underTest.getRawMeasure(FILE_COMPONENT, metric1);
 
@@ -455,13 +479,13 @@ public class MeasureRepositoryImplTest {
   }
 
   @Test
-  public void getRawMeasures_returns_added_measures_over_batch_measures() {
+  public void getRawMeasures_returns_added_and_updated_measures_over_batch_measures() {
     BatchReport.Measure batchMeasure1 = BatchReport.Measure.newBuilder().setMetricKey(METRIC_KEY_1).setStringValue("some value").build();
     BatchReport.Measure batchMeasure2 = BatchReport.Measure.newBuilder().setMetricKey(METRIC_KEY_2).setStringValue("some value").build();
     reportReader.putMeasures(FILE_COMPONENT.getRef(), ImmutableList.of(batchMeasure1, batchMeasure2));
 
     Measure addedMeasure = SOME_MEASURE;
-    underTest.add(FILE_COMPONENT, metric1, addedMeasure);
+    underTest.update(FILE_COMPONENT, metric1, addedMeasure);
     Measure addedMeasure2 = Measure.newMeasureBuilder().forCharacteristic(SOME_CHARACTERISTIC.getId()).createNoValue();
     underTest.add(FILE_COMPONENT, metric1, addedMeasure2);
 
@@ -472,6 +496,22 @@ public class MeasureRepositoryImplTest {
     assertThat(rawMeasures.get(METRIC_KEY_2)).containsOnly(Measure.newMeasureBuilder().create("some value"));
   }
 
+  @Test
+  public void batch_measures_are_read_again_from_report_when_no_more_in_memory() {
+    BatchReport.Measure batchMeasure = BatchReport.Measure.newBuilder().setMetricKey(METRIC_KEY_1).setStringValue("some value").build();
+    reportReader.putMeasures(FILE_COMPONENT.getRef(), ImmutableList.of(batchMeasure));
+    assertThat(underTest.getRawMeasure(FILE_COMPONENT, metric1).get().getStringValue()).isEqualTo("some value");
+
+    // load enough components to remove FILE_COMPONENT from memory
+    for (int ref = 1000; ref < 1000 + MeasureRepositoryImpl.BATCH_MEASURES_CACHE_SIZE; ref++) {
+      underTest.getRawMeasures(DumbComponent.builder(Component.Type.FILE, ref).build());
+    }
+
+    assertThat(underTest.getRawMeasure(FILE_COMPONENT, metric1).get().getStringValue()).isEqualTo("some value");
+    underTest.update(FILE_COMPONENT, metric1, Measure.newMeasureBuilder().create("other value"));
+    assertThat(underTest.getRawMeasure(FILE_COMPONENT, metric1).get().getStringValue()).isEqualTo("other value");
+  }
+
   private static MeasureDto createMeasureDto(int metricId, long snapshotId) {
     return new MeasureDto()
       .setComponentId(COMPONENT_ID)
@@ -20,7 +20,11 @@
 
 package org.sonar.server.computation.step;
 
+import org.junit.Rule;
 import org.junit.Test;
+import org.sonar.server.computation.batch.TreeRootHolderRule;
+import org.sonar.server.computation.component.Component;
+import org.sonar.server.computation.component.DumbComponent;
 import org.sonar.server.issue.index.IssueIndexer;
 
 import static org.mockito.Mockito.mock;
@@ -28,15 +32,19 @@ import static org.mockito.Mockito.verify;
 
 public class IndexIssuesStepTest {
 
+  @Rule
+  public TreeRootHolderRule treeRootHolder = new TreeRootHolderRule();
+
   IndexIssuesStep sut;
 
   @Test
   public void call_indexers() {
+    treeRootHolder.setRoot(DumbComponent.builder(Component.Type.PROJECT, 1).setUuid("PROJECT_UUID").build());
     IssueIndexer issueIndexer = mock(IssueIndexer.class);
-    sut = new IndexIssuesStep(issueIndexer);
+    sut = new IndexIssuesStep(issueIndexer, treeRootHolder);
 
     sut.execute();
 
-    verify(issueIndexer).index();
+    verify(issueIndexer).index("PROJECT_UUID");
   }
 }
@@ -20,6 +20,7 @@
 
 package org.sonar.server.computation.step;
 
+import org.apache.commons.lang.StringUtils;
 import org.junit.*;
 import org.junit.rules.TemporaryFolder;
 import org.sonar.api.issue.Issue;
@@ -39,6 +40,8 @@ import org.sonar.server.db.DbClient;
 import org.sonar.server.issue.db.IssueDao;
 import org.sonar.server.rule.db.RuleDao;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -176,4 +179,81 @@ public class PersistIssuesStepTest extends BaseStepTest {
     dbTester.assertDbUnit(getClass(), "add_change-result.xml", new String[]{"id", "created_at", "updated_at"}, "issue_changes");
   }
 
+  @Test
+  public void insert_and_update_issues_with_changes() {
+    dbTester.prepareDbUnit(getClass(), "shared.xml");
+
+    issueCache.newAppender()
+      .append(new DefaultIssue()
+        .setKey("NEW_ISSUE")
+        .setRuleKey(RuleKey.of("xoo", "S01"))
+        .setComponentUuid("COMPONENT")
+        .setProjectUuid("PROJECT")
+        .setSeverity(Severity.MAJOR)
+        .setStatus(Issue.STATUS_OPEN)
+        .setNew(true)
+        .addComment(new DefaultIssueComment()
+          .setKey("NEW_COMMENT")
+          .setIssueKey("NEW_ISSUE")
+          .setUserLogin("john")
+          .setMarkdownText("Some text")
+          .setNew(true)))
+      .append(new DefaultIssue()
+        .setKey("ISSUE")
+        .setRuleKey(RuleKey.of("xoo", "S01"))
+        .setComponentUuid("COMPONENT")
+        .setProjectUuid("PROJECT")
+        .setSeverity(Severity.BLOCKER)
+        .setStatus(Issue.STATUS_CLOSED)
+        .setResolution(Issue.RESOLUTION_FIXED)
+        .setNew(false)
+        .setChanged(true)
+        .addComment(new DefaultIssueComment()
+          .setKey("COMMENT")
+          .setIssueKey("ISSUE")
+          .setUserLogin("john")
+          .setMarkdownText("Other text")
+          .setNew(true)))
+      .close();
+
+    step.execute();
+
+    assertThat(dbTester.countRowsOfTable("issues")).isEqualTo(2);
+    assertThat(dbTester.countRowsOfTable("issue_changes")).isEqualTo(2);
+    assertThat(dbTester.select("select status as \"status\" from issues where kee='ISSUE'").get(0).get("status")).isEqualTo(Issue.STATUS_CLOSED);
+  }
+
+  @Test
+  public void do_not_persist_issues_without_their_changes() {
+    dbTester.prepareDbUnit(getClass(), "shared.xml");
+
+    issueCache.newAppender()
+      .append(new DefaultIssue()
+        .setKey("NEW_ISSUE")
+        .setRuleKey(RuleKey.of("xoo", "S01"))
+        .setComponentUuid("COMPONENT")
+        .setProjectUuid("PROJECT")
+        .setSeverity(Severity.MAJOR)
+        .setStatus(Issue.STATUS_OPEN)
+        .setNew(true)
+        .addComment(new DefaultIssueComment()
+          // too long for column ISSUE_CHANGES.KEE
+          .setKey(StringUtils.repeat("x", 51))
+          .setIssueKey("NEW_ISSUE")
+          .setUserLogin("john")
+          .setMarkdownText("Some text")
+          .setNew(true)))
+      .close();
+
+    try {
+      step.execute();
+      fail();
+    } catch (RuntimeException e) {
+      // insertion of the comment fails after the insertion of the issue
+    }
+
+    assertThat(dbTester.countRowsOfTable("issues")).isEqualTo(1);
+    assertThat(dbTester.countRowsOfTable("issue_changes")).isEqualTo(0);
+  }
+
 }
@@ -0,0 +1,132 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2014 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.es;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class BaseIndexerTest {
+
+  EsClient esClient = mock(EsClient.class);
+  FakeIndexer underTest = new FakeIndexer(esClient);
+
+  @Before
+  public void setUp() {
+    when(esClient.getMaxFieldValue("fake", "doc", "updatedAt")).thenReturn(100L);
+    underTest.setEnabled(true);
+  }
+
+  @Test
+  public void index_project_since_its_last_indexed_document() {
+    underTest.updatedAtByProject.put("P1", 2000L);
+
+    underTest.index("P1");
+    underTest.index("P1");
+
+    assertThat(underTest.projectRequests).containsExactly("P1@100", "P1@2000");
+  }
+
+  @Test
+  public void global_indexing_skips_documents_of_indexed_projects() {
+    // P2 is committed before P1 but indexed after it
+    underTest.updatedAtByProject.put("P1", 2000L);
+    underTest.updatedAtByProject.put("P2", 1000L);
+
+    underTest.index("P1");
+    underTest.index();
+    underTest.index("P2");
+
+    // documents of P2 are indexed since its own date
+    assertThat(underTest.projectRequests).containsExactly("P1@100", "P2@100");
+    assertThat(underTest.globalRequests).containsExactly(2000L);
+  }
+
+  @Test
+  public void global_date_is_not_moved_forward_while_a_project_is_being_indexed() {
+    underTest.updatedAtByProject.put("P1", 1000L);
+    underTest.updatedAtByProject.put("P2", 2000L);
+    underTest.onProjectIndexing = new Runnable() {
+      @Override
+      public void run() {
+        underTest.onProjectIndexing = null;
+        // P1 is being indexed
+        underTest.index("P2");
+        underTest.index();
+      }
+    };
+
+    underTest.index("P1");
+    underTest.index();
+
+    assertThat(underTest.projectRequests).containsExactly("P1@100", "P2@100");
+    assertThat(underTest.globalRequests).containsExactly(100L, 2000L);
+  }
+
+  @Test
+  public void do_nothing_if_disabled() {
+    underTest.setEnabled(false);
+
+    underTest.index("P1");
+    underTest.index();
+
+    assertThat(underTest.projectRequests).isEmpty();
+    assertThat(underTest.globalRequests).isEmpty();
+  }
+
+  private static class FakeIndexer extends BaseIndexer {
+    private final Map<String, Long> updatedAtByProject = new HashMap<>();
+    private final List<String> projectRequests = new ArrayList<>();
+    private final List<Long> globalRequests = new ArrayList<>();
+    private Runnable onProjectIndexing;
+
+    FakeIndexer(EsClient client) {
+      super(client, 0L, "fake", "doc", "updatedAt");
+    }
+
+    void index(final String projectUuid) {
+      index(projectUuid, new IndexerTask() {
+        @Override
+        public long index(long lastUpdatedAt) {
+          projectRequests.add(projectUuid + "@" + lastUpdatedAt);
+          if (onProjectIndexing != null) {
+            onProjectIndexing.run();
+          }
+          return updatedAtByProject.get(projectUuid);
+        }
+      });
+    }
+
+    @Override
+    protected long doIndex(long lastUpdatedAt) {
+      // documents of projects are indexed through index(String)
+      globalRequests.add(lastUpdatedAt);
+      return 0L;
+    }
+  }
+}
@@ -20,7 +20,6 @@
 package org.sonar.server.issue;
 
 import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.Iterators;
 import com.google.common.collect.Sets;
 import java.util.Arrays;
 import java.util.Date;
@@ -45,6 +44,7 @@ import org.sonar.core.issue.workflow.Transition;
 import org.sonar.core.permission.GlobalPermissions;
 import org.sonar.core.persistence.DbSession;
 import org.sonar.core.rule.RuleDto;
+import org.sonar.core.source.db.FileSourceDto;
 import org.sonar.core.user.GroupDto;
 import org.sonar.core.user.UserDto;
 import org.sonar.server.component.ComponentTesting;
@@ -62,10 +62,8 @@ import org.sonar.server.permission.InternalPermissionService;
 import org.sonar.server.permission.PermissionChange;
 import org.sonar.server.rule.RuleTesting;
 import org.sonar.server.rule.db.RuleDao;
+import org.sonar.server.source.db.FileSourceDao;
 import org.sonar.server.source.db.FileSourceDb;
-import org.sonar.server.source.index.FileSourcesUpdaterHelper;
-import org.sonar.server.source.index.SourceLineIndexer;
-import org.sonar.server.source.index.SourceLineResultSetIterator;
 import org.sonar.server.tester.ServerTester;
 import org.sonar.server.tester.UserSessionRule;
 import org.sonar.server.user.NewUser;
@@ -600,8 +598,15 @@ public class IssueServiceMediumTest {
       .setLine(line)
       .setScmAuthor(scmAuthor)
       .build();
-    FileSourcesUpdaterHelper.Row row = SourceLineResultSetIterator.toRow(file.projectUuid(), file.uuid(), new Date(), dataBuilder.build());
-    tester.get(SourceLineIndexer.class).index(Iterators.singletonIterator(row));
+    tester.get(FileSourceDao.class).insert(session, new FileSourceDto()
+      .setProjectUuid(file.projectUuid())
+      .setFileUuid(file.uuid())
+      .setDataType(FileSourceDto.Type.SOURCE)
+      .setSourceData(dataBuilder.build())
+      .setDataHash("DATA_HASH")
+      .setCreatedAt(new Date().getTime())
+      .setUpdatedAt(new Date().getTime()));
+    session.commit();
   }
 
   private void newUser(String login) {
@@ -96,6 +96,20 @@ public class IssueIndexerTest {
     assertThat(esTester.countDocuments("issues", "issue")).isZero();
   }
 
+  @Test
+  public void index_project() {
+    dbTester.prepareDbUnit(getClass(), "index.xml");
+
+    IssueIndexer indexer = createIndexer();
+    indexer.index("OTHER_PROJECT");
+    assertThat(esTester.countDocuments("issues", "issue")).isZero();
+
+    indexer.index("THE_PROJECT");
+    List<IssueDoc> docs = esTester.getDocuments("issues", "issue", IssueDoc.class);
+    assertThat(docs).hasSize(1);
+    assertThat(docs.get(0).projectUuid()).isEqualTo("THE_PROJECT");
+  }
+
   private IssueIndexer createIndexer() {
     IssueIndexer indexer = new IssueIndexer(new DbClient(dbTester.database(), dbTester.myBatis()), esTester.client());
     indexer.setEnabled(true);
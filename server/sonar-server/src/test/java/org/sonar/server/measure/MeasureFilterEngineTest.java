@@ -39,7 +39,7 @@ public class MeasureFilterEngineTest {
     when(factory.create(filterMap)).thenReturn(filter);
     MeasureFilterExecutor executor = mock(MeasureFilterExecutor.class);
 
-    MeasureFilterEngine engine = new MeasureFilterEngine(factory, executor);
+    MeasureFilterEngine engine = new MeasureFilterEngine(factory, executor, mock(MeasureFilterIndexExecutor.class));
 
     final long userId = 50L;
     engine.execute(filterMap, userId);
@@ -54,6 +54,23 @@ public class MeasureFilterEngineTest {
     }));
   }
 
+  @Test
+  public void execute_filter_with_index_when_supported() throws Exception {
+    Map<String, Object> filterMap = ImmutableMap.of("qualifiers", (Object) "TRK");
+    MeasureFilterFactory factory = mock(MeasureFilterFactory.class);
+    MeasureFilter filter = new MeasureFilter();
+    when(factory.create(filterMap)).thenReturn(filter);
+    MeasureFilterExecutor executor = mock(MeasureFilterExecutor.class);
+    MeasureFilterIndexExecutor indexExecutor = mock(MeasureFilterIndexExecutor.class);
+    when(indexExecutor.accept(filter)).thenReturn(true);
+
+    MeasureFilterEngine engine = new MeasureFilterEngine(factory, executor, indexExecutor);
+    engine.execute(filterMap, 50L);
+
+    verify(indexExecutor).execute(refEq(filter), any(MeasureFilterContext.class));
+    verifyZeroInteractions(executor);
+  }
+
   @Test
   public void keep_error_but_do_not_fail() {
     Map<String, Object> filterMap = ImmutableMap.of("qualifiers", (Object) "TRK");
@@ -61,7 +78,7 @@ public class MeasureFilterEngineTest {
     when(factory.create(filterMap)).thenThrow(new IllegalArgumentException());
     MeasureFilterExecutor executor = mock(MeasureFilterExecutor.class);
 
-    MeasureFilterEngine engine = new MeasureFilterEngine(factory, executor);
+    MeasureFilterEngine engine = new MeasureFilterEngine(factory, executor, mock(MeasureFilterIndexExecutor.class));
     MeasureFilterResult result = engine.execute(filterMap, 50L);
 
     assertThat(result.isSuccess()).isFalse();
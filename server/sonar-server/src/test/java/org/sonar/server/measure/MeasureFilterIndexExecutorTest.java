@@ -0,0 +1,224 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2014 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.measure;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.sonar.api.config.Settings;
+import org.sonar.api.measures.CoreMetrics;
+import org.sonar.api.measures.Metric;
+import org.sonar.server.es.EsTester;
+import org.sonar.server.measure.index.ProjectMeasuresDoc;
+import org.sonar.server.measure.index.ProjectMeasuresIndex;
+import org.sonar.server.measure.index.ProjectMeasuresIndexDefinition;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MeasureFilterIndexExecutorTest {
+
+  private static final Metric METRIC_LINES = new Metric.Builder("lines", "Lines", Metric.ValueType.INT).create().setId(1);
+  private static final Metric METRIC_ALERT = new Metric.Builder(CoreMetrics.ALERT_STATUS_KEY, "Alert", Metric.ValueType.LEVEL).create().setId(2);
+  private static final Metric METRIC_PROFILE = new Metric.Builder("profile", "Profile", Metric.ValueType.STRING).create().setId(3);
+
+  private static final Double[] NO_VARIATIONS = new Double[0];
+
+  @ClassRule
+  public static EsTester esTester = new EsTester().addDefinitions(new ProjectMeasuresIndexDefinition(new Settings()));
+
+  Settings settings = new Settings();
+  MeasureFilterIndexExecutor executor;
+
+  @Before
+  public void setUp() throws Exception {
+    esTester.truncateIndices();
+    esTester.putDocuments(ProjectMeasuresIndexDefinition.INDEX, ProjectMeasuresIndexDefinition.TYPE,
+      newDoc(10L, 1L, 1L, "TRK", "java", "Java project", 1000L)
+        .addMeasure(1, 500d, null, new Double[] {50d, null})
+        .addMeasure(2, null, "OK", NO_VARIATIONS)
+        .addMeasure(3, null, "Sonar way", NO_VARIATIONS),
+      newDoc(20L, 2L, 1L, "BRC", "java:module", "Java module", 1000L)
+        .addMeasure(1, 200d, null, new Double[] {10d, null}),
+      newDoc(30L, 3L, 3L, "TRK", "php", "php project", 2000L)
+        .addMeasure(1, 1000d, null, new Double[] {-20d, null})
+        .addMeasure(2, null, "ERROR", NO_VARIATIONS),
+      newDoc(40L, 4L, 4L, "TRK", "empty", "Empty project", 3000L));
+    executor = new MeasureFilterIndexExecutor(new ProjectMeasuresIndex(esTester.client()), settings);
+  }
+
+  @Test
+  public void accept_filters_on_projects_and_modules() {
+    assertThat(executor.accept(new MeasureFilter().setResourceQualifiers(Arrays.asList("TRK")))).isTrue();
+    assertThat(executor.accept(new MeasureFilter().setResourceQualifiers(Arrays.asList("TRK", "BRC")).setResourceScopes(Arrays.asList("PRJ")))).isTrue();
+    assertThat(executor.accept(new MeasureFilter().setResourceQualifiers(Arrays.asList("TRK")).setSortOnMetric(METRIC_LINES).setSortOnPeriod(1))).isTrue();
+  }
+
+  @Test
+  public void do_not_accept_other_filters() {
+    assertThat(executor.accept(new MeasureFilter())).isFalse();
+    assertThat(executor.accept(new MeasureFilter().setResourceQualifiers(Arrays.asList("TRK", "FIL")))).isFalse();
+    assertThat(executor.accept(new MeasureFilter().setResourceScopes(Arrays.asList("PRJ")))).isFalse();
+    assertThat(executor.accept(new MeasureFilter().setResourceQualifiers(Arrays.asList("TRK")).setResourceScopes(Arrays.asList("FIL")))).isFalse();
+    assertThat(executor.accept(new MeasureFilter().setResourceQualifiers(Arrays.asList("TRK")).setBaseResourceKey("java"))).isFalse();
+    assertThat(executor.accept(new MeasureFilter().setResourceQualifiers(Arrays.asList("TRK")).setUserFavourites(true))).isFalse();
+    assertThat(executor.accept(new MeasureFilter().setResourceQualifiers(Arrays.asList("TRK")).setResourceName("java"))).isFalse();
+    assertThat(executor.accept(new MeasureFilter().setResourceQualifiers(Arrays.asList("TRK")).setResourceKey("java"))).isFalse();
+  }
+
+  @Test
+  public void do_not_accept_filters_if_indexes_are_disabled() {
+    settings.setProperty("sonar.internal.es.disableIndexes", true);
+
+    assertThat(executor.accept(new MeasureFilter().setResourceQualifiers(Arrays.asList("TRK")))).isFalse();
+  }
+
+  @Test
+  public void filter_on_qualifiers_and_sort_by_name() {
+    MeasureFilter filter = new MeasureFilter().setResourceQualifiers(Arrays.asList("TRK"));
+
+    List<MeasureFilterRow> rows = executor.execute(filter, new MeasureFilterContext());
+
+    // case-insensitive sort
+    assertThat(snapshotIds(rows)).containsExactly(40L, 10L, 30L);
+    assertThat(rows.get(1).getResourceId()).isEqualTo(1L);
+    assertThat(rows.get(1).getResourceRootId()).isEqualTo(1L);
+  }
+
+  @Test
+  public void filter_on_measure_value() {
+    MeasureFilter filter = new MeasureFilter().setResourceQualifiers(Arrays.asList("TRK", "BRC"))
+      .addCondition(new MeasureFilterCondition(METRIC_LINES, MeasureFilterCondition.Operator.GREATER_OR_EQUALS, 500d));
+
+    assertThat(snapshotIds(executor.execute(filter, new MeasureFilterContext()))).containsExactly(10L, 30L);
+  }
+
+  @Test
+  public void filter_on_measure_variation() {
+    MeasureFilter filter = new MeasureFilter().setResourceQualifiers(Arrays.asList("TRK", "BRC"))
+      .addCondition(new MeasureFilterCondition(METRIC_LINES, MeasureFilterCondition.Operator.GREATER, 0d).setPeriod(1));
+
+    assertThat(snapshotIds(executor.execute(filter, new MeasureFilterContext()))).containsExactly(20L, 10L);
+  }
+
+  @Test
+  public void filter_on_many_conditions() {
+    MeasureFilter filter = new MeasureFilter().setResourceQualifiers(Arrays.asList("TRK"))
+      .addCondition(new MeasureFilterCondition(METRIC_LINES, MeasureFilterCondition.Operator.LESS, 2000d))
+      .addCondition(new MeasureFilterCondition(METRIC_ALERT, MeasureFilterCondition.Operator.IN, "('ERROR', 'WARN')"));
+
+    assertThat(snapshotIds(executor.execute(filter, new MeasureFilterContext()))).containsExactly(30L);
+  }
+
+  @Test
+  public void filter_on_analysis_date() {
+    MeasureFilter filter = new MeasureFilter().setResourceQualifiers(Arrays.asList("TRK"))
+      .setFromDate(new Date(1500L))
+      .setToDate(new Date(2500L));
+
+    assertThat(snapshotIds(executor.execute(filter, new MeasureFilterContext()))).containsExactly(30L);
+  }
+
+  @Test
+  public void sort_by_numeric_measure() {
+    MeasureFilter filter = new MeasureFilter().setResourceQualifiers(Arrays.asList("TRK"))
+      .setSortOnMetric(METRIC_LINES).setSortAsc(false);
+
+    // projects without measure are last
+    assertThat(snapshotIds(executor.execute(filter, new MeasureFilterContext()))).containsExactly(30L, 10L, 40L);
+  }
+
+  @Test
+  public void sort_by_variation() {
+    MeasureFilter filter = new MeasureFilter().setResourceQualifiers(Arrays.asList("TRK", "BRC"))
+      .setSortOnMetric(METRIC_LINES).setSortOnPeriod(1);
+
+    assertThat(snapshotIds(executor.execute(filter, new MeasureFilterContext()))).containsExactly(30L, 20L, 10L, 40L);
+  }
+
+  @Test
+  public void sort_by_alert() {
+    MeasureFilter filter = new MeasureFilter().setResourceQualifiers(Arrays.asList("TRK"))
+      .setSortOnMetric(METRIC_ALERT);
+
+    assertThat(snapshotIds(executor.execute(filter, new MeasureFilterContext()))).containsExactly(40L, 10L, 30L);
+  }
+
+  @Test
+  public void sort_by_text_measure() {
+    MeasureFilter filter = new MeasureFilter().setResourceQualifiers(Arrays.asList("TRK"))
+      .setSortOnMetric(METRIC_PROFILE).setSortAsc(false);
+
+    assertThat(snapshotIds(executor.execute(filter, new MeasureFilterContext())).get(0)).isEqualTo(10L);
+  }
+
+  @Test
+  public void sort_by_analysis_date() {
+    MeasureFilter filter = new MeasureFilter().setResourceQualifiers(Arrays.asList("TRK"))
+      .setSortOn(MeasureFilterSort.Field.DATE).setSortAsc(false);
+
+    assertThat(snapshotIds(executor.execute(filter, new MeasureFilterContext()))).containsExactly(40L, 30L, 10L);
+  }
+
+  @Test
+  public void set_request_in_context() {
+    MeasureFilterContext context = new MeasureFilterContext();
+
+    executor.execute(new MeasureFilter().setResourceQualifiers(Arrays.asList("TRK")), context);
+
+    assertThat(context.getSql()).contains(ProjectMeasuresIndexDefinition.INDEX);
+  }
+
+  @Test
+  public void return_no_rows_if_condition_on_unknown_metric() {
+    MeasureFilter filter = new MeasureFilter().setResourceQualifiers(Arrays.asList("TRK"))
+      .addCondition(new MeasureFilterCondition(null, MeasureFilterCondition.Operator.LESS, 3.0));
+
+    assertThat(executor.execute(filter, new MeasureFilterContext())).isEmpty();
+  }
+
+  private static ProjectMeasuresDoc newDoc(long snapshotId, long componentId, long rootComponentId, String qualifier, String key, String longName,
+    long analysedAt) {
+    return new ProjectMeasuresDoc()
+      .setUuid("uuid-" + componentId)
+      .setProjectUuid("uuid-" + rootComponentId)
+      .setSnapshotId(snapshotId)
+      .setComponentId(componentId)
+      .setRootComponentId(rootComponentId)
+      .setScope("PRJ")
+      .setQualifier(qualifier)
+      .setKey(key)
+      .setName(longName)
+      .setLongName(longName)
+      .setAnalysedAt(analysedAt)
+      .setUpdatedAt(analysedAt);
+  }
+
+  private static List<Long> snapshotIds(List<MeasureFilterRow> rows) {
+    List<Long> ids = new ArrayList<>();
+    for (MeasureFilterRow row : rows) {
+      ids.add(row.getSnapshotId());
+    }
+    return ids;
+  }
+}
@@ -0,0 +1,120 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2014 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.measure.index;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.sonar.api.config.Settings;
+import org.sonar.api.measures.Metric;
+import org.sonar.server.es.EsTester;
+import org.sonar.server.measure.MeasureFilter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ProjectMeasuresIndexTest {
+
+  private static final Metric METRIC_LINES = new Metric.Builder("lines", "Lines", Metric.ValueType.INT).create().setId(1);
+  private static final Metric METRIC_PROFILE = new Metric.Builder("profile", "Profile", Metric.ValueType.STRING).create().setId(3);
+
+  @ClassRule
+  public static EsTester esTester = new EsTester().addDefinitions(new ProjectMeasuresIndexDefinition(new Settings()));
+
+  ProjectMeasuresIndex underTest = new ProjectMeasuresIndex(esTester.client());
+
+  @Before
+  public void setUp() throws Exception {
+    esTester.truncateIndices();
+    esTester.putDocuments(ProjectMeasuresIndexDefinition.INDEX, ProjectMeasuresIndexDefinition.TYPE,
+      newDoc(10L, "java")
+        .addMeasure(1, 500d, null, new Double[] {50d})
+        .addMeasure(2, 10d, null, new Double[0])
+        .addMeasure(3, null, "Sonar way", new Double[0]),
+      newDoc(20L, "php"));
+  }
+
+  @Test
+  public void load_only_identifiers_and_sort_field() {
+    List<ProjectMeasuresDoc> docs = search(newFilter());
+
+    assertThat(docs).hasSize(2);
+    for (ProjectMeasuresDoc doc : docs) {
+      assertThat(doc.getFields().keySet()).containsOnly(ProjectMeasuresIndexDefinition.FIELD_SNAPSHOT_ID, ProjectMeasuresIndexDefinition.FIELD_COMPONENT_ID,
+        ProjectMeasuresIndexDefinition.FIELD_ROOT_COMPONENT_ID, ProjectMeasuresIndexDefinition.FIELD_LONG_NAME);
+    }
+  }
+
+  @Test
+  public void load_only_measure_of_sorted_numeric_metric() {
+    List<ProjectMeasuresDoc> docs = search(newFilter().setSortOnMetric(METRIC_LINES).setSortOnPeriod(1));
+
+    assertThat(docs).hasSize(2);
+    ProjectMeasuresDoc java = docs.get(0);
+    assertThat(java.snapshotId()).isEqualTo(10L);
+    assertThat(java.measures()).hasSize(1);
+    Map<String, Object> measure = java.measure(1);
+    assertThat(measure).containsOnlyKeys(ProjectMeasuresIndexDefinition.FIELD_MEASURE_METRIC_ID, ProjectMeasuresIndexDefinition.variationField(1));
+    assertThat(((Number) measure.get(ProjectMeasuresIndexDefinition.variationField(1))).doubleValue()).isEqualTo(50d);
+    // no measure
+    assertThat(docs.get(1).measures()).isEmpty();
+  }
+
+  @Test
+  public void load_only_measure_of_sorted_text_metric() {
+    List<ProjectMeasuresDoc> docs = search(newFilter().setSortOnMetric(METRIC_PROFILE));
+
+    assertThat(docs).hasSize(2);
+    for (ProjectMeasuresDoc doc : docs) {
+      if (doc.snapshotId() == 10L) {
+        assertThat(doc.measures()).hasSize(1);
+        assertThat(doc.measure(3).get(ProjectMeasuresIndexDefinition.FIELD_MEASURE_TEXT_VALUE)).isEqualTo("Sonar way");
+      } else {
+        assertThat(doc.measures()).isEmpty();
+      }
+    }
+  }
+
+  private List<ProjectMeasuresDoc> search(MeasureFilter filter) {
+    return underTest.search(underTest.prepareSearch(filter), filter.sort());
+  }
+
+  private static MeasureFilter newFilter() {
+    return new MeasureFilter().setResourceQualifiers(Arrays.asList("TRK"));
+  }
+
+  private static ProjectMeasuresDoc newDoc(long snapshotId, String key) {
+    return new ProjectMeasuresDoc()
+      .setUuid("uuid-" + snapshotId)
+      .setProjectUuid("uuid-" + snapshotId)
+      .setSnapshotId(snapshotId)
+      .setComponentId(snapshotId)
+      .setRootComponentId(snapshotId)
+      .setScope("PRJ")
+      .setQualifier("TRK")
+      .setKey(key)
+      .setName(key)
+      .setLongName(key)
+      .setAnalysedAt(1000L)
+      .setUpdatedAt(1000L);
+  }
+}
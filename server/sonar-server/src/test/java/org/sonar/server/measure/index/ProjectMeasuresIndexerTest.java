@@ -0,0 +1,160 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2014 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.measure.index;
+
+import java.util.List;
+import java.util.Map;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.sonar.api.config.Settings;
+import org.sonar.core.persistence.DbTester;
+import org.sonar.server.db.DbClient;
+import org.sonar.server.es.EsTester;
+import org.sonar.test.DbTests;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.FIELD_MEASURE_TEXT_VALUE;
+import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.FIELD_MEASURE_VALUE;
+import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.FIELD_UUID;
+import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.INDEX;
+import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.TYPE;
+import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.variationField;
+
+@Category(DbTests.class)
+public class ProjectMeasuresIndexerTest {
+
+  @ClassRule
+  public static DbTester dbTester = new DbTester();
+
+  @ClassRule
+  public static EsTester esTester = new EsTester().addDefinitions(new ProjectMeasuresIndexDefinition(new Settings()));
+
+  @Before
+  public void setUp() {
+    dbTester.truncateTables();
+    esTester.truncateIndices();
+  }
+
+  @Test
+  public void index_nothing() {
+    createIndexer().index();
+
+    assertThat(esTester.countDocuments(INDEX, TYPE)).isEqualTo(0L);
+  }
+
+  @Test
+  public void index_last_snapshots_of_projects_and_modules() {
+    dbTester.prepareDbUnit(getClass(), "index.xml");
+
+    createIndexer().index();
+
+    assertThat(esTester.getDocumentFieldValues(INDEX, TYPE, FIELD_UUID)).containsOnly("ABCD", "BCDE", "EFGH");
+
+    ProjectMeasuresDoc project = getDocument("ABCD");
+    assertThat(project.projectUuid()).isEqualTo("ABCD");
+    assertThat(project.snapshotId()).isEqualTo(101L);
+    assertThat(project.componentId()).isEqualTo(1L);
+    assertThat(project.rootComponentId()).isEqualTo(1L);
+    assertThat(project.scope()).isEqualTo("PRJ");
+    assertThat(project.qualifier()).isEqualTo("TRK");
+    assertThat(project.key()).isEqualTo("java_project");
+    assertThat(project.name()).isEqualTo("Java project");
+    assertThat(project.longName()).isEqualTo("Java project");
+    assertThat(project.description()).isEqualTo("Java project description");
+    assertThat(project.version()).isEqualTo("1.0");
+    assertThat(project.analysedAt()).isEqualTo(1229727600000L);
+    assertThat(project.createdAt()).isNotNull();
+    assertThat(project.updatedAt()).isEqualTo(1300000000000L);
+
+    // measure on rule is ignored
+    assertThat(project.measures()).hasSize(2);
+    Map<String, Object> lines = project.measure(1);
+    assertThat(((Number) lines.get(FIELD_MEASURE_VALUE)).doubleValue()).isEqualTo(510d);
+    assertThat(((Number) lines.get(variationField(1))).doubleValue()).isEqualTo(110d);
+    assertThat(lines.get(variationField(2))).isNull();
+    assertThat(project.measure(2).get(FIELD_MEASURE_TEXT_VALUE)).isEqualTo("OK");
+
+    ProjectMeasuresDoc module = getDocument("BCDE");
+    assertThat(module.projectUuid()).isEqualTo("ABCD");
+    assertThat(module.qualifier()).isEqualTo("BRC");
+    assertThat(module.rootComponentId()).isEqualTo(1L);
+    assertThat(module.measures()).hasSize(1);
+
+    assertThat(getDocument("EFGH").measures()).isEmpty();
+  }
+
+  @Test
+  public void index_project() {
+    dbTester.prepareDbUnit(getClass(), "index.xml");
+
+    createIndexer().index("ABCD");
+
+    assertThat(esTester.getDocumentFieldValues(INDEX, TYPE, FIELD_UUID)).containsOnly("ABCD", "BCDE");
+  }
+
+  @Test
+  public void index_project_removes_documents_of_deleted_modules() throws Exception {
+    dbTester.prepareDbUnit(getClass(), "index.xml");
+    esTester.putDocuments(INDEX, TYPE, new ProjectMeasuresDoc().setUuid("OLD_MODULE").setProjectUuid("ABCD"));
+
+    createIndexer().index("ABCD");
+
+    assertThat(esTester.getDocumentFieldValues(INDEX, TYPE, FIELD_UUID)).containsOnly("ABCD", "BCDE");
+  }
+
+  @Test
+  public void delete_project() throws Exception {
+    esTester.putDocuments(INDEX, TYPE,
+      new ProjectMeasuresDoc().setUuid("ABCD").setProjectUuid("ABCD"),
+      new ProjectMeasuresDoc().setUuid("BCDE").setProjectUuid("ABCD"),
+      new ProjectMeasuresDoc().setUuid("EFGH").setProjectUuid("EFGH"));
+
+    createIndexer().deleteProject("ABCD");
+
+    assertThat(esTester.getDocumentFieldValues(INDEX, TYPE, FIELD_UUID)).containsOnly("EFGH");
+  }
+
+  @Test
+  public void do_nothing_if_disabled() {
+    dbTester.prepareDbUnit(getClass(), "index.xml");
+
+    createIndexer().setEnabled(false).index();
+
+    assertThat(esTester.countDocuments(INDEX, TYPE)).isEqualTo(0L);
+  }
+
+  private ProjectMeasuresDoc getDocument(String uuid) {
+    List<ProjectMeasuresDoc> docs = esTester.getDocuments(INDEX, TYPE, ProjectMeasuresDoc.class);
+    for (ProjectMeasuresDoc doc : docs) {
+      if (uuid.equals(doc.uuid())) {
+        return doc;
+      }
+    }
+    throw new IllegalStateException("Document not found: " + uuid);
+  }
+
+  private ProjectMeasuresIndexer createIndexer() {
+    ProjectMeasuresIndexer indexer = new ProjectMeasuresIndexer(new DbClient(dbTester.database(), dbTester.myBatis()), esTester.client());
+    indexer.setEnabled(true);
+    return indexer;
+  }
+}
@@ -24,6 +24,7 @@ import com.google.common.collect.Multimap;
 import java.io.InvalidClassException;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import org.junit.Before;
@@ -41,6 +42,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.only;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
@@ -99,13 +101,36 @@ public class DefaultNotificationManagerTest {
     List<NotificationQueueDto> dtos = Arrays.asList(dto);
     when(notificationQueueDao.findOldest(1)).thenReturn(dtos);
 
-    assertThat(manager.getFromQueue()).isNotNull();
+    assertThat(manager.getFromQueue(1)).hasSize(1);
 
     InOrder inOrder = inOrder(notificationQueueDao);
     inOrder.verify(notificationQueueDao).findOldest(1);
     inOrder.verify(notificationQueueDao).delete(dtos);
   }
 
+  @Test
+  public void shouldGetBatchFromQueue() {
+    List<NotificationQueueDto> dtos = Arrays.asList(
+      NotificationQueueDto.toNotificationQueueDto(new Notification("test1")),
+      NotificationQueueDto.toNotificationQueueDto(new Notification("test2")));
+    when(notificationQueueDao.findOldest(10)).thenReturn(dtos);
+
+    List<Notification> notifications = manager.getFromQueue(10);
+
+    assertThat(notifications).hasSize(2);
+    assertThat(notifications.get(0).getType()).isEqualTo("test1");
+    assertThat(notifications.get(1).getType()).isEqualTo("test2");
+    verify(notificationQueueDao, times(1)).delete(dtos);
+  }
+
+  @Test
+  public void shouldGetEmptyQueue() {
+    when(notificationQueueDao.findOldest(10)).thenReturn(Collections.<NotificationQueueDto>emptyList());
+
+    assertThat(manager.getFromQueue(10)).isEmpty();
+    verify(notificationQueueDao, never()).delete(any(List.class));
+  }
+
   // SONAR-4739
   @Test
   public void shouldNotFailWhenUnableToDeserialize() throws Exception {
@@ -115,8 +140,8 @@ public class DefaultNotificationManagerTest {
     when(notificationQueueDao.findOldest(1)).thenReturn(dtos);
 
     manager = spy(manager);
-    assertThat(manager.getFromQueue()).isNull();
-    assertThat(manager.getFromQueue()).isNull();
+    assertThat(manager.getFromQueue(1)).isEmpty();
+    assertThat(manager.getFromQueue(1)).isEmpty();
 
     verify(manager, times(1)).logDeserializationIssue();
   }
@@ -175,4 +200,18 @@ public class DefaultNotificationManagerTest {
     assertThat(map.get("user2")).containsOnly(emailChannel, twitterChannel);
     assertThat(map.get("other")).isNull();
   }
+
+  @Test
+  public void cache_subscribers_until_stopped() {
+    when(propertiesDao.findNotificationSubscribers("NewViolations", "Email", "struts")).thenReturn(Lists.newArrayList("user1"));
+
+    manager.startCachingSubscribers();
+    assertThat(manager.findNotificationSubscribers(dispatcher, "struts").keySet()).containsOnly("user1");
+    assertThat(manager.findNotificationSubscribers(dispatcher, "struts").keySet()).containsOnly("user1");
+    verify(propertiesDao, times(1)).findNotificationSubscribers("NewViolations", "Email", "struts");
+
+    manager.stopCachingSubscribers();
+    manager.findNotificationSubscribers(dispatcher, "struts");
+    verify(propertiesDao, times(2)).findNotificationSubscribers("NewViolations", "Email", "struts");
+  }
 }
@@ -21,7 +21,9 @@ package org.sonar.server.notification;
 
 import com.google.common.collect.Sets;
 import java.util.Arrays;
+import java.util.Collections;
 import org.junit.Test;
+import org.mockito.InOrder;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 import org.sonar.api.config.Settings;
@@ -29,11 +31,14 @@ import org.sonar.api.notifications.Notification;
 import org.sonar.api.notifications.NotificationChannel;
 import org.sonar.core.properties.PropertiesDao;
 import org.sonar.server.db.DbClient;
+import org.sonar.server.notification.email.EmailNotificationChannel;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyInt;
 import static org.mockito.Mockito.anyString;
 import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.same;
@@ -67,7 +72,7 @@ public class NotificationServiceTest {
     when(commentOnIssueCreatedByMe.getType()).thenReturn("issue-changes");
     when(qualityGateChange.getKey()).thenReturn("QGateChange");
     when(qualityGateChange.getType()).thenReturn("qgate-changes");
-    when(manager.getFromQueue()).thenReturn(notification).thenReturn(null);
+    when(manager.getFromQueue(anyInt())).thenReturn(Arrays.asList(notification)).thenReturn(Collections.<Notification>emptyList());
 
     Settings settings = new Settings().setProperty("sonar.notifications.delay", 1L);
 
@@ -175,7 +180,8 @@ public class NotificationServiceTest {
   @Test
   public void shouldNotStopWhenException() {
     setUpMocks();
-    when(manager.getFromQueue()).thenThrow(new RuntimeException("Unexpected exception")).thenReturn(notification).thenReturn(null);
+    when(manager.getFromQueue(anyInt())).thenThrow(new RuntimeException("Unexpected exception")).thenReturn(Arrays.asList(notification))
+      .thenReturn(Collections.<Notification>emptyList());
     doAnswer(addUser(ASSIGNEE_SIMON, emailChannel)).when(commentOnIssueAssignedToMe).dispatch(same(notification), any(NotificationDispatcher.Context.class));
     doAnswer(addUser(CREATOR_SIMON, emailChannel)).when(commentOnIssueCreatedByMe).dispatch(same(notification), any(NotificationDispatcher.Context.class));
 
@@ -217,7 +223,8 @@ public class NotificationServiceTest {
   public void shouldLogEvery10Minutes() {
     setUpMocks();
     // Emulate 2 notifications in DB
-    when(manager.getFromQueue()).thenReturn(notification).thenReturn(notification).thenReturn(null);
+    when(manager.getFromQueue(anyInt())).thenReturn(Arrays.asList(notification)).thenReturn(Arrays.asList(notification))
+      .thenReturn(Collections.<Notification>emptyList());
     when(manager.count()).thenReturn(1L).thenReturn(0L);
     service = spy(service);
     // Emulate processing of each notification take 10 min to have a log each time
@@ -228,6 +235,61 @@ public class NotificationServiceTest {
     service.stop();
   }
 
+  @Test
+  public void deliver_batch_of_notifications() {
+    setUpMocks();
+    Notification otherNotification = mock(Notification.class);
+    doAnswer(addUser(ASSIGNEE_SIMON, emailChannel)).when(commentOnIssueAssignedToMe).dispatch(any(Notification.class), any(NotificationDispatcher.Context.class));
+
+    service.deliver(Arrays.asList(notification, otherNotification));
+
+    verify(emailChannel).deliver(notification, ASSIGNEE_SIMON);
+    verify(emailChannel).deliver(otherNotification, ASSIGNEE_SIMON);
+    InOrder inOrder = inOrder(manager);
+    inOrder.verify(manager).startCachingSubscribers();
+    inOrder.verify(manager).stopCachingSubscribers();
+  }
+
+  @Test
+  public void deliver_emails_with_pool_of_threads() {
+    setUpMocks();
+    EmailNotificationChannel emailNotificationChannel = mock(EmailNotificationChannel.class);
+    doAnswer(addUser(ASSIGNEE_SIMON, emailNotificationChannel)).when(commentOnIssueAssignedToMe).dispatch(same(notification), any(NotificationDispatcher.Context.class));
+
+    service.deliver(notification);
+
+    // delivery is finished when method returns
+    verify(emailNotificationChannel).deliver(notification, ASSIGNEE_SIMON);
+  }
+
+  @Test
+  public void put_back_undelivered_notifications_in_queue_when_stopping() {
+    setUpMocks();
+    service.start();
+    service.stop();
+    Notification otherNotification = mock(Notification.class);
+    when(manager.getFromQueue(anyInt())).thenReturn(Arrays.asList(notification, otherNotification));
+    doAnswer(addUser(ASSIGNEE_SIMON, emailChannel)).when(commentOnIssueAssignedToMe).dispatch(any(Notification.class), any(NotificationDispatcher.Context.class));
+
+    service.processQueue();
+
+    verify(emailChannel, never()).deliver(any(Notification.class), anyString());
+    verify(manager).scheduleForSending(Arrays.asList(notification, otherNotification));
+  }
+
+  @Test
+  public void deliver_emails_on_calling_thread_when_stopped() {
+    setUpMocks();
+    service.start();
+    service.stop();
+    EmailNotificationChannel emailNotificationChannel = mock(EmailNotificationChannel.class);
+    doAnswer(addUser(ASSIGNEE_SIMON, emailNotificationChannel)).when(commentOnIssueAssignedToMe).dispatch(same(notification), any(NotificationDispatcher.Context.class));
+
+    service.deliver(notification);
+
+    verify(emailNotificationChannel).deliver(notification, ASSIGNEE_SIMON);
+  }
+
   @Test
   public void hasProjectSubscribersForType() {
     setUpMocks();
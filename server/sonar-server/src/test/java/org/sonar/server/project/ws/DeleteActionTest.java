@@ -57,6 +57,9 @@ import org.sonar.server.issue.db.IssueDao;
 import org.sonar.server.issue.index.IssueAuthorizationIndexer;
 import org.sonar.server.issue.index.IssueIndexDefinition;
 import org.sonar.server.issue.index.IssueIndexer;
+import org.sonar.server.measure.index.ProjectMeasuresDoc;
+import org.sonar.server.measure.index.ProjectMeasuresIndexDefinition;
+import org.sonar.server.measure.index.ProjectMeasuresIndexer;
 import org.sonar.server.rule.RuleTesting;
 import org.sonar.server.rule.db.RuleDao;
 import org.sonar.server.source.index.SourceLineDoc;
@@ -84,7 +87,7 @@ public class DeleteActionTest {
   public static DbTester db = new DbTester();
   @ClassRule
   public static EsTester es = new EsTester().addDefinitions(new IssueIndexDefinition(new Settings()), new SourceLineIndexDefinition(new Settings()),
-    new TestIndexDefinition(new Settings()));
+    new TestIndexDefinition(new Settings()), new ProjectMeasuresIndexDefinition(new Settings()));
   @Rule
   public UserSessionRule userSessionRule = UserSessionRule.standalone();
   @Rule
@@ -106,7 +109,8 @@ public class DeleteActionTest {
     ResourceTypes mockResourceTypes = mock(ResourceTypes.class);
     when(mockResourceTypes.get(anyString())).thenReturn(resourceType);
     ws = new WsTester(new ProjectsWs(new DeleteAction(new ComponentCleanerService(dbClient, new IssueAuthorizationIndexer(dbClient, es.client()), new IssueIndexer(
-      dbClient, es.client()), new SourceLineIndexer(dbClient, es.client()), new TestIndexer(dbClient, es.client()), mockResourceTypes), dbClient, userSessionRule)));
+      dbClient, es.client()), new SourceLineIndexer(dbClient, es.client()), new TestIndexer(dbClient, es.client()),
+      new ProjectMeasuresIndexer(dbClient, es.client()), mockResourceTypes), dbClient, userSessionRule)));
     userSessionRule.login("login").setGlobalPermissions(UserRole.ADMIN);
     db.truncateTables();
     es.truncateIndices();
@@ -187,6 +191,8 @@ public class DeleteActionTest {
       .containsOnly(remainingProjectUuid);
     assertThat(es.getDocumentFieldValues(TestIndexDefinition.INDEX, TestIndexDefinition.TYPE, TestIndexDefinition.FIELD_PROJECT_UUID))
       .containsOnly(remainingProjectUuid);
+    assertThat(es.getDocumentFieldValues(ProjectMeasuresIndexDefinition.INDEX, ProjectMeasuresIndexDefinition.TYPE, ProjectMeasuresIndexDefinition.FIELD_PROJECT_UUID))
+      .containsOnly(remainingProjectUuid);
   }
 
   @Test
@@ -259,6 +265,8 @@ public class DeleteActionTest {
     es.putDocuments(SourceLineIndexDefinition.INDEX, SourceLineIndexDefinition.TYPE, sourceLineDoc);
     TestDoc testDoc = new TestDoc().setUuid("test-uuid-" + suffix).setProjectUuid(project.uuid()).setFileUuid(project.uuid());
     es.putDocuments(TestIndexDefinition.INDEX, TestIndexDefinition.TYPE, testDoc);
+    ProjectMeasuresDoc projectMeasuresDoc = new ProjectMeasuresDoc().setUuid(project.uuid()).setProjectUuid(project.uuid());
+    es.putDocuments(ProjectMeasuresIndexDefinition.INDEX, ProjectMeasuresIndexDefinition.TYPE, projectMeasuresDoc);
   }
 
   private WsTester.TestRequest newRequest() {
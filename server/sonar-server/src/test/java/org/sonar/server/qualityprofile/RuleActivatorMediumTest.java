@@ -874,6 +874,22 @@ public class RuleActivatorMediumTest {
 
   }
 
+  @Test
+  public void bulk_activation_propagates_to_child_profiles() {
+    createChildProfiles();
+
+    // -> xoo rules x1, x2 and custom1 are activated on P1, then inherited by P2 and P3
+    BulkChangeResult result = ruleActivator.bulkActivate(new RuleQuery(), XOO_P1_KEY, "MINOR");
+
+    dbSession.clearCache();
+    assertThat(result.countSucceeded()).isEqualTo(3);
+    assertThat(result.getChanges()).hasSize(9);
+    assertThat(countActiveRules(XOO_P1_KEY)).isEqualTo(3);
+    assertThat(countActiveRules(XOO_P2_KEY)).isEqualTo(3);
+    assertThat(countActiveRules(XOO_P3_KEY)).isEqualTo(3);
+    verifyHasActiveRule(XOO_P3_KEY, RuleTesting.XOO_X1, Severity.MINOR, ActiveRuleDto.INHERITED, ImmutableMap.of("max", "10"));
+  }
+
   @Test
   public void set_and_unset_parent_profile() {
     // x1 is activated on the "future parent" P1
@@ -37,6 +37,7 @@ import org.sonar.core.qualityprofile.db.QualityProfileDao;
 import org.sonar.core.rule.RuleDto;
 import org.sonar.core.rule.RuleParamDto;
 import org.sonar.core.technicaldebt.db.CharacteristicDao;
+import org.sonar.core.template.LoadedTemplateDao;
 import org.sonar.server.db.DbClient;
 import org.sonar.server.qualityprofile.RuleActivator;
 import org.sonar.server.qualityprofile.db.ActiveRuleDao;
@@ -67,7 +68,7 @@ public class RegisterRulesTest extends AbstractDaoTestCase {
     RuleDao ruleDao = new RuleDao(system);
     ActiveRuleDao activeRuleDao = new ActiveRuleDao(new QualityProfileDao(getMyBatis(), system), ruleDao, system);
     dbClient = new DbClient(getDatabase(), getMyBatis(), ruleDao, activeRuleDao,
-      new QualityProfileDao(getMyBatis(), system), new CharacteristicDao(getMyBatis()));
+      new QualityProfileDao(getMyBatis(), system), new CharacteristicDao(getMyBatis()), new LoadedTemplateDao(getMyBatis()));
     dbSession = dbClient.openSession(false);
   }
 
@@ -116,6 +117,27 @@ public class RegisterRulesTest extends AbstractDaoTestCase {
     assertThat(rule1.getUpdatedAt()).isEqualTo(DATE1);
   }
 
+  @Test
+  public void do_not_register_rules_when_definitions_are_unchanged() {
+    execute(new FakeRepositoryV1());
+
+    // db is changed behind the back of registration
+    RuleKey ruleKey1 = RuleKey.of("fake", "rule1");
+    RuleDto rule1 = dbClient.ruleDao().getNullableByKey(dbSession, ruleKey1);
+    rule1.setName("Renamed");
+    dbClient.ruleDao().update(dbSession, rule1);
+    dbSession.commit();
+
+    execute(new FakeRepositoryV1());
+    dbSession.clearCache();
+    assertThat(dbClient.ruleDao().getNullableByKey(dbSession, ruleKey1).getName()).isEqualTo("Renamed");
+
+    // definitions change -> rules are registered again
+    execute(new FakeRepositoryV2());
+    dbSession.clearCache();
+    assertThat(dbClient.ruleDao().getNullableByKey(dbSession, ruleKey1).getName()).isEqualTo("One v2");
+  }
+
   @Test
   public void update_and_remove_rules_on_changes() {
     execute(new FakeRepositoryV1());
@@ -0,0 +1,124 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2014 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.search;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.sonar.api.config.Settings;
+import org.sonar.server.activity.index.ActivityIndexer;
+import org.sonar.server.db.DbClient;
+import org.sonar.server.es.BaseIndexer;
+import org.sonar.server.issue.index.IssueAuthorizationIndexer;
+import org.sonar.server.issue.index.IssueIndexer;
+import org.sonar.server.measure.index.ProjectMeasuresIndexer;
+import org.sonar.server.source.index.SourceLineIndexer;
+import org.sonar.server.test.index.TestIndexer;
+import org.sonar.server.user.index.UserIndexer;
+import org.sonar.server.view.index.ViewIndexer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class IndexSynchronizerTest {
+
+  Settings settings = new Settings();
+  SourceLineIndexer sourceLineIndexer = mockIndexer(SourceLineIndexer.class);
+  TestIndexer testIndexer = mockIndexer(TestIndexer.class);
+  IssueAuthorizationIndexer issueAuthorizationIndexer = mockIndexer(IssueAuthorizationIndexer.class);
+  IssueIndexer issueIndexer = mockIndexer(IssueIndexer.class);
+  UserIndexer userIndexer = mockIndexer(UserIndexer.class);
+  ViewIndexer viewIndexer = mockIndexer(ViewIndexer.class);
+  ActivityIndexer activityIndexer = mockIndexer(ActivityIndexer.class);
+  ProjectMeasuresIndexer projectMeasuresIndexer = mockIndexer(ProjectMeasuresIndexer.class);
+
+  IndexSynchronizer sut;
+
+  @Before
+  public void setUp() {
+    sut = new IndexSynchronizer(mock(DbClient.class), mock(IndexClient.class), sourceLineIndexer, testIndexer, issueAuthorizationIndexer,
+      issueIndexer, userIndexer, viewIndexer, activityIndexer, projectMeasuresIndexer, settings);
+  }
+
+  @Test
+  public void index_all() {
+    settings.setProperty(IndexSynchronizer.THREADS_PROPERTY, 3);
+
+    sut.execute();
+
+    verify(sourceLineIndexer).index();
+    verify(testIndexer).index();
+    verify(userIndexer).index();
+    verify(viewIndexer).index();
+    verify(activityIndexer).index();
+    verify(projectMeasuresIndexer).index();
+    InOrder inOrder = inOrder(issueAuthorizationIndexer, issueIndexer);
+    inOrder.verify(issueAuthorizationIndexer).setEnabled(true);
+    inOrder.verify(issueAuthorizationIndexer).index();
+    inOrder.verify(issueIndexer).setEnabled(true);
+    inOrder.verify(issueIndexer).index();
+  }
+
+  @Test
+  public void do_not_index_when_indexes_are_disabled() {
+    settings.setProperty("sonar.internal.es.disableIndexes", true);
+
+    sut.execute();
+
+    verify(issueIndexer, never()).index();
+    verify(sourceLineIndexer, never()).index();
+  }
+
+  @Test
+  public void propagate_failure_of_indexer() {
+    IllegalStateException failure = new IllegalStateException("Boom");
+    doThrow(failure).when(testIndexer).index();
+
+    try {
+      sut.execute();
+      fail();
+    } catch (IllegalStateException e) {
+      assertThat(e).isSameAs(failure);
+    }
+  }
+
+  @Test
+  public void number_of_threads() {
+    assertThat(IndexSynchronizer.threads(settings)).isEqualTo(IndexSynchronizer.DEFAULT_THREADS);
+
+    settings.setProperty(IndexSynchronizer.THREADS_PROPERTY, 4);
+    assertThat(IndexSynchronizer.threads(settings)).isEqualTo(4);
+
+    settings.setProperty(IndexSynchronizer.THREADS_PROPERTY, 0);
+    assertThat(IndexSynchronizer.threads(settings)).isEqualTo(IndexSynchronizer.DEFAULT_THREADS);
+  }
+
+  private static <T extends BaseIndexer> T mockIndexer(Class<T> indexerClass) {
+    T indexer = mock(indexerClass);
+    when(indexer.setEnabled(true)).thenReturn(indexer);
+    return indexer;
+  }
+}
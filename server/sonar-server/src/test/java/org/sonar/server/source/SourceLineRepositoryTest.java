@@ -0,0 +1,104 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2014 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.source;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.sonar.core.source.db.FileSourceDto;
+import org.sonar.server.db.DbClient;
+import org.sonar.server.source.db.FileSourceDao;
+import org.sonar.server.source.db.FileSourceDb;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class SourceLineRepositoryTest {
+
+  static final String FILE_UUID = "FILE_UUID";
+
+  FileSourceDao dao = mock(FileSourceDao.class);
+  SourceLineRepository sut;
+
+  @Before
+  public void setUp() {
+    DbClient dbClient = mock(DbClient.class);
+    when(dbClient.fileSourceDao()).thenReturn(dao);
+    sut = new SourceLineRepository(dbClient);
+  }
+
+  @Test
+  public void get_lines() {
+    mockSource("HASH", "a", "b", "c", "d");
+
+    assertThat(sut.getLines(FILE_UUID)).extracting("source").containsExactly("a", "b", "c", "d");
+    assertThat(sut.getLines(FILE_UUID, 2, 3)).extracting("source").containsExactly("b", "c");
+    assertThat(sut.getLines(FILE_UUID, 3, Integer.MAX_VALUE)).extracting("source").containsExactly("c", "d");
+    assertThat(sut.getLines(FILE_UUID, 5, 10)).isEmpty();
+    assertThat(sut.getLine(FILE_UUID, 4).getSource()).isEqualTo("d");
+    assertThat(sut.getLine(FILE_UUID, 5)).isNull();
+  }
+
+  @Test
+  public void no_lines_if_file_has_no_sources() {
+    assertThat(sut.getLines(FILE_UUID)).isEmpty();
+    assertThat(sut.getLine(FILE_UUID, 1)).isNull();
+  }
+
+  @Test
+  public void decode_data_once_while_it_is_not_updated() {
+    mockSource("HASH", "a", "b");
+
+    sut.getLines(FILE_UUID);
+    sut.getLines(FILE_UUID, 1, 1);
+    verify(dao, times(1)).selectSource(FILE_UUID);
+
+    mockSource("NEW_HASH", "c");
+    assertThat(sut.getLines(FILE_UUID)).extracting("source").containsExactly("c");
+    verify(dao, times(2)).selectSource(FILE_UUID);
+  }
+
+  @Test
+  public void do_not_cache_files_bigger_than_cache() {
+    DbClient dbClient = mock(DbClient.class);
+    when(dbClient.fileSourceDao()).thenReturn(dao);
+    sut = new SourceLineRepository(dbClient, 1L);
+    mockSource("HASH", "a", "b");
+
+    sut.getLines(FILE_UUID);
+    sut.getLines(FILE_UUID);
+
+    verify(dao, times(2)).selectSource(FILE_UUID);
+  }
+
+  private void mockSource(String dataHash, String... lines) {
+    FileSourceDb.Data.Builder data = FileSourceDb.Data.newBuilder();
+    for (int i = 0; i < lines.length; i++) {
+      data.addLinesBuilder().setLine(i + 1).setSource(lines[i]);
+    }
+    when(dao.selectSourceDataHash(FILE_UUID)).thenReturn(dataHash);
+    when(dao.selectSource(FILE_UUID)).thenReturn(new FileSourceDto()
+      .setFileUuid(FILE_UUID)
+      .setDataHash(dataHash)
+      .setSourceData(data.build()));
+  }
+}
@@ -26,8 +26,7 @@ import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.sonar.server.measure.persistence.MeasureDao;
-import org.sonar.server.source.index.SourceLineDoc;
-import org.sonar.server.source.index.SourceLineIndex;
+import org.sonar.server.source.db.FileSourceDb;
 
 import java.util.Arrays;
 import java.util.List;
@@ -49,19 +48,19 @@ public class SourceServiceTest {
   MeasureDao measureDao;
 
   @Mock
-  SourceLineIndex sourceLineIndex;
+  SourceLineRepository sourceLineRepository;
 
   SourceService service;
 
   @Before
   public void setUp() {
-    service = new SourceService(sourceDecorator, sourceLineIndex);
+    service = new SourceService(sourceDecorator, sourceLineRepository);
   }
 
   @Test
   public void get_html_lines() {
-    when(sourceLineIndex.getLines(COMPONENT_UUID, 1, Integer.MAX_VALUE)).thenReturn(
-      Arrays.asList(new SourceLineDoc().setSource("source").setHighlighting("highlight").setSymbols("symbols")));
+    when(sourceLineRepository.getLines(COMPONENT_UUID, 1, Integer.MAX_VALUE)).thenReturn(
+      Arrays.asList(newLine("source", "highlight", "symbols")));
 
     service.getLinesAsHtml(COMPONENT_UUID, null, null);
 
@@ -71,9 +70,9 @@ public class SourceServiceTest {
   @Test
   public void get_block_of_lines() {
 
-    when(sourceLineIndex.getLines(COMPONENT_UUID, 1, Integer.MAX_VALUE)).thenReturn(
-      Arrays.asList(new SourceLineDoc().setSource("source").setHighlighting("highlight").setSymbols("symbols"),
-        new SourceLineDoc().setSource("source2").setHighlighting("highlight2").setSymbols("symbols2")));
+    when(sourceLineRepository.getLines(COMPONENT_UUID, 1, Integer.MAX_VALUE)).thenReturn(
+      Arrays.asList(newLine("source", "highlight", "symbols"),
+        newLine("source2", "highlight2", "symbols2")));
 
     service.getLinesAsHtml(COMPONENT_UUID, null, null);
 
@@ -83,13 +82,17 @@ public class SourceServiceTest {
 
   @Test
   public void getLinesAsTxt() {
-    when(sourceLineIndex.getLines(COMPONENT_UUID, 1, Integer.MAX_VALUE)).thenReturn(
+    when(sourceLineRepository.getLines(COMPONENT_UUID, 1, Integer.MAX_VALUE)).thenReturn(
       Arrays.asList(
-        new SourceLineDoc().setSource("line1"),
-        new SourceLineDoc().setSource("line2")));
+        FileSourceDb.Line.newBuilder().setSource("line1").build(),
+        FileSourceDb.Line.newBuilder().setSource("line2").build()));
 
     List<String> result = service.getLinesAsTxt(COMPONENT_UUID, null, null);
     assertThat(result).contains("line1", "line2");
   }
 
+  private static FileSourceDb.Line newLine(String source, String highlighting, String symbols) {
+    return FileSourceDb.Line.newBuilder().setSource(source).setHighlighting(highlighting).setSymbols(symbols).build();
+  }
+
 }
@@ -17,35 +17,30 @@
  * along with this program; if not, write to the Free Software Foundation,
  * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
  */
-
 package org.sonar.server.source.ws;
 
-import com.google.common.collect.ImmutableList;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.ClassRule;
 import org.junit.Rule;
 import org.junit.Test;
-import org.sonar.api.config.Settings;
 import org.sonar.api.web.UserRole;
 import org.sonar.core.component.ComponentDto;
 import org.sonar.core.persistence.DbSession;
 import org.sonar.core.persistence.DbTester;
+import org.sonar.core.source.db.FileSourceDto;
 import org.sonar.server.component.ComponentTesting;
 import org.sonar.server.component.db.ComponentDao;
 import org.sonar.server.db.DbClient;
-import org.sonar.server.es.EsTester;
 import org.sonar.server.exceptions.ForbiddenException;
 import org.sonar.server.exceptions.NotFoundException;
 import org.sonar.server.source.HtmlSourceDecorator;
-import org.sonar.server.source.index.SourceLineDoc;
-import org.sonar.server.source.index.SourceLineIndex;
-import org.sonar.server.source.index.SourceLineIndexDefinition;
+import org.sonar.server.source.SourceLineRepository;
+import org.sonar.server.source.db.FileSourceDao;
+import org.sonar.server.source.db.FileSourceDb;
 import org.sonar.server.tester.UserSessionRule;
 import org.sonar.server.ws.WsTester;
 
-import java.util.Date;
-
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.failBecauseExceptionWasNotThrown;
 import static org.junit.Assert.fail;
@@ -56,19 +51,19 @@ public class LinesActionTest {
   private static final String FILE_UUID = "efgh";
   private static final String FILE_KEY = "Foo.java";
 
-  @ClassRule
-  public static EsTester esTester = new EsTester().addDefinitions(new SourceLineIndexDefinition(new Settings()));
   @ClassRule
   public static DbTester dbTester = new DbTester();
   @Rule
   public UserSessionRule userSessionRule = UserSessionRule.standalone();
 
-  SourceLineIndex sourceLineIndex;
+  SourceLineRepository sourceLineRepository;
 
   HtmlSourceDecorator htmlSourceDecorator;
 
   ComponentDao componentDao;
 
+  FileSourceDao fileSourceDao;
+
   DbSession session;
 
   WsTester wsTester;
@@ -76,14 +71,14 @@ public class LinesActionTest {
   @Before
   public void setUp() {
     dbTester.truncateTables();
-    esTester.truncateIndices();
 
     htmlSourceDecorator = new HtmlSourceDecorator();
-    sourceLineIndex = new SourceLineIndex(esTester.client());
     componentDao = new ComponentDao();
-    DbClient dbClient = new DbClient(dbTester.database(), dbTester.myBatis(), componentDao);
+    fileSourceDao = new FileSourceDao(dbTester.myBatis());
+    DbClient dbClient = new DbClient(dbTester.database(), dbTester.myBatis(), componentDao, fileSourceDao);
+    sourceLineRepository = new SourceLineRepository(dbClient);
     session = dbClient.openSession(false);
-    wsTester = new WsTester(new SourcesWs(new LinesAction(dbClient, sourceLineIndex, htmlSourceDecorator, userSessionRule)));
+    wsTester = new WsTester(new SourcesWs(new LinesAction(dbClient, sourceLineRepository, htmlSourceDecorator, userSessionRule)));
   }
 
   @After
@@ -95,14 +90,13 @@ public class LinesActionTest {
   public void show_source() throws Exception {
     newFile();
 
-    Date updatedAt = new Date();
-    String scmDate = "2014-01-01T12:34:56.789Z";
-    SourceLineDoc line1 = new SourceLineDoc()
-      .setProjectUuid(PROJECT_UUID)
-      .setFileUuid(FILE_UUID)
+    long scmDate = 1388579696789L;
+    FileSourceDb.Data.Builder data = FileSourceDb.Data.newBuilder();
+    data.addLinesBuilder()
       .setLine(1)
       .setScmRevision("cafebabe")
       .setScmAuthor("polop")
+      .setScmDate(scmDate)
       .setSource("package org.polop;")
       .setHighlighting("0,7,k")
       .setSymbols("8,17,42")
@@ -111,50 +105,29 @@ public class LinesActionTest {
       .setUtCoveredConditions(1)
       .setItLineHits(3)
       .setItConditions(2)
-      .setItCoveredConditions(1)
-      .setDuplications(ImmutableList.<Integer>of())
-      .setUpdateDate(updatedAt);
-    line1.setField(SourceLineIndexDefinition.FIELD_SCM_DATE, scmDate);
-
-    SourceLineDoc line2 = new SourceLineDoc()
-      .setProjectUuid(PROJECT_UUID)
-      .setFileUuid(FILE_UUID)
+      .setItCoveredConditions(1);
+    data.addLinesBuilder()
       .setLine(2)
       .setScmRevision("cafebabe")
       .setScmAuthor("polop")
+      .setScmDate(scmDate)
       .setSource("abc")
       .setHighlighting("0,5,c")
       .setSymbols("")
       .setUtLineHits(3)
       .setUtConditions(2)
       .setUtCoveredConditions(1)
-      .setItLineHits(null)
-      .setItConditions(null)
-      .setItCoveredConditions(null)
-      .setDuplications(ImmutableList.of(1))
-      .setUpdateDate(updatedAt);
-    line2.setField(SourceLineIndexDefinition.FIELD_SCM_DATE, scmDate);
-
-    SourceLineDoc line3 = new SourceLineDoc()
-      .setProjectUuid(PROJECT_UUID)
-      .setFileUuid(FILE_UUID)
+      .addDuplication(1);
+    data.addLinesBuilder()
       .setLine(3)
       .setScmRevision("cafebabe")
       .setScmAuthor("polop")
+      .setScmDate(scmDate)
       .setSource("}")
-      .setHighlighting(null)
-      .setSymbols(null)
-      .setUtLineHits(null)
-      .setUtConditions(null)
-      .setUtCoveredConditions(null)
       .setItLineHits(3)
       .setItConditions(2)
-      .setItCoveredConditions(1)
-      .setDuplications(ImmutableList.<Integer>of())
-      .setUpdateDate(updatedAt);
-    line3.setField(SourceLineIndexDefinition.FIELD_SCM_DATE, scmDate);
-
-    esTester.putDocuments(SourceLineIndexDefinition.INDEX, SourceLineIndexDefinition.TYPE, line1, line2, line3);
+      .setItCoveredConditions(1);
+    insertFileSource(data.build());
 
     userSessionRule.login("login").addProjectUuidPermissions(UserRole.CODEVIEWER, PROJECT_UUID);
 
@@ -180,30 +153,10 @@ public class LinesActionTest {
   @Test
   public void show_source_with_from_and_to_params() throws Exception {
     newFile();
+    insertFileSource(newDataWithThreeLines());
 
     userSessionRule.login("login").addProjectUuidPermissions(UserRole.CODEVIEWER, PROJECT_UUID);
 
-    esTester.putDocuments(SourceLineIndexDefinition.INDEX, SourceLineIndexDefinition.TYPE,
-      new SourceLineDoc()
-        .setProjectUuid(PROJECT_UUID)
-        .setFileUuid(FILE_UUID)
-        .setLine(3)
-        .setScmRevision("cafebabe")
-        .setScmDate(null)
-        .setScmAuthor("polop")
-        .setSource("}")
-        .setHighlighting("")
-        .setSymbols("")
-        .setUtLineHits(null)
-        .setUtConditions(null)
-        .setUtCoveredConditions(null)
-        .setItLineHits(null)
-        .setItConditions(null)
-        .setItCoveredConditions(null)
-        .setDuplications(null)
-        .setUpdateDate(new Date())
-      );
-
     WsTester.TestRequest request = wsTester
       .newGetRequest("api/sources", "lines")
       .setParam("uuid", FILE_UUID)
@@ -215,31 +168,11 @@ public class LinesActionTest {
   @Test
   public void show_source_by_file_key() throws Exception {
     newFile();
-
-    esTester.putDocuments(SourceLineIndexDefinition.INDEX, SourceLineIndexDefinition.TYPE,
-      new SourceLineDoc()
-        .setProjectUuid(PROJECT_UUID)
-        .setFileUuid(FILE_UUID)
-        .setLine(3)
-        .setScmRevision("cafebabe")
-        .setScmDate(null)
-        .setScmAuthor("polop")
-        .setSource("}")
-        .setHighlighting("")
-        .setSymbols("")
-        .setUtLineHits(null)
-        .setUtConditions(null)
-        .setUtCoveredConditions(null)
-        .setItLineHits(null)
-        .setItConditions(null)
-        .setItCoveredConditions(null)
-        .setDuplications(null)
-        .setUpdateDate(new Date())
-      );
+    insertFileSource(newDataWithThreeLines());
 
     userSessionRule.login("login").addProjectUuidPermissions(UserRole.CODEVIEWER, PROJECT_UUID);
 
-    WsTester.TestRequest request = wsTester.newGetRequest("api/sources", "lines").setParam("key", FILE_KEY);
+    WsTester.TestRequest request = wsTester.newGetRequest("api/sources", "lines").setParam("key", FILE_KEY).setParam("from", "3");
     request.execute().assertJson(getClass(), "show_source_by_file_key.json");
   }
 
@@ -274,4 +207,28 @@ public class LinesActionTest {
     componentDao.insert(session, project, file);
     session.commit();
   }
+
+  private static FileSourceDb.Data newDataWithThreeLines() {
+    FileSourceDb.Data.Builder data = FileSourceDb.Data.newBuilder();
+    for (int line = 1; line <= 3; line++) {
+      data.addLinesBuilder()
+        .setLine(line)
+        .setScmRevision("cafebabe")
+        .setScmAuthor("polop")
+        .setSource(line == 3 ? "}" : "abc");
+    }
+    return data.build();
+  }
+
+  private void insertFileSource(FileSourceDb.Data data) {
+    fileSourceDao.insert(session, new FileSourceDto()
+      .setProjectUuid(PROJECT_UUID)
+      .setFileUuid(FILE_UUID)
+      .setDataType(FileSourceDto.Type.SOURCE)
+      .setSourceData(data)
+      .setDataHash("DATA_HASH")
+      .setCreatedAt(1_500_000_000_000L)
+      .setUpdatedAt(1_500_000_000_000L));
+    session.commit();
+  }
 }
@@ -25,23 +25,25 @@ import org.junit.Before;
 import org.junit.ClassRule;
 import org.junit.Rule;
 import org.junit.Test;
-import org.sonar.api.config.Settings;
 import org.sonar.api.utils.DateUtils;
 import org.sonar.api.web.UserRole;
 import org.sonar.core.component.ComponentDto;
 import org.sonar.core.persistence.DbSession;
 import org.sonar.core.persistence.DbTester;
+import org.sonar.core.source.db.FileSourceDto;
 import org.sonar.server.component.ComponentTesting;
 import org.sonar.server.component.db.ComponentDao;
 import org.sonar.server.db.DbClient;
-import org.sonar.server.es.EsTester;
 import org.sonar.server.exceptions.ForbiddenException;
-import org.sonar.server.source.index.SourceLineDoc;
-import org.sonar.server.source.index.SourceLineIndex;
-import org.sonar.server.source.index.SourceLineIndexDefinition;
+import org.sonar.server.source.SourceLineRepository;
+import org.sonar.server.source.db.FileSourceDao;
+import org.sonar.server.source.db.FileSourceDb;
 import org.sonar.server.tester.UserSessionRule;
 import org.sonar.server.ws.WsTester;
 
+import javax.annotation.Nullable;
+
+import java.util.Arrays;
 import java.util.Date;
 
 public class ScmActionTest {
@@ -52,8 +54,6 @@ public class ScmActionTest {
 
   @ClassRule
   public static DbTester dbTester = new DbTester();
-  @ClassRule
-  public static EsTester esTester = new EsTester().addDefinitions(new SourceLineIndexDefinition(new Settings()));
   @Rule
   public UserSessionRule userSessionRule = UserSessionRule.standalone();
 
@@ -66,11 +66,10 @@ public class ScmActionTest {
   @Before
   public void setUp() {
     dbTester.truncateTables();
-    esTester.truncateIndices();
-    dbClient = new DbClient(dbTester.database(), dbTester.myBatis(), new ComponentDao());
+    dbClient = new DbClient(dbTester.database(), dbTester.myBatis(), new ComponentDao(), new FileSourceDao(dbTester.myBatis()));
     session = dbClient.openSession(false);
 
-    tester = new WsTester(new SourcesWs(new ScmAction(dbClient, new SourceLineIndex(esTester.client()), userSessionRule)));
+    tester = new WsTester(new SourcesWs(new ScmAction(dbClient, new SourceLineRepository(dbClient), userSessionRule)));
   }
 
   @After
@@ -83,7 +82,7 @@ public class ScmActionTest {
     initFile();
     userSessionRule.addProjectUuidPermissions(UserRole.CODEVIEWER, PROJECT_UUID);
 
-    esTester.putDocuments(SourceLineIndexDefinition.INDEX, SourceLineIndexDefinition.TYPE,
+    insertSource(
       newSourceLine("julien", "123-456-789", DateUtils.parseDateTime("2015-03-30T12:34:56+0000"), 1)
       );
 
@@ -96,7 +95,7 @@ public class ScmActionTest {
     initFile();
     userSessionRule.addProjectUuidPermissions(UserRole.CODEVIEWER, PROJECT_UUID);
 
-    esTester.putDocuments(SourceLineIndexDefinition.INDEX, SourceLineIndexDefinition.TYPE,
+    insertSource(
       newSourceLine("julien", "123-456-789", DateUtils.parseDateTime("2015-03-30T12:34:56+0000"), 1),
       newSourceLine("julien", "123-456-789", DateUtils.parseDateTime("2015-03-30T12:34:56+0000"), 2),
       newSourceLine("julien", "456-789-101", DateUtils.parseDateTime("2015-03-27T12:34:56+0000"), 3),
@@ -113,7 +112,7 @@ public class ScmActionTest {
     userSessionRule.addProjectUuidPermissions(UserRole.CODEVIEWER, PROJECT_UUID);
 
     // lines 1 and 2 are the same commit, but not 3 (different date)
-    esTester.putDocuments(SourceLineIndexDefinition.INDEX, SourceLineIndexDefinition.TYPE,
+    insertSource(
       newSourceLine("julien", "123-456-789", DateUtils.parseDateTime("2015-03-30T12:34:56+0000"), 1),
       newSourceLine("julien", "123-456-789", DateUtils.parseDateTime("2015-03-30T12:34:56+0000"), 2),
       newSourceLine("julien", "456-789-101", DateUtils.parseDateTime("2015-03-27T12:34:56+0000"), 3),
@@ -130,7 +129,7 @@ public class ScmActionTest {
     userSessionRule.addProjectUuidPermissions(UserRole.CODEVIEWER, PROJECT_UUID);
 
     // lines 1 and 2 are the same commit, but not 3 (different date)
-    esTester.putDocuments(SourceLineIndexDefinition.INDEX, SourceLineIndexDefinition.TYPE,
+    insertSource(
       newSourceLine("julien", "123-456-789", DateUtils.parseDateTime("2015-03-30T12:34:56+0000"), 1),
       newSourceLine("julien", "123-456-789", DateUtils.parseDateTime("2015-03-30T12:34:56+0000"), 2),
       newSourceLine("julien", "456-789-101", DateUtils.parseDateTime("2015-03-27T12:34:56+0000"), 3),
@@ -146,7 +145,7 @@ public class ScmActionTest {
     initFile();
     userSessionRule.addProjectUuidPermissions(UserRole.CODEVIEWER, PROJECT_UUID);
 
-    esTester.putDocuments(SourceLineIndexDefinition.INDEX, SourceLineIndexDefinition.TYPE,
+    insertSource(
       newSourceLine("julien", "123-456-789", DateUtils.parseDateTime("2015-03-30T12:34:56+0000"), 1),
       newSourceLine("julien", "123-456-710", DateUtils.parseDateTime("2015-03-29T12:34:56+0000"), 2),
       newSourceLine("julien", "456-789-101", DateUtils.parseDateTime("2015-03-27T12:34:56+0000"), 3),
@@ -162,7 +161,7 @@ public class ScmActionTest {
     initFile();
     userSessionRule.addProjectUuidPermissions(UserRole.CODEVIEWER, PROJECT_UUID);
 
-    esTester.putDocuments(SourceLineIndexDefinition.INDEX, SourceLineIndexDefinition.TYPE,
+    insertSource(
       newSourceLine(null, null, null, 1)
     );
 
@@ -185,13 +184,29 @@ public class ScmActionTest {
     session.commit();
   }
 
-  private SourceLineDoc newSourceLine(String author, String revision, Date date, int line) {
-    return new SourceLineDoc()
-      .setScmAuthor(author)
-      .setScmRevision(revision)
-      .setScmDate(date)
-      .setLine(line)
+  private void insertSource(FileSourceDb.Line... lines) {
+    dbClient.fileSourceDao().insert(session, new FileSourceDto()
       .setProjectUuid(PROJECT_UUID)
-      .setFileUuid(FILE_UUID);
+      .setFileUuid(FILE_UUID)
+      .setDataType(FileSourceDto.Type.SOURCE)
+      .setSourceData(FileSourceDb.Data.newBuilder().addAllLines(Arrays.asList(lines)).build())
+      .setDataHash("DATA_HASH")
+      .setCreatedAt(1_500_000_000_000L)
+      .setUpdatedAt(1_500_000_000_000L));
+    session.commit();
+  }
+
+  private static FileSourceDb.Line newSourceLine(@Nullable String author, @Nullable String revision, @Nullable Date date, int line) {
+    FileSourceDb.Line.Builder builder = FileSourceDb.Line.newBuilder().setLine(line);
+    if (author != null) {
+      builder.setScmAuthor(author);
+    }
+    if (revision != null) {
+      builder.setScmRevision(revision);
+    }
+    if (date != null) {
+      builder.setScmDate(date.getTime());
+    }
+    return builder.build();
   }
 }
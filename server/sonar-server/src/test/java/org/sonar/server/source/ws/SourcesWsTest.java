@@ -25,8 +25,8 @@ import org.junit.Test;
 import org.sonar.api.server.ws.WebService;
 import org.sonar.server.db.DbClient;
 import org.sonar.server.source.HtmlSourceDecorator;
+import org.sonar.server.source.SourceLineRepository;
 import org.sonar.server.source.SourceService;
-import org.sonar.server.source.index.SourceLineIndex;
 import org.sonar.server.tester.UserSessionRule;
 import org.sonar.server.ws.WsTester;
 
@@ -39,7 +39,7 @@ public class SourcesWsTest {
 
   ShowAction showAction = new ShowAction(mock(SourceService.class), mock(DbClient.class), userSessionRule);
   RawAction rawAction = new RawAction(mock(DbClient.class), mock(SourceService.class), userSessionRule);
-  LinesAction linesAction = new LinesAction(mock(DbClient.class), mock(SourceLineIndex.class), mock(HtmlSourceDecorator.class), userSessionRule);
+  LinesAction linesAction = new LinesAction(mock(DbClient.class), mock(SourceLineRepository.class), mock(HtmlSourceDecorator.class), userSessionRule);
   HashAction hashAction = new HashAction(mock(DbClient.class), userSessionRule);
   IndexAction indexAction = new IndexAction(mock(DbClient.class), mock(SourceService.class), userSessionRule);
   WsTester tester = new WsTester(new SourcesWs(showAction, rawAction, linesAction, hashAction, indexAction));
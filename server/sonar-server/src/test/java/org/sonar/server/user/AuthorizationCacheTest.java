@@ -0,0 +1,96 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2014 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.user;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.sonar.api.utils.System2;
+import org.sonar.api.web.UserRole;
+import org.sonar.core.user.AuthorizationDao;
+
+import static com.google.common.collect.Lists.newArrayList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class AuthorizationCacheTest {
+
+  AuthorizationDao authorizationDao = mock(AuthorizationDao.class);
+  System2 system = mock(System2.class);
+  AuthorizationCache underTest = new AuthorizationCache(authorizationDao, system);
+
+  @Before
+  public void setUp() {
+    when(system.now()).thenReturn(1000L);
+  }
+
+  @Test
+  public void load_authorized_projects_once() {
+    when(authorizationDao.selectAuthorizedRootProjectsKeys(1, UserRole.USER)).thenReturn(newArrayList("com.foo:Bar"));
+    when(authorizationDao.selectAuthorizedRootProjectsUuids(1, UserRole.USER)).thenReturn(newArrayList("ABCD"));
+
+    assertThat(underTest.authorizedProjectKeys(1, UserRole.USER)).containsOnly("com.foo:Bar");
+    assertThat(underTest.authorizedProjectKeys(1, UserRole.USER)).containsOnly("com.foo:Bar");
+    assertThat(underTest.authorizedProjectUuids(1, UserRole.USER)).containsOnly("ABCD");
+    assertThat(underTest.authorizedProjectUuids(1, UserRole.USER)).containsOnly("ABCD");
+
+    verify(authorizationDao, times(1)).selectAuthorizedRootProjectsKeys(1, UserRole.USER);
+    verify(authorizationDao, times(1)).selectAuthorizedRootProjectsUuids(1, UserRole.USER);
+  }
+
+  @Test
+  public void cache_by_user_and_permission() {
+    when(authorizationDao.selectAuthorizedRootProjectsKeys(1, UserRole.USER)).thenReturn(newArrayList("com.foo:Bar"));
+    when(authorizationDao.selectAuthorizedRootProjectsKeys(2, UserRole.USER)).thenReturn(newArrayList("com.foo:Other"));
+    when(authorizationDao.selectAuthorizedRootProjectsKeys(null, UserRole.USER)).thenReturn(newArrayList("com.foo:Public"));
+
+    assertThat(underTest.authorizedProjectKeys(1, UserRole.USER)).containsOnly("com.foo:Bar");
+    assertThat(underTest.authorizedProjectKeys(2, UserRole.USER)).containsOnly("com.foo:Other");
+    assertThat(underTest.authorizedProjectKeys(null, UserRole.USER)).containsOnly("com.foo:Public");
+    assertThat(underTest.authorizedProjectKeys(1, UserRole.ADMIN)).isEmpty();
+  }
+
+  @Test
+  public void reload_after_invalidation() {
+    when(authorizationDao.selectAuthorizedRootProjectsKeys(1, UserRole.USER)).thenReturn(newArrayList("com.foo:Bar"));
+    assertThat(underTest.authorizedProjectKeys(1, UserRole.USER)).containsOnly("com.foo:Bar");
+
+    when(authorizationDao.selectAuthorizedRootProjectsKeys(1, UserRole.USER)).thenReturn(newArrayList("com.foo:Bar", "com.foo:Other"));
+    underTest.invalidate();
+
+    assertThat(underTest.authorizedProjectKeys(1, UserRole.USER)).containsOnly("com.foo:Bar", "com.foo:Other");
+  }
+
+  @Test
+  public void reload_expired_entries() {
+    when(authorizationDao.selectAuthorizedRootProjectsKeys(1, UserRole.USER)).thenReturn(newArrayList("com.foo:Bar"));
+    underTest.authorizedProjectKeys(1, UserRole.USER);
+
+    when(system.now()).thenReturn(1000L + AuthorizationCache.TTL_MS - 1);
+    underTest.authorizedProjectKeys(1, UserRole.USER);
+    verify(authorizationDao, times(1)).selectAuthorizedRootProjectsKeys(1, UserRole.USER);
+
+    when(system.now()).thenReturn(1000L + AuthorizationCache.TTL_MS);
+    underTest.authorizedProjectKeys(1, UserRole.USER);
+    verify(authorizationDao, times(2)).selectAuthorizedRootProjectsKeys(1, UserRole.USER);
+  }
+}
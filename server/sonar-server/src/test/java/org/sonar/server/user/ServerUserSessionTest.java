@@ -21,6 +21,7 @@ package org.sonar.server.user;
 
 import java.util.Arrays;
 import org.junit.Test;
+import org.sonar.api.utils.System2;
 import org.sonar.api.web.UserRole;
 import org.sonar.core.component.ComponentDto;
 import org.sonar.core.permission.GlobalPermissions;
@@ -33,11 +34,14 @@ import org.sonar.server.exceptions.ForbiddenException;
 import static com.google.common.collect.Lists.newArrayList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class ServerUserSessionTest {
   AuthorizationDao authorizationDao = mock(AuthorizationDao.class);
   ResourceDao resourceDao = mock(ResourceDao.class);
+  AuthorizationCache authorizationCache = new AuthorizationCache(authorizationDao, System2.INSTANCE);
 
   @Test
   public void login_should_not_be_empty() {
@@ -95,6 +99,16 @@ public class ServerUserSessionTest {
     assertThat(session.hasProjectPermissionByUuid(UserRole.ADMIN, "ABCD")).isFalse();
   }
 
+  @Test
+  public void project_permissions_are_shared_by_sessions() {
+    when(authorizationDao.selectAuthorizedRootProjectsKeys(1, UserRole.USER)).thenReturn(newArrayList("com.foo:Bar"));
+
+    assertThat(newServerUserSession().setUserId(1).hasProjectPermission(UserRole.USER, "com.foo:Bar")).isTrue();
+    assertThat(newServerUserSession().setUserId(1).hasProjectPermission(UserRole.USER, "com.foo:Bar")).isTrue();
+
+    verify(authorizationDao, times(1)).selectAuthorizedRootProjectsKeys(1, UserRole.USER);
+  }
+
   @Test
   public void check_project_permission_ok() {
     UserSession session = newServerUserSession().setLogin("marius").setUserId(1);
@@ -208,7 +222,7 @@ public class ServerUserSessionTest {
   }
 
   private ServerUserSession newServerUserSession() {
-    return new ServerUserSession(authorizationDao, resourceDao);
+    return new ServerUserSession(authorizationDao, authorizationCache, resourceDao);
   }
 
 }
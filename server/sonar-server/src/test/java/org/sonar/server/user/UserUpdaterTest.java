@@ -75,6 +75,8 @@ public class UserUpdaterTest {
 
   SecurityRealmFactory realmFactory = mock(SecurityRealmFactory.class);
 
+  AuthorizationCache authorizationCache = mock(AuthorizationCache.class);
+
   ArgumentCaptor<NewUserHandler.Context> newUserHandler = ArgumentCaptor.forClass(NewUserHandler.Context.class);
 
   Settings settings;
@@ -102,7 +104,7 @@ public class UserUpdaterTest {
     DbClient dbClient = new DbClient(db.database(), db.myBatis(), userDao, groupDao, userGroupDao);
     userIndexer = (UserIndexer) new UserIndexer(dbClient, es.client()).setEnabled(true);
     userUpdater = new UserUpdater(newUserNotifier, settings, dbClient,
-      userIndexer, system2, realmFactory);
+      userIndexer, system2, realmFactory, authorizationCache);
   }
 
   @After
@@ -901,6 +903,17 @@ public class UserUpdaterTest {
     }
   }
 
+  @Test
+  public void invalidate_authorizations_when_deactivating_user() {
+    db.prepareDbUnit(getClass(), "update_user.xml");
+
+    userUpdater.deactivateUserByLogin("marius");
+    session.clearCache();
+
+    assertThat(userDao.selectNullableByLogin(session, "marius").isActive()).isFalse();
+    verify(authorizationCache).invalidate();
+  }
+
   private void createDefaultGroup() {
     settings.setProperty(CoreProperties.CORE_DEFAULT_GROUP, "sonar-users");
     groupDao.insert(session, new GroupDto().setName("sonar-users").setDescription("Sonar Users"));
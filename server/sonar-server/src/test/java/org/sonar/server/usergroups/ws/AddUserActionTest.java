@@ -41,6 +41,7 @@ import org.sonar.core.user.UserGroupDto;
 import org.sonar.server.db.DbClient;
 import org.sonar.server.exceptions.NotFoundException;
 import org.sonar.server.tester.UserSessionRule;
+import org.sonar.server.user.AuthorizationCache;
 import org.sonar.server.user.db.GroupDao;
 import org.sonar.server.user.db.UserDao;
 import org.sonar.server.user.db.UserGroupDao;
@@ -48,6 +49,7 @@ import org.sonar.server.ws.WsTester;
 import org.sonar.test.DbTests;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
 
 @Category(DbTests.class)
 public class AddUserActionTest {
@@ -79,7 +81,7 @@ public class AddUserActionTest {
 
     DbClient dbClient = new DbClient(dbTester.database(), dbTester.myBatis(), groupDao, userDao, userGroupDao, groupMembershipDao);
 
-    tester = new WsTester(new UserGroupsWs(new AddUserAction(dbClient, userSession)));
+    tester = new WsTester(new UserGroupsWs(new AddUserAction(dbClient, userSession, mock(AuthorizationCache.class))));
 
     session = dbClient.openSession(false);
   }
@@ -41,12 +41,14 @@ import org.sonar.core.user.UserGroupDto;
 import org.sonar.server.db.DbClient;
 import org.sonar.server.exceptions.NotFoundException;
 import org.sonar.server.tester.UserSessionRule;
+import org.sonar.server.user.AuthorizationCache;
 import org.sonar.server.user.db.GroupDao;
 import org.sonar.server.user.db.UserGroupDao;
 import org.sonar.server.ws.WsTester;
 import org.sonar.test.DbTests;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
 
 @Category(DbTests.class)
 public class DeleteActionTest {
@@ -90,7 +92,7 @@ public class DeleteActionTest {
     defaultGroupId = defaultGroup.getId();
     session.commit();
 
-    tester = new WsTester(new UserGroupsWs(new DeleteAction(dbClient, userSession, settings)));
+    tester = new WsTester(new UserGroupsWs(new DeleteAction(dbClient, userSession, settings, mock(AuthorizationCache.class))));
   }
 
   @After
@@ -30,16 +30,24 @@ import org.junit.Test;
 import org.junit.experimental.categories.Category;
 import org.junit.rules.ExpectedException;
 import org.sonar.api.utils.System2;
+import org.sonar.api.web.UserRole;
+import org.sonar.core.component.ComponentDto;
 import org.sonar.core.permission.GlobalPermissions;
 import org.sonar.core.persistence.DbSession;
 import org.sonar.core.persistence.DbTester;
 import org.sonar.core.user.GroupDto;
+import org.sonar.core.user.AuthorizationDao;
 import org.sonar.core.user.GroupMembershipDao;
+import org.sonar.core.user.GroupRoleDto;
+import org.sonar.core.user.RoleDao;
 import org.sonar.core.user.UserDto;
 import org.sonar.core.user.UserGroupDto;
+import org.sonar.server.component.ComponentTesting;
+import org.sonar.server.component.db.ComponentDao;
 import org.sonar.server.db.DbClient;
 import org.sonar.server.exceptions.NotFoundException;
 import org.sonar.server.tester.UserSessionRule;
+import org.sonar.server.user.AuthorizationCache;
 import org.sonar.server.user.db.GroupDao;
 import org.sonar.server.user.db.UserDao;
 import org.sonar.server.user.db.UserGroupDao;
@@ -65,6 +73,9 @@ public class RemoveUserActionTest {
   private UserDao userDao;
   private GroupMembershipDao groupMembershipDao;
   private UserGroupDao userGroupDao;
+  private ComponentDao componentDao;
+  private RoleDao roleDao;
+  private AuthorizationCache authorizationCache;
   private DbSession session;
 
   @Before
@@ -75,10 +86,13 @@ public class RemoveUserActionTest {
     userDao = new UserDao(dbTester.myBatis(), System2.INSTANCE);
     groupMembershipDao = new GroupMembershipDao(dbTester.myBatis());
     userGroupDao = new UserGroupDao();
+    componentDao = new ComponentDao();
+    roleDao = new RoleDao();
+    authorizationCache = new AuthorizationCache(new AuthorizationDao(dbTester.myBatis()), System2.INSTANCE);
 
-    DbClient dbClient = new DbClient(dbTester.database(), dbTester.myBatis(), groupDao, userDao, userGroupDao, groupMembershipDao);
+    DbClient dbClient = new DbClient(dbTester.database(), dbTester.myBatis(), groupDao, userDao, userGroupDao, groupMembershipDao, componentDao, roleDao);
 
-    tester = new WsTester(new UserGroupsWs(new RemoveUserAction(dbClient, userSession)));
+    tester = new WsTester(new UserGroupsWs(new RemoveUserAction(dbClient, userSession, authorizationCache)));
 
     session = dbClient.openSession(false);
   }
@@ -143,6 +157,28 @@ public class RemoveUserActionTest {
       .containsOnly(users.getName());
   }
 
+  @Test
+  public void user_immediately_loses_access_granted_by_group() throws Exception {
+    GroupDto users = insertGroup("users");
+    UserDto user = insertUser("my-admin");
+    insertMember(users.getId(), user.getId());
+    ComponentDto project = ComponentTesting.newProjectDto();
+    componentDao.insert(session, project);
+    roleDao.insertGroupRole(new GroupRoleDto().setRole(UserRole.USER).setGroupId(users.getId()).setResourceId(project.getId()), session);
+    session.commit();
+    Integer userId = user.getId().intValue();
+    assertThat(authorizationCache.authorizedProjectKeys(userId, UserRole.USER)).containsOnly(project.key());
+
+    userSession.login("admin").setGlobalPermissions(GlobalPermissions.SYSTEM_ADMIN);
+    tester.newPostRequest("api/usergroups", "remove_user")
+      .setParam("id", users.getId().toString())
+      .setParam("login", user.getLogin())
+      .execute()
+      .assertNoContent();
+
+    assertThat(authorizationCache.authorizedProjectKeys(userId, UserRole.USER)).isEmpty();
+  }
+
   @Test
   public void unknown_group() throws Exception {
     UserDto user = insertUser("my-admin");
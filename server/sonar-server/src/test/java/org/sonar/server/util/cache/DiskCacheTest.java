@@ -27,6 +27,8 @@ import org.sonar.server.util.CloseableIterator;
 
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.Assert.fail;
@@ -52,6 +54,72 @@ public class DiskCacheTest {
     }
   }
 
+  @Test
+  public void write_and_read_many_objects_with_multiple_appenders() throws Exception {
+    DiskCache<ArrayList<String>> cache = new DiskCache<>(temp.newFile(), System2.INSTANCE);
+    ArrayList<String> list = new ArrayList<>();
+    DiskCache<ArrayList<String>>.DiskAppender appender = cache.newAppender();
+    for (int i = 0; i < 2500; i++) {
+      // the same instance is modified and appended again
+      list.add("item" + i);
+      appender.append(list);
+    }
+    appender.close();
+    cache.newAppender().append(new ArrayList<>(Arrays.asList("last"))).close();
+
+    try (CloseableIterator<ArrayList<String>> traverse = cache.traverse();
+      CloseableIterator<ArrayList<String>> otherTraverse = cache.traverse()) {
+      for (int i = 0; i < 2500; i++) {
+        assertThat(traverse.next()).hasSize(i + 1).endsWith("item" + i);
+        assertThat(otherTraverse.next()).hasSize(i + 1);
+      }
+      assertThat(traverse.next()).containsExactly("last");
+      assertThat(traverse.hasNext()).isFalse();
+    }
+  }
+
+  @Test
+  public void write_latest_state_of_nested_objects() throws Exception {
+    DiskCache<Holder> cache = new DiskCache<>(temp.newFile(), System2.INSTANCE);
+    Holder holder = new Holder();
+    DiskCache<Holder>.DiskAppender appender = cache.newAppender();
+    holder.nested.add("first");
+    appender.append(holder);
+    holder.nested.add("second");
+    appender.append(holder);
+    appender.close();
+
+    try (CloseableIterator<Holder> traverse = cache.traverse()) {
+      assertThat(traverse.next().nested).containsExactly("first");
+      assertThat(traverse.next().nested).containsExactly("first", "second");
+      assertThat(traverse.hasNext()).isFalse();
+    }
+  }
+
+  /**
+   * Documents the contract of {@link DiskCache.DiskAppender#append(Serializable)}: a nested object shared by distinct
+   * appended objects is written once by the appender, so later changes are visible only to the next appender.
+   */
+  @Test
+  public void nested_object_shared_by_distinct_objects_is_written_once_by_appender() throws Exception {
+    DiskCache<Holder> cache = new DiskCache<>(temp.newFile(), System2.INSTANCE);
+    ArrayList<String> shared = new ArrayList<>();
+    DiskCache<Holder>.DiskAppender appender = cache.newAppender();
+    shared.add("first");
+    appender.append(new Holder(shared));
+    shared.add("second");
+    appender.append(new Holder(shared));
+    appender.close();
+    cache.newAppender().append(new Holder(shared)).close();
+
+    try (CloseableIterator<Holder> traverse = cache.traverse()) {
+      assertThat(traverse.next().nested).containsExactly("first");
+      assertThat(traverse.next().nested).containsExactly("first");
+      assertThat(traverse.next().nested).containsExactly("first", "second");
+      assertThat(traverse.hasNext()).isFalse();
+    }
+  }
+
   @Test
   public void fail_if_file_is_not_writable() throws Exception {
     try {
@@ -77,4 +145,16 @@ public class DiskCacheTest {
       assertThat(e).hasMessage("expected error");
     }
   }
+
+  private static class Holder implements Serializable {
+    private final ArrayList<String> nested;
+
+    private Holder() {
+      this(new ArrayList<String>());
+    }
+
+    private Holder(ArrayList<String> nested) {
+      this.nested = nested;
+    }
+  }
 }
@@ -40,7 +40,9 @@ class Group < ActiveRecord::Base
     
     new_users=(new_users||[]).compact.uniq
     self.users = User.find(new_users)
-    save
+    result = save
+    Internal.authorization_cache.invalidate
+    result
   end
 
   def <=>(other)
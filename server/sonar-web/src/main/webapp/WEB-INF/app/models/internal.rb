@@ -42,6 +42,10 @@ class Internal
     component(Java::OrgSonarServerPermission::InternalPermissionService.java_class)
   end
 
+  def self.authorization_cache
+    component(Java::OrgSonarServerUser::AuthorizationCache.java_class)
+  end
+
   def self.permission_templates
     component(Java::OrgSonarServerPermission::InternalPermissionTemplateService.java_class)
   end
@@ -24,6 +24,7 @@ import org.sonar.batch.protocol.GsonHelper;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 
+import java.io.Writer;
 import java.util.*;
 
 /**
@@ -111,6 +112,13 @@ public class ProjectRepositories {
     return GsonHelper.create().toJson(this);
   }
 
+  /**
+   * Same as {@link #toJson()} but writes directly to the given writer, without building the whole JSON document in memory
+   */
+  public void writeJson(Writer writer) {
+    GsonHelper.create().toJson(this, writer);
+  }
+
   public static ProjectRepositories fromJson(String json) {
     return GsonHelper.create().fromJson(json, ProjectRepositories.class);
   }
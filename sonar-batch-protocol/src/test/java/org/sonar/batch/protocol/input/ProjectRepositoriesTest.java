@@ -22,6 +22,7 @@ package org.sonar.batch.protocol.input;
 import org.junit.Test;
 import org.sonar.test.JsonAssert;
 
+import java.io.StringWriter;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.HashMap;
@@ -55,6 +56,10 @@ public class ProjectRepositoriesTest {
 
     JsonAssert.assertJson(ref.toJson())
       .isSimilarTo(getClass().getResource("ProjectRepositoriesTest/testToJson.json"));
+
+    StringWriter writer = new StringWriter();
+    ref.writeJson(writer);
+    assertThat(writer.toString()).isEqualTo(ref.toJson());
   }
 
   @Test
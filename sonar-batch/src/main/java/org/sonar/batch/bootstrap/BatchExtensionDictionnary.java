@@ -80,7 +80,7 @@ public class BatchExtensionDictionnary {
     return result;
   }
 
-  private Phase.Name evaluatePhase(Object extension) {
+  public Phase.Name evaluatePhase(Object extension) {
     Object extensionToEvaluate;
     if (extension instanceof SensorWrapper) {
       extensionToEvaluate = ((SensorWrapper) extension).wrappedSensor();
@@ -156,6 +156,13 @@ public class BatchExtensionDictionnary {
     return Collections2.filter(sortedList, Predicates.in(extensions));
   }
 
+  /**
+   * Whether the extension declares ordering constraints with other extensions, through {@link DependsUpon} or {@link DependedUpon}
+   */
+  public boolean hasDependencies(Object extension) {
+    return !getDependencies(extension).isEmpty() || !getDependents(extension).isEmpty();
+  }
+
   /**
    * Extension dependencies
    */
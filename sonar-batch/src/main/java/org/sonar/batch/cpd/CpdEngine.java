@@ -22,10 +22,16 @@ package org.sonar.batch.cpd;
 import org.slf4j.Logger;
 import org.sonar.api.batch.BatchSide;
 import org.sonar.api.batch.sensor.SensorContext;
+import org.sonar.api.config.Settings;
 
 @BatchSide
 public abstract class CpdEngine {
 
+  /**
+   * Number of threads used to detect duplications. Default is 1.
+   */
+  public static final String THREADS_PROPERTY = "sonar.cpd.threads";
+
   abstract boolean isLanguageSupported(String language);
 
   abstract void analyse(String language, SensorContext context);
@@ -42,6 +48,11 @@ public abstract class CpdEngine {
     }
   }
 
+  protected static int getThreads(Settings settings) {
+    int threads = settings.getInt(THREADS_PROPERTY);
+    return threads > 0 ? threads : 1;
+  }
+
   @Override
   public String toString() {
     return getClass().getSimpleName();
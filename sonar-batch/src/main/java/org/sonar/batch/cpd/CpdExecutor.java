@@ -0,0 +1,120 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2014 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.batch.cpd;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.utils.SonarException;
+
+/**
+ * Executes one task per source file on a bounded pool of threads. Tasks are created and results are
+ * handled by the calling thread, in the order of the files, so that results can be stored in the
+ * batch caches, which are not thread-safe.
+ */
+abstract class CpdExecutor<T> {
+
+  private static final Logger LOG = LoggerFactory.getLogger(CpdExecutor.class);
+
+  private final String description;
+  private final int threads;
+  private final long timeoutInSeconds;
+
+  /**
+   * @param timeoutInSeconds limit of time to wait for the result of a file, or 0 to wait without limit
+   */
+  CpdExecutor(String description, int threads, long timeoutInSeconds) {
+    this.description = description;
+    this.threads = threads;
+    this.timeoutInSeconds = timeoutInSeconds;
+  }
+
+  /**
+   * Called by the current thread
+   */
+  abstract Callable<T> newTask(InputFile inputFile);
+
+  /**
+   * Called by the current thread, in the order of files.
+   * @param result null if the task did not complete before timeout
+   */
+  abstract void onResult(InputFile inputFile, @Nullable T result);
+
+  void execute(List<InputFile> inputFiles) {
+    // with a single thread, a file is processed only when the result of the previous one is handled
+    int maxPendingTasks = threads == 1 ? 1 : (threads * 2);
+    ExecutorService executorService = Executors.newFixedThreadPool(threads,
+      new ThreadFactoryBuilder().setNameFormat("cpd-%d").setDaemon(true).build());
+    try {
+      Deque<PendingTask<T>> pendingTasks = new ArrayDeque<>();
+      for (InputFile inputFile : inputFiles) {
+        pendingTasks.add(new PendingTask<>(inputFile, executorService.submit(newTask(inputFile))));
+        if (pendingTasks.size() >= maxPendingTasks) {
+          handleResult(pendingTasks.poll());
+        }
+      }
+      while (!pendingTasks.isEmpty()) {
+        handleResult(pendingTasks.poll());
+      }
+    } finally {
+      executorService.shutdown();
+    }
+  }
+
+  private void handleResult(PendingTask<T> task) {
+    T result;
+    try {
+      if (timeoutInSeconds > 0) {
+        result = task.future.get(timeoutInSeconds, TimeUnit.SECONDS);
+      } else {
+        result = task.future.get();
+      }
+    } catch (TimeoutException e) {
+      task.future.cancel(true);
+      result = null;
+      LOG.warn("Timeout during " + description + " for " + task.inputFile, e);
+    } catch (InterruptedException | ExecutionException e) {
+      throw new SonarException("Fail during " + description + " for " + task.inputFile, e);
+    }
+    onResult(task.inputFile, result);
+  }
+
+  private static class PendingTask<T> {
+    private final InputFile inputFile;
+    private final Future<T> future;
+
+    PendingTask(InputFile inputFile, Future<T> future) {
+      this.inputFile = inputFile;
+      this.future = future;
+    }
+  }
+}
@@ -50,7 +50,8 @@ public class CpdSensor implements Sensor {
   @Override
   public void describe(SensorDescriptor descriptor) {
     descriptor.name("CPD Sensor")
-      .disabledInPreview();
+      .disabledInPreview()
+      .threadSafe();
   }
 
   @VisibleForTesting
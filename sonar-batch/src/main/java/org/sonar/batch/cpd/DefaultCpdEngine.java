@@ -21,7 +21,6 @@ package org.sonar.batch.cpd;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Predicate;
-import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -34,7 +33,6 @@ import org.sonar.api.batch.fs.internal.DefaultInputFile;
 import org.sonar.api.batch.sensor.SensorContext;
 import org.sonar.api.config.Settings;
 import org.sonar.api.resources.Project;
-import org.sonar.api.utils.SonarException;
 import org.sonar.batch.cpd.index.IndexFactory;
 import org.sonar.batch.cpd.index.SonarDuplicationsIndex;
 import org.sonar.duplications.block.Block;
@@ -43,23 +41,12 @@ import org.sonar.duplications.internal.pmd.TokenizerBridge;
 
 import javax.annotation.Nullable;
 
-import java.util.Collection;
 import java.util.List;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
 
 public class DefaultCpdEngine extends CpdEngine {
 
   private static final Logger LOG = LoggerFactory.getLogger(DefaultCpdEngine.class);
 
-  /**
-   * Limit of time to analyse one file (in seconds).
-   */
-  private static final int TIMEOUT = 5 * 60;
-
   private final IndexFactory indexFactory;
   private final CpdMappings mappings;
   private final FileSystem fs;
@@ -113,30 +100,7 @@ public class DefaultCpdEngine extends CpdEngine {
 
   private void runCpdAnalysis(String languageKey, SensorContext context, List<InputFile> sourceFiles, SonarDuplicationsIndex index) {
     Predicate<CloneGroup> minimumTokensPredicate = DuplicationPredicates.numberOfUnitsNotLessThan(getMinimumTokens(languageKey));
-
-    ExecutorService executorService = Executors.newSingleThreadExecutor();
-    try {
-      for (InputFile inputFile : sourceFiles) {
-        LOG.debug("Detection of duplications for {}", inputFile);
-        String resourceEffectiveKey = ((DefaultInputFile) inputFile).key();
-        Collection<Block> fileBlocks = index.getByInputFile(inputFile, resourceEffectiveKey);
-
-        Iterable<CloneGroup> filtered;
-        try {
-          List<CloneGroup> duplications = executorService.submit(new JavaCpdEngine.Task(index, fileBlocks)).get(TIMEOUT, TimeUnit.SECONDS);
-          filtered = Iterables.filter(duplications, minimumTokensPredicate);
-        } catch (TimeoutException e) {
-          filtered = null;
-          LOG.warn("Timeout during detection of duplications for " + inputFile, e);
-        } catch (InterruptedException | ExecutionException e) {
-          throw new SonarException("Fail during detection of duplication for " + inputFile, e);
-        }
-
-        JavaCpdEngine.save(context, inputFile, filtered);
-      }
-    } finally {
-      executorService.shutdown();
-    }
+    JavaCpdEngine.detect(index, context, sourceFiles, getThreads(settings), minimumTokensPredicate);
   }
 
   private void populateIndex(String languageKey, List<InputFile> sourceFiles, CpdMapping mapping, SonarDuplicationsIndex index) {
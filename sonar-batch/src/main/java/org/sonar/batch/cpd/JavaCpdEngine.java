@@ -20,6 +20,7 @@
 
 package org.sonar.batch.cpd;
 
+import com.google.common.base.Predicate;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import org.apache.commons.io.IOUtils;
@@ -58,16 +59,12 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.nio.charset.Charset;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
 
 public class JavaCpdEngine extends CpdEngine {
 
@@ -121,14 +118,43 @@ public class JavaCpdEngine extends CpdEngine {
     detect(index, context, sourceFiles);
   }
 
-  private SonarDuplicationsIndex createIndex(@Nullable Project project, String language, Iterable<InputFile> sourceFiles) {
+  private SonarDuplicationsIndex createIndex(@Nullable Project project, String language, List<InputFile> sourceFiles) {
     final SonarDuplicationsIndex index = indexFactory.create(project, language);
 
-    TokenChunker tokenChunker = JavaTokenProducer.build();
-    StatementChunker statementChunker = JavaStatementBuilder.build();
-    BlockChunker blockChunker = new BlockChunker(BLOCK_SIZE);
+    // chunkers are not thread-safe
+    final ThreadLocal<Chunkers> chunkers = new ThreadLocal<Chunkers>() {
+      @Override
+      protected Chunkers initialValue() {
+        return new Chunkers();
+      }
+    };
+
+    new CpdExecutor<List<Block>>("tokenization", getThreads(settings), 0) {
+      @Override
+      Callable<List<Block>> newTask(final InputFile inputFile) {
+        return new Callable<List<Block>>() {
+          @Override
+          public List<Block> call() {
+            return chunkers.get().chunk(inputFile, fs.encoding());
+          }
+        };
+      }
+
+      @Override
+      void onResult(InputFile inputFile, @Nullable List<Block> blocks) {
+        index.insert(inputFile, blocks);
+      }
+    }.execute(sourceFiles);
+
+    return index;
+  }
+
+  private static class Chunkers {
+    private final TokenChunker tokenChunker = JavaTokenProducer.build();
+    private final StatementChunker statementChunker = JavaStatementBuilder.build();
+    private final BlockChunker blockChunker = new BlockChunker(BLOCK_SIZE);
 
-    for (InputFile inputFile : sourceFiles) {
+    List<Block> chunk(InputFile inputFile, Charset encoding) {
       LOG.debug("Populating index from {}", inputFile);
       String resourceEffectiveKey = ((DefaultInputFile) inputFile).key();
 
@@ -136,7 +162,7 @@ public class JavaCpdEngine extends CpdEngine {
 
       Reader reader = null;
       try {
-        reader = new InputStreamReader(new FileInputStream(inputFile.file()), fs.encoding());
+        reader = new InputStreamReader(new FileInputStream(inputFile.file()), encoding);
         statements = statementChunker.chunk(tokenChunker.chunk(reader));
       } catch (FileNotFoundException e) {
         throw new SonarException("Cannot find file " + inputFile.file(), e);
@@ -144,39 +170,38 @@ public class JavaCpdEngine extends CpdEngine {
         IOUtils.closeQuietly(reader);
       }
 
-      List<Block> blocks = blockChunker.chunk(resourceEffectiveKey, statements);
-      index.insert(inputFile, blocks);
+      return blockChunker.chunk(resourceEffectiveKey, statements);
     }
-
-    return index;
   }
 
   private void detect(SonarDuplicationsIndex index, org.sonar.api.batch.sensor.SensorContext context, List<InputFile> sourceFiles) {
-    ExecutorService executorService = Executors.newSingleThreadExecutor();
-    try {
-      for (InputFile inputFile : sourceFiles) {
+    detect(index, context, sourceFiles, getThreads(settings), null);
+  }
+
+  /**
+   * Detection is executed on {@code threads} threads, but blocks of files are loaded and
+   * duplications are saved by the current thread.
+   */
+  static void detect(final SonarDuplicationsIndex index, final org.sonar.api.batch.sensor.SensorContext context, List<InputFile> sourceFiles, int threads,
+    @Nullable final Predicate<CloneGroup> filter) {
+    int nbThreads = index.isCrossProject() ? 1 : threads;
+    new CpdExecutor<List<CloneGroup>>("detection of duplications", nbThreads, TIMEOUT) {
+      @Override
+      Callable<List<CloneGroup>> newTask(InputFile inputFile) {
         LOG.debug("Detection of duplications for {}", inputFile);
         String resourceEffectiveKey = ((DefaultInputFile) inputFile).key();
+        return new Task(index, index.getByInputFile(inputFile, resourceEffectiveKey));
+      }
 
-        Collection<Block> fileBlocks = index.getByInputFile(inputFile, resourceEffectiveKey);
-
-        List<CloneGroup> clones;
-        try {
-          clones = executorService.submit(new Task(index, fileBlocks)).get(TIMEOUT, TimeUnit.SECONDS);
-        } catch (TimeoutException e) {
-          clones = null;
-          LOG.warn("Timeout during detection of duplications for " + inputFile, e);
-        } catch (InterruptedException e) {
-          throw new SonarException("Fail during detection of duplication for " + inputFile, e);
-        } catch (ExecutionException e) {
-          throw new SonarException("Fail during detection of duplication for " + inputFile, e);
+      @Override
+      void onResult(InputFile inputFile, @Nullable List<CloneGroup> clones) {
+        if (clones == null || filter == null) {
+          save(context, inputFile, clones);
+        } else {
+          save(context, inputFile, Iterables.filter(clones, filter));
         }
-
-        save(context, inputFile, clones);
       }
-    } finally {
-      executorService.shutdown();
-    }
+    }.execute(sourceFiles);
   }
 
   static class Task implements Callable<List<CloneGroup>> {
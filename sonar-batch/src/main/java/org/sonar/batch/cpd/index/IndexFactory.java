@@ -23,6 +23,7 @@ import com.google.common.annotations.VisibleForTesting;
 import javax.annotation.Nullable;
 import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.sonar.api.CoreProperties;
 import org.sonar.api.batch.BatchSide;
 import org.sonar.api.config.Settings;
@@ -32,22 +33,31 @@ import org.sonar.batch.bootstrap.DefaultAnalysisMode;
 @BatchSide
 public class IndexFactory {
 
+  private static final Logger LOG = LoggerFactory.getLogger(IndexFactory.class);
+
   private final Settings settings;
   private final DefaultAnalysisMode mode;
+  private boolean verified = false;
 
   public IndexFactory(DefaultAnalysisMode mode, Settings settings) {
     this.mode = mode;
     this.settings = settings;
   }
 
+  /**
+   * Blocks are not persisted by the compute engine, so duplications are always detected within the analysed project,
+   * even when {@link CoreProperties#CPD_CROSS_PROJECT} is enabled. The reason is logged on the first call.
+   */
   public SonarDuplicationsIndex create(@Nullable Project project, String languageKey) {
+    if (!verified) {
+      verifyCrossProject(project, LOG);
+      verified = true;
+    }
     return new SonarDuplicationsIndex();
   }
 
   @VisibleForTesting
-  boolean verifyCrossProject(@Nullable Project project, Logger logger) {
-    boolean crossProject = false;
-
+  void verifyCrossProject(@Nullable Project project, Logger logger) {
     if (settings.getBoolean(CoreProperties.CPD_CROSS_PROJECT)) {
       if (mode.isPreview()) {
         logger.info("Cross-project analysis disabled. Not supported in preview mode.");
@@ -57,12 +67,10 @@ public class IndexFactory {
         // New sensor mode
         logger.info("Cross-project analysis disabled. Not supported in new sensor mode.");
       } else {
-        logger.info("Cross-project analysis enabled");
-        crossProject = true;
+        logger.warn("Cross-project analysis is not available, duplications are detected within the project only.");
       }
     } else {
       logger.info("Cross-project analysis disabled");
     }
-    return crossProject;
   }
 }
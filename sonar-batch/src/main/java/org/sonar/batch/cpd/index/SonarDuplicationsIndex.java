@@ -43,6 +43,18 @@ public class SonarDuplicationsIndex extends AbstractCloneIndex {
     this.db = db;
   }
 
+  /**
+   * Blocks of cross-project duplications are loaded file by file, see {@link #getByInputFile(InputFile, String)}, so
+   * detection can't be executed concurrently on several files.
+   */
+  public boolean isCrossProject() {
+    return db != null;
+  }
+
+  /**
+   * Insertions are not thread-safe. Once all files are inserted, blocks can be queried concurrently
+   * unless {@link #isCrossProject()}.
+   */
   public void insert(InputFile inputFile, Collection<Block> blocks) {
     for (Block block : blocks) {
       mem.insert(block);
@@ -19,7 +19,9 @@
  */
 package org.sonar.batch.index;
 
+import org.apache.commons.lang.StringUtils;
 import org.sonar.api.utils.TempFolder;
+import org.sonar.batch.bootstrap.BootstrapProperties;
 
 import com.persistit.Persistit;
 import com.persistit.exception.PersistitException;
@@ -32,22 +34,48 @@ import org.sonar.api.batch.BatchSide;
 import java.io.File;
 import java.util.Properties;
 
+import javax.annotation.Nullable;
+
 /**
- * Factory of caches
+ * Factory of caches. Values are kept in the memory buffers of Persistit and are spilled
+ * to disk beyond the memory budget defined by {@link #MEMORY_PROPERTY}.
  *
  * @since 3.6
  */
 @BatchSide
 public class CachesManager implements Startable {
+
+  /**
+   * Memory budget of caches, in Mb. By default caches use only {@link #MIN_BUFFERS} pages of memory.
+   */
+  public static final String MEMORY_PROPERTY = "sonar.batch.cache.memory";
+  static final int PAGE_SIZE = 8192;
+  static final int MIN_BUFFERS = 10;
+
   private File tempDir;
   private Persistit persistit;
   private final TempFolder tempFolder;
+  private final int bufferCount;
 
-  public CachesManager(TempFolder tempFolder) {
+  public CachesManager(TempFolder tempFolder, BootstrapProperties bootstrapProps) {
     this.tempFolder = tempFolder;
+    this.bufferCount = bufferCount(bootstrapProps.property(MEMORY_PROPERTY));
     initPersistit();
   }
 
+  static int bufferCount(@Nullable String memoryInMb) {
+    if (StringUtils.isBlank(memoryInMb)) {
+      return MIN_BUFFERS;
+    }
+    long bytes;
+    try {
+      bytes = Long.parseLong(memoryInMb.trim()) * 1024L * 1024L;
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException(String.format("Value of property %s must be a number of Mb: %s", MEMORY_PROPERTY, memoryInMb), e);
+    }
+    return (int) Math.min(Integer.MAX_VALUE, Math.max(MIN_BUFFERS, bytes / PAGE_SIZE));
+  }
+
   private void initPersistit() {
     try {
       tempDir = tempFolder.newDir("caches");
@@ -57,7 +85,7 @@ public class CachesManager implements Startable {
       props.setProperty("datapath", tempDir.getAbsolutePath());
       props.setProperty("logpath", "${datapath}/log");
       props.setProperty("logfile", "${logpath}/persistit_${timestamp}.log");
-      props.setProperty("buffer.count.8192", "10");
+      props.setProperty("buffer.count." + PAGE_SIZE, String.valueOf(bufferCount));
       props.setProperty("journalpath", "${datapath}/journal");
       props.setProperty("tmpvoldir", "${datapath}");
       props.setProperty("volume.1", "${datapath}/persistit,create,pageSize:8192,initialPages:10,extensionPages:100,maximumPages:25000");
@@ -88,6 +116,10 @@ public class CachesManager implements Startable {
     tempDir = null;
   }
 
+  int bufferCount() {
+    return bufferCount;
+  }
+
   File tempDir() {
     return tempDir;
   }
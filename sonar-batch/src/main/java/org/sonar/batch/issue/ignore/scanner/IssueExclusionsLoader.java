@@ -55,6 +55,14 @@ public final class IssueExclusionsLoader {
    * {@inheritDoc}
    */
   public void execute() {
+    try {
+      scanFiles();
+    } finally {
+      regexpScanner.clearScannedFiles();
+    }
+  }
+
+  private void scanFiles() {
     Charset sourcesEncoding = fileSystem.encoding();
 
     for (InputFile inputFile : fileSystem.inputFiles(fileSystem.predicates().all())) {
@@ -17,28 +17,37 @@
  * along with this program; if not, write to the Free Software Foundation,
  * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
  */
-
 package org.sonar.batch.issue.ignore.scanner;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
-import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.sonar.api.batch.BatchSide;
+import org.sonar.api.batch.fs.internal.DefaultInputFile;
+import org.sonar.api.batch.fs.internal.FileMetadata;
 import org.sonar.batch.issue.ignore.pattern.IssueExclusionPatternInitializer;
 import org.sonar.batch.issue.ignore.pattern.IssuePattern;
 import org.sonar.batch.issue.ignore.pattern.LineRange;
+import org.sonar.batch.scan.filesystem.CharHandlerFactory;
+
+import javax.annotation.CheckForNull;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.charset.Charset;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
+/**
+ * Files are scanned while being indexed, see {@link CharHandlerFactory}. The exclusions are registered
+ * later by {@link #scan(String, File, Charset)}, which reads again only the files that were not indexed.
+ */
 @BatchSide
-public class IssueExclusionsRegexpScanner {
+public class IssueExclusionsRegexpScanner implements CharHandlerFactory {
 
   private static final Logger LOG = LoggerFactory.getLogger(IssueExclusionsRegexpScanner.class);
 
@@ -46,16 +55,12 @@ public class IssueExclusionsRegexpScanner {
   private List<java.util.regex.Pattern> allFilePatterns;
   private List<DoubleRegexpMatcher> blockMatchers;
 
-  // fields to be reset at every new scan
-  private DoubleRegexpMatcher currentMatcher;
-  private int fileLength;
-  private List<LineExclusion> lineExclusions;
-  private LineExclusion currentLineExclusion;
+  // files scanned during indexing, by component key
+  private final ConcurrentMap<String, ExclusionsHandler> scannedFiles = new ConcurrentHashMap<>();
 
   public IssueExclusionsRegexpScanner(IssueExclusionPatternInitializer patternsInitializer) {
     this.exclusionPatternInitializer = patternsInitializer;
 
-    lineExclusions = Lists.newArrayList();
     allFilePatterns = Lists.newArrayList();
     blockMatchers = Lists.newArrayList();
 
@@ -67,93 +72,151 @@ public class IssueExclusionsRegexpScanner {
         java.util.regex.Pattern.compile(pattern.getBeginBlockRegexp()),
         java.util.regex.Pattern.compile(pattern.getEndBlockRegexp())));
     }
-
-    init();
   }
 
-  private void init() {
-    currentMatcher = null;
-    fileLength = 0;
-    lineExclusions.clear();
-    currentLineExclusion = null;
+  @Override
+  @CheckForNull
+  public FileMetadata.CharHandler create(DefaultInputFile inputFile) {
+    if (allFilePatterns.isEmpty() && blockMatchers.isEmpty()) {
+      return null;
+    }
+    ExclusionsHandler handler = new ExclusionsHandler();
+    scannedFiles.put(inputFile.key(), handler);
+    return handler;
   }
 
   public void scan(String resource, File file, Charset sourcesEncoding) throws IOException {
     LOG.debug("Scanning {}", resource);
-    init();
+    ExclusionsHandler handler = scannedFiles.remove(resource);
+    if (handler == null || !handler.isComplete()) {
+      handler = new ExclusionsHandler();
+      FileMetadata.readFile(file, sourcesEncoding, handler);
+    }
+
+    if (handler.excludeFile) {
+      exclusionPatternInitializer.getPatternMatcher().addPatternToExcludeResource(resource);
+      // nothing more to do on this file
+      LOG.debug("- Exclusion pattern '{}': every violation in this file will be ignored.", handler.excludeFilePattern);
+    } else if (!handler.lineRanges.isEmpty()) {
+      // now create the new line-based pattern for this file if there are exclusions
+      LOG.debug("- Line exclusions found: {}", handler.lineRanges);
+      exclusionPatternInitializer.getPatternMatcher().addPatternToExcludeLines(resource, handler.lineRanges);
+    }
+  }
+
+  /**
+   * Drops the content read during indexing of the files that have not been scanned, for example the unchanged files
+   * that are not indexed in incremental mode.
+   */
+  public void clearScannedFiles() {
+    scannedFiles.clear();
+  }
 
-    List<String> lines = FileUtils.readLines(file, sourcesEncoding.name());
-    int lineIndex = 0;
-    for (String line : lines) {
+  /**
+   * Scans the lines of one file. Only the results are kept once the end of file is reached.
+   */
+  private class ExclusionsHandler extends FileMetadata.CharHandler {
+    private StringBuilder line = new StringBuilder();
+    private int lineIndex = 0;
+    private DoubleRegexpMatcher currentMatcher;
+    private List<LineExclusion> lineExclusions = Lists.newArrayList();
+    private LineExclusion currentLineExclusion;
+
+    private boolean complete = false;
+    private boolean excludeFile = false;
+    private java.util.regex.Pattern excludeFilePattern;
+    private Set<LineRange> lineRanges = Sets.newHashSet();
+
+    @Override
+    protected void handleIgnoreEoL(char c) {
+      if (!excludeFile) {
+        line.append(c);
+      }
+    }
+
+    @Override
+    protected void newLine() {
       lineIndex++;
-      if (line.trim().length() == 0) {
-        continue;
+      scanLine();
+    }
+
+    @Override
+    protected void eof() {
+      // a line feed at the end of file does not start a new line
+      if (line.length() > 0) {
+        lineIndex++;
+        scanLine();
+      }
+      if (!excludeFile) {
+        if (currentMatcher != null && !currentMatcher.hasSecondPattern()) {
+          // this will happen when there is a start block regexp but no end block regexp
+          endExclusion(lineIndex + 1);
+        }
+        for (LineExclusion lineExclusion : lineExclusions) {
+          lineRanges.add(lineExclusion.toLineRange(lineIndex));
+        }
+      }
+      line = null;
+      lineExclusions = null;
+      complete = true;
+    }
+
+    boolean isComplete() {
+      return complete;
+    }
+
+    private void scanLine() {
+      if (excludeFile) {
+        return;
+      }
+      String text = line.toString();
+      line.setLength(0);
+      if (text.trim().length() == 0) {
+        return;
       }
 
       // first check the single regexp patterns that can be used to totally exclude a file
       for (java.util.regex.Pattern pattern : allFilePatterns) {
-        if (pattern.matcher(line).find()) {
-          exclusionPatternInitializer.getPatternMatcher().addPatternToExcludeResource(resource);
-          // nothing more to do on this file
-          LOG.debug("- Exclusion pattern '{}': every violation in this file will be ignored.", pattern);
+        if (pattern.matcher(text).find()) {
+          excludeFile = true;
+          excludeFilePattern = pattern;
           return;
         }
       }
 
       // then check the double regexps if we're still here
-      checkDoubleRegexps(line, lineIndex);
+      checkDoubleRegexps(text, lineIndex);
     }
 
-    if (currentMatcher != null && !currentMatcher.hasSecondPattern()) {
-      // this will happen when there is a start block regexp but no end block regexp
-      endExclusion(lineIndex + 1);
-    }
-
-    // now create the new line-based pattern for this file if there are exclusions
-    fileLength = lineIndex;
-    if (!lineExclusions.isEmpty()) {
-      Set<LineRange> lineRanges = convertLineExclusionsToLineRanges();
-      LOG.debug("- Line exclusions found: {}", lineRanges);
-      exclusionPatternInitializer.getPatternMatcher().addPatternToExcludeLines(resource, lineRanges);
-    }
-  }
-
-  private Set<LineRange> convertLineExclusionsToLineRanges() {
-    Set<LineRange> lineRanges = Sets.newHashSet();
-    for (LineExclusion lineExclusion : lineExclusions) {
-      lineRanges.add(lineExclusion.toLineRange());
-    }
-    return lineRanges;
-  }
-
-  private void checkDoubleRegexps(String line, int lineIndex) {
-    if (currentMatcher == null) {
-      for (DoubleRegexpMatcher matcher : blockMatchers) {
-        if (matcher.matchesFirstPattern(line)) {
-          startExclusion(lineIndex);
-          currentMatcher = matcher;
-          break;
+    private void checkDoubleRegexps(String text, int lineIndex) {
+      if (currentMatcher == null) {
+        for (DoubleRegexpMatcher matcher : blockMatchers) {
+          if (matcher.matchesFirstPattern(text)) {
+            startExclusion(lineIndex);
+            currentMatcher = matcher;
+            break;
+          }
+        }
+      } else {
+        if (currentMatcher.matchesSecondPattern(text)) {
+          endExclusion(lineIndex);
+          currentMatcher = null;
         }
-      }
-    } else {
-      if (currentMatcher.matchesSecondPattern(line)) {
-        endExclusion(lineIndex);
-        currentMatcher = null;
       }
     }
-  }
 
-  private void startExclusion(int lineIndex) {
-    currentLineExclusion = new LineExclusion(lineIndex);
-    lineExclusions.add(currentLineExclusion);
-  }
+    private void startExclusion(int lineIndex) {
+      currentLineExclusion = new LineExclusion(lineIndex);
+      lineExclusions.add(currentLineExclusion);
+    }
 
-  private void endExclusion(int lineIndex) {
-    currentLineExclusion.setEnd(lineIndex);
-    currentLineExclusion = null;
+    private void endExclusion(int lineIndex) {
+      currentLineExclusion.setEnd(lineIndex);
+      currentLineExclusion = null;
+    }
   }
 
-  private class LineExclusion {
+  private static class LineExclusion {
 
     private int start;
     private int end;
@@ -167,7 +230,7 @@ public class IssueExclusionsRegexpScanner {
       this.end = end;
     }
 
-    public LineRange toLineRange() {
+    public LineRange toLineRange(int fileLength) {
       return new LineRange(start, end == -1 ? fileLength : end);
     }
 
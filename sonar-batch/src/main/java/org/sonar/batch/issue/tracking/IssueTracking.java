@@ -23,6 +23,7 @@ package org.sonar.batch.issue.tracking;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Objects;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.HashMultimap;
 import com.google.common.collect.LinkedHashMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
@@ -30,6 +31,7 @@ import com.google.common.collect.Multimap;
 import org.sonar.api.batch.BatchSide;
 import org.sonar.api.batch.InstantiationStrategy;
 import org.sonar.api.issue.internal.DefaultIssue;
+import org.sonar.api.rule.RuleKey;
 
 import javax.annotation.Nullable;
 
@@ -38,11 +40,15 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
 
 @InstantiationStrategy(InstantiationStrategy.PER_BATCH)
 @BatchSide
 public class IssueTracking {
 
+  private static final int MAX_LINE_PAIRS = 250000;
+
   /**
    * @param sourceHashHolder Null when working on resource that is not a file (directory/project)
    */
@@ -159,14 +165,11 @@ public class IssueTracking {
       }
     }
 
-    // Check if remaining number of lines exceeds threshold
-    if (lastIssuesByLines.keySet().size() * newIssuesByLines.keySet().size() < 250000) {
-      List<LinePair> possibleLinePairs = Lists.newArrayList();
-      for (Integer oldLine : lastIssuesByLines.keySet()) {
-        for (Integer newLine : newIssuesByLines.keySet()) {
-          int weight = rec.computeLengthOfMaximalBlock(oldLine, newLine);
-          possibleLinePairs.add(new LinePair(oldLine, newLine, weight));
-        }
+    // Check if remaining number of line pairs exceeds threshold
+    List<LinePair> possibleLinePairs = possibleLinePairs(lastIssuesByLines, newIssuesByLines);
+    if (possibleLinePairs.size() < MAX_LINE_PAIRS) {
+      for (LinePair linePair : possibleLinePairs) {
+        linePair.weight = rec.computeLengthOfMaximalBlock(linePair.lineA, linePair.lineB);
       }
       Collections.sort(possibleLinePairs, LINE_PAIR_COMPARATOR);
       for (LinePair linePair : possibleLinePairs) {
@@ -176,13 +179,45 @@ public class IssueTracking {
     }
   }
 
+  /**
+   * Pairs of old and new lines that have at least one issue on the same rule. Other pairs can't lead to any match.
+   * Pairs are ordered by old line, then by new line, in the order of the multimaps.
+   */
+  private static List<LinePair> possibleLinePairs(Multimap<Integer, ServerIssue> lastIssuesByLines, Multimap<Integer, DefaultIssue> newIssuesByLines) {
+    Map<Integer, Integer> newLinePositions = Maps.newHashMap();
+    for (Integer newLine : newIssuesByLines.keySet()) {
+      newLinePositions.put(newLine, newLinePositions.size());
+    }
+    Multimap<RuleKey, Integer> newLinesByRule = HashMultimap.create();
+    for (Map.Entry<Integer, DefaultIssue> entry : newIssuesByLines.entries()) {
+      newLinesByRule.put(entry.getValue().ruleKey(), entry.getKey());
+    }
+
+    List<LinePair> possibleLinePairs = Lists.newArrayList();
+    for (Integer oldLine : lastIssuesByLines.keySet()) {
+      SortedMap<Integer, Integer> newLinesByPosition = new TreeMap<>();
+      for (ServerIssue lastIssue : lastIssuesByLines.get(oldLine)) {
+        for (Integer newLine : newLinesByRule.get(lastIssue.ruleKey())) {
+          newLinesByPosition.put(newLinePositions.get(newLine), newLine);
+        }
+      }
+      for (Integer newLine : newLinesByPosition.values()) {
+        possibleLinePairs.add(new LinePair(oldLine, newLine));
+      }
+      if (possibleLinePairs.size() >= MAX_LINE_PAIRS) {
+        break;
+      }
+    }
+    return possibleLinePairs;
+  }
+
   private void mapIssuesOnSameRule(Collection<DefaultIssue> newIssues, IssueTrackingResult result) {
     // Try then to match issues on same rule with same message and with same checksum
     for (DefaultIssue newIssue : newIssues) {
       if (isNotAlreadyMapped(newIssue, result)) {
         mapIssue(
           newIssue,
-          findLastIssueWithSameChecksumAndMessage(newIssue, result.unmatchedByKeyForRule(newIssue.ruleKey()).values()),
+          findLastIssueWithSameChecksumAndMessage(newIssue, result),
           result);
       }
     }
@@ -192,7 +227,7 @@ public class IssueTracking {
       if (isNotAlreadyMapped(newIssue, result)) {
         mapIssue(
           newIssue,
-          findLastIssueWithSameLineAndMessage(newIssue, result.unmatchedByKeyForRule(newIssue.ruleKey()).values()),
+          findLastIssueWithSameLineAndMessage(newIssue, result),
           result);
       }
     }
@@ -203,7 +238,7 @@ public class IssueTracking {
       if (isNotAlreadyMapped(newIssue, result)) {
         mapIssue(
           newIssue,
-          findLastIssueWithSameChecksum(newIssue, result.unmatchedByKeyForRule(newIssue.ruleKey()).values()),
+          findLastIssueWithSameChecksum(newIssue, result),
           result);
       }
     }
@@ -242,27 +277,26 @@ public class IssueTracking {
     return previousIssuesByLines;
   }
 
-  private ServerIssue findLastIssueWithSameChecksum(DefaultIssue newIssue, Collection<ServerIssue> previousIssues) {
-    for (ServerIssue previousIssue : previousIssues) {
-      if (isSameChecksum(newIssue, previousIssue)) {
-        return previousIssue;
-      }
+  private ServerIssue findLastIssueWithSameChecksum(DefaultIssue newIssue, IssueTrackingResult result) {
+    Collection<ServerIssue> sameRuleAndSameChecksum = result.unmatchedForRuleAndChecksum(newIssue.ruleKey(), newIssue.checksum());
+    if (!sameRuleAndSameChecksum.isEmpty()) {
+      return sameRuleAndSameChecksum.iterator().next();
     }
     return null;
   }
 
-  private ServerIssue findLastIssueWithSameLineAndMessage(DefaultIssue newIssue, Collection<ServerIssue> previousIssues) {
-    for (ServerIssue previousIssue : previousIssues) {
-      if (isSameLine(newIssue, previousIssue) && isSameMessage(newIssue, previousIssue)) {
+  private ServerIssue findLastIssueWithSameLineAndMessage(DefaultIssue newIssue, IssueTrackingResult result) {
+    for (ServerIssue previousIssue : result.unmatchedForRuleAndLine(newIssue.ruleKey(), newIssue.line())) {
+      if (isSameMessage(newIssue, previousIssue)) {
         return previousIssue;
       }
     }
     return null;
   }
 
-  private ServerIssue findLastIssueWithSameChecksumAndMessage(DefaultIssue newIssue, Collection<ServerIssue> previousIssues) {
-    for (ServerIssue previousIssue : previousIssues) {
-      if (isSameChecksum(newIssue, previousIssue) && isSameMessage(newIssue, previousIssue)) {
+  private ServerIssue findLastIssueWithSameChecksumAndMessage(DefaultIssue newIssue, IssueTrackingResult result) {
+    for (ServerIssue previousIssue : result.unmatchedForRuleAndChecksum(newIssue.ruleKey(), newIssue.checksum())) {
+      if (isSameMessage(newIssue, previousIssue)) {
         return previousIssue;
       }
     }
@@ -278,21 +312,13 @@ public class IssueTracking {
   }
 
   private boolean isNotAlreadyMapped(ServerIssue previousIssue, IssueTrackingResult result) {
-    return result.unmatched().contains(previousIssue);
+    return result.isUnmatched(previousIssue);
   }
 
   private boolean isNotAlreadyMapped(DefaultIssue newIssue, IssueTrackingResult result) {
     return !result.isMatched(newIssue);
   }
 
-  private boolean isSameChecksum(DefaultIssue newIssue, ServerIssue previousIssue) {
-    return Objects.equal(previousIssue.checksum(), newIssue.checksum());
-  }
-
-  private boolean isSameLine(DefaultIssue newIssue, ServerIssue previousIssue) {
-    return Objects.equal(previousIssue.line(), newIssue.line());
-  }
-
   private boolean isSameMessage(DefaultIssue newIssue, ServerIssue previousIssue) {
     return Objects.equal(newIssue.message(), previousIssue.message());
   }
@@ -313,10 +339,9 @@ public class IssueTracking {
     int lineB;
     int weight;
 
-    public LinePair(int lineA, int lineB, int weight) {
+    public LinePair(int lineA, int lineB) {
       this.lineA = lineA;
       this.lineB = lineB;
-      this.weight = weight;
     }
   }
 
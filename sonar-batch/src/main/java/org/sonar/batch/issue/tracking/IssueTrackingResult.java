@@ -20,6 +20,7 @@
 package org.sonar.batch.issue.tracking;
 
 import com.google.common.collect.HashMultimap;
+import com.google.common.collect.LinkedHashMultimap;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
 import org.apache.commons.lang.StringUtils;
@@ -37,6 +38,8 @@ class IssueTrackingResult {
   private final Map<String, ServerIssue> unmatchedByKey = new HashMap<>();
   private final Map<RuleKey, Map<String, ServerIssue>> unmatchedByRuleAndKey = new HashMap<>();
   private final Map<RuleKey, Map<Integer, Multimap<String, ServerIssue>>> unmatchedByRuleAndLineAndChecksum = new HashMap<>();
+  private final Map<RuleKey, Multimap<String, ServerIssue>> unmatchedByRuleAndChecksum = new HashMap<>();
+  private final Map<RuleKey, Multimap<Integer, ServerIssue>> unmatchedByRuleAndLine = new HashMap<>();
   private final Map<DefaultIssue, ServerIssue> matched = Maps.newIdentityHashMap();
 
   Collection<ServerIssue> unmatched() {
@@ -64,6 +67,26 @@ class IssueTrackingResult {
     return unmatchedForRuleAndLine.get(checksumNotNull);
   }
 
+  /**
+   * Unmatched issues of the rule with the given checksum. Issues without checksum are returned when checksum is null.
+   */
+  Collection<ServerIssue> unmatchedForRuleAndChecksum(RuleKey ruleKey, @Nullable String checksum) {
+    Multimap<String, ServerIssue> unmatchedForRule = unmatchedByRuleAndChecksum.get(ruleKey);
+    return unmatchedForRule != null ? unmatchedForRule.get(checksum) : Collections.<ServerIssue>emptyList();
+  }
+
+  /**
+   * Unmatched issues of the rule on the given line. Issues without line are returned when line is null.
+   */
+  Collection<ServerIssue> unmatchedForRuleAndLine(RuleKey ruleKey, @Nullable Integer line) {
+    Multimap<Integer, ServerIssue> unmatchedForRule = unmatchedByRuleAndLine.get(ruleKey);
+    return unmatchedForRule != null ? unmatchedForRule.get(line) : Collections.<ServerIssue>emptyList();
+  }
+
+  boolean isUnmatched(ServerIssue issue) {
+    return unmatchedByKey.containsKey(issue.key());
+  }
+
   Collection<DefaultIssue> matched() {
     return matched.keySet();
   }
@@ -82,7 +105,11 @@ class IssueTrackingResult {
     if (!unmatchedByRuleAndKey.containsKey(ruleKey)) {
       unmatchedByRuleAndKey.put(ruleKey, new HashMap<String, ServerIssue>());
       unmatchedByRuleAndLineAndChecksum.put(ruleKey, new HashMap<Integer, Multimap<String, ServerIssue>>());
+      unmatchedByRuleAndChecksum.put(ruleKey, LinkedHashMultimap.<String, ServerIssue>create());
+      unmatchedByRuleAndLine.put(ruleKey, LinkedHashMultimap.<Integer, ServerIssue>create());
     }
+    unmatchedByRuleAndChecksum.get(ruleKey).put(i.checksum(), i);
+    unmatchedByRuleAndLine.get(ruleKey).put(i.line(), i);
     unmatchedByRuleAndKey.get(ruleKey).put(i.key(), i);
     Map<Integer, Multimap<String, ServerIssue>> unmatchedForRule = unmatchedByRuleAndLineAndChecksum.get(ruleKey);
     Integer lineNotNull = lineNotNull(i);
@@ -107,5 +134,7 @@ class IssueTrackingResult {
     Integer lineNotNull = lineNotNull(matching);
     String checksumNotNull = StringUtils.defaultString(matching.checksum(), "");
     unmatchedByRuleAndLineAndChecksum.get(ruleKey).get(lineNotNull).get(checksumNotNull).remove(matching);
+    unmatchedByRuleAndChecksum.get(ruleKey).remove(matching.checksum(), matching);
+    unmatchedByRuleAndLine.get(ruleKey).remove(matching.line(), matching);
   }
 }
@@ -23,6 +23,7 @@ import com.google.common.collect.Lists;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.SystemUtils;
 import org.sonar.api.batch.Decorator;
+import org.sonar.api.batch.Sensor;
 import org.sonar.api.batch.events.DecoratorExecutionHandler;
 import org.sonar.api.batch.events.DecoratorsPhaseHandler;
 import org.sonar.api.batch.events.SensorExecutionHandler;
@@ -39,7 +40,10 @@ public class PhasesTimeProfiler implements SensorExecutionHandler, DecoratorExec
 
   private static final Logger LOG = Loggers.get(PhasesTimeProfiler.class);
 
-  private Profiler profiler = Profiler.create(LOG);
+  /**
+   * One profiler per sensor, as thread-safe sensors can be executed concurrently
+   */
+  private final Map<Sensor, Profiler> sensorProfilers = new IdentityHashMap<>();
   private DecoratorsProfiler decoratorsProfiler = new DecoratorsProfiler();
 
   @Override
@@ -50,11 +54,14 @@ public class PhasesTimeProfiler implements SensorExecutionHandler, DecoratorExec
   }
 
   @Override
-  public void onSensorExecution(SensorExecutionEvent event) {
+  public synchronized void onSensorExecution(SensorExecutionEvent event) {
     if (event.isStart()) {
-      profiler.startInfo("Sensor " + event.getSensor());
+      sensorProfilers.put(event.getSensor(), Profiler.create(LOG).startInfo("Sensor " + event.getSensor()));
     } else {
-      profiler.stopInfo();
+      Profiler profiler = sensorProfilers.remove(event.getSensor());
+      if (profiler != null) {
+        profiler.stopInfo();
+      }
     }
   }
 
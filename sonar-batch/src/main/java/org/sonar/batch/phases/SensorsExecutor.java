@@ -19,43 +19,149 @@
  */
 package org.sonar.batch.phases;
 
+import com.google.common.base.Throwables;
 import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.sonar.api.batch.BatchSide;
 import org.sonar.api.batch.Sensor;
 import org.sonar.api.batch.SensorContext;
+import org.sonar.api.config.Settings;
 import org.sonar.api.resources.Project;
 import org.sonar.batch.bootstrap.BatchExtensionDictionnary;
 import org.sonar.batch.events.EventBus;
+import org.sonar.batch.sensor.SensorWrapper;
 
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 @BatchSide
 public class SensorsExecutor {
 
+  /**
+   * Maximum number of thread-safe sensors executed concurrently, see {@link org.sonar.api.batch.sensor.SensorDescriptor#threadSafe()}.
+   * Sensors are executed one by one by default.
+   */
+  public static final String THREADS_PROPERTY = "sonar.sensors.threads";
+
   private EventBus eventBus;
   private Project module;
   private BatchExtensionDictionnary selector;
+  private Settings settings;
 
-  public SensorsExecutor(BatchExtensionDictionnary selector, Project project, EventBus eventBus) {
+  public SensorsExecutor(BatchExtensionDictionnary selector, Project project, EventBus eventBus, Settings settings) {
     this.selector = selector;
     this.eventBus = eventBus;
     this.module = project;
+    this.settings = settings;
   }
 
   public void execute(SensorContext context) {
     Collection<Sensor> sensors = selector.select(Sensor.class, module, true, null);
     eventBus.fireEvent(new SensorsPhaseEvent(Lists.newArrayList(sensors), true));
 
-    for (Sensor sensor : sensors) {
-      executeSensor(context, sensor);
+    int threads = settings.getInt(THREADS_PROPERTY);
+    if (threads > 1) {
+      executeConcurrently(context, sensors, threads);
+    } else {
+      for (Sensor sensor : sensors) {
+        executeSensor(context, sensor);
+      }
     }
 
     eventBus.fireEvent(new SensorsPhaseEvent(Lists.newArrayList(sensors), false));
   }
 
+  /**
+   * Sensors are sorted according to their phases and dependencies. Only the contiguous sensors that are thread-safe,
+   * that do not declare dependencies and that belong to the same phase can be executed concurrently without breaking
+   * this order.
+   */
+  private void executeConcurrently(SensorContext context, Collection<Sensor> sensors, int threads) {
+    List<Sensor> group = Lists.newArrayList();
+    for (Sensor sensor : sensors) {
+      if (!canBeExecutedConcurrently(sensor)) {
+        executeGroup(context, group, threads);
+        executeSensor(context, sensor);
+      } else {
+        if (!group.isEmpty() && selector.evaluatePhase(group.get(0)) != selector.evaluatePhase(sensor)) {
+          executeGroup(context, group, threads);
+        }
+        group.add(sensor);
+      }
+    }
+    executeGroup(context, group, threads);
+  }
+
+  /**
+   * Only sensors of the new API can be declared as thread-safe. They save data exclusively through
+   * {@link org.sonar.batch.sensor.DefaultSensorStorage}, which serializes writes.
+   */
+  private boolean canBeExecutedConcurrently(Sensor sensor) {
+    return sensor instanceof SensorWrapper
+      && ((SensorWrapper) sensor).isThreadSafe()
+      && !selector.hasDependencies(sensor);
+  }
+
+  private void executeGroup(SensorContext context, List<Sensor> group, int threads) {
+    if (group.size() == 1) {
+      executeSensor(context, group.get(0));
+    } else if (group.size() > 1) {
+      ExecutorService executorService = Executors.newFixedThreadPool(Math.min(threads, group.size()),
+        new ThreadFactoryBuilder().setNameFormat("sensor-%d").setDaemon(true).build());
+      List<Future<Void>> futures = Lists.newArrayList();
+      try {
+        for (Sensor sensor : group) {
+          futures.add(executorService.submit(new SensorTask(context, sensor)));
+        }
+        for (Future<Void> future : futures) {
+          future.get();
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while executing sensors", e);
+      } catch (ExecutionException e) {
+        throw Throwables.propagate(e.getCause());
+      } finally {
+        for (Future<Void> future : futures) {
+          future.cancel(true);
+        }
+        executorService.shutdown();
+      }
+    }
+    group.clear();
+  }
+
   private void executeSensor(SensorContext context, Sensor sensor) {
-    eventBus.fireEvent(new SensorExecutionEvent(sensor, true));
+    fireSensorExecution(sensor, true);
     sensor.analyse(module, context);
-    eventBus.fireEvent(new SensorExecutionEvent(sensor, false));
+    fireSensorExecution(sensor, false);
+  }
+
+  private void fireSensorExecution(Sensor sensor, boolean start) {
+    // handlers are not thread-safe
+    synchronized (eventBus) {
+      eventBus.fireEvent(new SensorExecutionEvent(sensor, start));
+    }
+  }
+
+  private class SensorTask implements Callable<Void> {
+    private final SensorContext context;
+    private final Sensor sensor;
+
+    private SensorTask(SensorContext context, Sensor sensor) {
+      this.context = context;
+      this.sensor = sensor;
+    }
+
+    @Override
+    public Void call() {
+      executeSensor(context, sensor);
+      return null;
+    }
   }
 }
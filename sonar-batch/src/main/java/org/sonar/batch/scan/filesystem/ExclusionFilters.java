@@ -20,34 +20,45 @@
 package org.sonar.batch.scan.filesystem;
 
 import org.apache.commons.lang.ArrayUtils;
+import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.sonar.api.batch.BatchSide;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.fs.internal.PathPattern;
+import org.sonar.api.batch.fs.internal.PathPatternSet;
 import org.sonar.api.scan.filesystem.FileExclusions;
+import org.sonar.api.utils.WildcardPattern;
+
+import java.util.ArrayList;
+import java.util.List;
 
 @BatchSide
 public class ExclusionFilters {
 
   private static final Logger LOG = LoggerFactory.getLogger(ExclusionFilters.class);
+  private static final String ALL_FILES_SUFFIX = "/**";
 
   private final FileExclusions exclusionSettings;
 
-  private PathPattern[] mainInclusions;
-  private PathPattern[] mainExclusions;
-  private PathPattern[] testInclusions;
-  private PathPattern[] testExclusions;
+  private PathPatternSet mainInclusions;
+  private PathPatternSet mainExclusions;
+  private PathPatternSet testInclusions;
+  private PathPatternSet testExclusions;
+  private WildcardPattern[] mainExcludedDirectories;
+  private WildcardPattern[] testExcludedDirectories;
 
   public ExclusionFilters(FileExclusions exclusions) {
     this.exclusionSettings = exclusions;
   }
 
   public void prepare() {
-    mainInclusions = prepareMainInclusions();
-    mainExclusions = prepareMainExclusions();
-    testInclusions = prepareTestInclusions();
-    testExclusions = prepareTestExclusions();
+    mainInclusions = new PathPatternSet(prepareMainInclusions());
+    mainExclusions = new PathPatternSet(prepareMainExclusions());
+    testInclusions = new PathPatternSet(prepareTestInclusions());
+    testExclusions = new PathPatternSet(prepareTestExclusions());
+    mainExcludedDirectories = prepareExcludedDirectories(mainExclusionPatterns());
+    testExcludedDirectories = prepareExcludedDirectories(exclusionSettings.testExclusions());
     log("Included sources: ", mainInclusions);
     log("Excluded sources: ", mainExclusions);
     log("Included tests: ", testInclusions);
@@ -55,21 +66,21 @@ public class ExclusionFilters {
   }
 
   public boolean hasPattern() {
-    return mainInclusions.length > 0 || mainExclusions.length > 0 || testInclusions.length > 0 || testExclusions.length > 0;
+    return !mainInclusions.isEmpty() || !mainExclusions.isEmpty() || !testInclusions.isEmpty() || !testExclusions.isEmpty();
   }
 
-  private void log(String title, PathPattern[] patterns) {
-    if (patterns.length > 0) {
+  private void log(String title, PathPatternSet patterns) {
+    if (!patterns.isEmpty()) {
       LOG.info(title);
-      for (PathPattern pattern : patterns) {
+      for (PathPattern pattern : patterns.patterns()) {
         LOG.info("  " + pattern);
       }
     }
   }
 
   public boolean accept(InputFile inputFile, InputFile.Type type) {
-    PathPattern[] inclusionPatterns;
-    PathPattern[] exclusionPatterns;
+    PathPatternSet inclusionPatterns;
+    PathPatternSet exclusionPatterns;
     if (InputFile.Type.MAIN == type) {
       inclusionPatterns = mainInclusions;
       exclusionPatterns = mainExclusions;
@@ -80,23 +91,10 @@ public class ExclusionFilters {
       throw new IllegalArgumentException("Unknown file type: " + type);
     }
 
-    if (inclusionPatterns.length > 0) {
-      boolean matchInclusion = false;
-      for (PathPattern pattern : inclusionPatterns) {
-        matchInclusion |= pattern.match(inputFile);
-      }
-      if (!matchInclusion) {
-        return false;
-      }
-    }
-    if (exclusionPatterns.length > 0) {
-      for (PathPattern pattern : exclusionPatterns) {
-        if (pattern.match(inputFile)) {
-          return false;
-        }
-      }
+    if (!inclusionPatterns.isEmpty() && !inclusionPatterns.match(inputFile)) {
+      return false;
     }
-    return true;
+    return exclusionPatterns.isEmpty() || !exclusionPatterns.match(inputFile);
   }
 
   PathPattern[] prepareMainInclusions() {
@@ -120,12 +118,49 @@ public class ExclusionFilters {
   }
 
   PathPattern[] prepareMainExclusions() {
-    String[] patterns = (String[]) ArrayUtils.addAll(
-      exclusionSettings.sourceExclusions(), computeTestInclusions());
-    return PathPattern.create(patterns);
+    return PathPattern.create(mainExclusionPatterns());
+  }
+
+  private String[] mainExclusionPatterns() {
+    return (String[]) ArrayUtils.addAll(exclusionSettings.sourceExclusions(), computeTestInclusions());
   }
 
   PathPattern[] prepareTestExclusions() {
     return PathPattern.create(exclusionSettings.testExclusions());
   }
+
+  /**
+   * Relative exclusion patterns ending with <code>/**</code>, like <code>**&#47;node_modules/**</code>, exclude all the
+   * files of the directories matching the beginning of the pattern.
+   */
+  private static WildcardPattern[] prepareExcludedDirectories(String[] exclusionPatterns) {
+    List<WildcardPattern> result = new ArrayList<>();
+    for (String exclusionPattern : exclusionPatterns) {
+      String trimmed = StringUtils.trim(exclusionPattern);
+      if (trimmed.endsWith(ALL_FILES_SUFFIX) && !StringUtils.startsWithIgnoreCase(trimmed, "file:")) {
+        result.add(WildcardPattern.create(StringUtils.removeEnd(trimmed, ALL_FILES_SUFFIX)));
+      }
+    }
+    return result.toArray(new WildcardPattern[result.size()]);
+  }
+
+  /**
+   * Whether all the files of the directory are excluded, so that it does not need to be traversed.
+   * @param relativePath path of the directory relative to module base directory. The base directory itself,
+   * with an empty relative path, is never excluded.
+   */
+  public boolean isExcludedDirectory(String relativePath, InputFile.Type type) {
+    if (relativePath.isEmpty()) {
+      return false;
+    }
+    WildcardPattern[] excludedDirectories;
+    if (InputFile.Type.MAIN == type) {
+      excludedDirectories = mainExcludedDirectories;
+    } else if (InputFile.Type.TEST == type) {
+      excludedDirectories = testExcludedDirectories;
+    } else {
+      throw new IllegalArgumentException("Unknown file type: " + type);
+    }
+    return WildcardPattern.match(excludedDirectories, relativePath);
+  }
 }
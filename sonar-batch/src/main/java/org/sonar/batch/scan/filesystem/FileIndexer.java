@@ -19,12 +19,7 @@
  */
 package org.sonar.batch.scan.filesystem;
 
-import org.apache.commons.io.FileUtils;
-import org.apache.commons.io.filefilter.FileFilterUtils;
-import org.apache.commons.io.filefilter.HiddenFileFilter;
-import org.apache.commons.io.filefilter.IOFileFilter;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import org.apache.commons.io.FilenameUtils;
 import org.sonar.api.batch.BatchSide;
 import org.sonar.api.batch.bootstrap.ProjectDefinition;
 import org.sonar.api.batch.fs.InputFile;
@@ -33,12 +28,21 @@ import org.sonar.api.batch.fs.internal.DefaultInputDir;
 import org.sonar.api.batch.fs.internal.DefaultInputFile;
 import org.sonar.api.scan.filesystem.PathResolver;
 import org.sonar.api.utils.MessageException;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
 import org.sonar.batch.util.ProgressReport;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystemLoopException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -55,10 +59,7 @@ import java.util.concurrent.TimeUnit;
 @BatchSide
 public class FileIndexer {
 
-  private static final Logger LOG = LoggerFactory.getLogger(FileIndexer.class);
-
-  private static final IOFileFilter DIR_FILTER = FileFilterUtils.and(HiddenFileFilter.VISIBLE, FileFilterUtils.notFileFilter(FileFilterUtils.prefixFileFilter(".")));
-  private static final IOFileFilter FILE_FILTER = HiddenFileFilter.VISIBLE;
+  private static final Logger LOG = Loggers.get(FileIndexer.class);
 
   private final List<InputFileFilter> filters;
   private final boolean isAggregator;
@@ -127,11 +128,80 @@ public class FileIndexer {
     }
   }
 
-  private void indexDirectory(InputFileBuilder inputFileBuilder, DefaultModuleFileSystem fileSystem, Progress status, File dirToIndex, InputFile.Type type) {
-    Collection<File> files = FileUtils.listFiles(dirToIndex, FILE_FILTER, DIR_FILTER);
-    for (File file : files) {
-      indexFile(inputFileBuilder, fileSystem, status, file, type);
+  private void indexDirectory(final InputFileBuilder inputFileBuilder, final DefaultModuleFileSystem fileSystem, final Progress status,
+    final File dirToIndex, final InputFile.Type type) {
+    final Path root = dirToIndex.toPath();
+    // null if the directory is not located in module basedir
+    final String rootRelativePath = new PathResolver().relativePath(fileSystem.baseDir(), dirToIndex);
+    try {
+      Files.walkFileTree(root, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE, new SimpleFileVisitor<Path>() {
+        // number of directories entered through a symbolic link. Their canonical path can't be computed from root.
+        private int linkedDepth = 0;
+
+        @Override
+        public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+          if (dir.equals(root)) {
+            // the source directory itself is never pruned, some of its files may not be excluded
+            return FileVisitResult.CONTINUE;
+          }
+          if (isHiddenDirectory(dir)) {
+            return FileVisitResult.SKIP_SUBTREE;
+          }
+          if (linkedDepth > 0 || Files.isSymbolicLink(dir)) {
+            linkedDepth++;
+          } else if (rootRelativePath != null && exclusionFilters.isExcludedDirectory(relativePath(root, rootRelativePath, dir), type)) {
+            // all the files of the directory are excluded, there's no need to traverse it
+            return FileVisitResult.SKIP_SUBTREE;
+          }
+          return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+          if (attrs.isRegularFile() && !file.toFile().isHidden()) {
+            indexFile(inputFileBuilder, fileSystem, status, file.toFile(), type);
+          }
+          return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult visitFileFailed(Path file, IOException exc) {
+          if (exc instanceof FileSystemLoopException) {
+            LOG.warn("Directory '{}' is ignored. It is a symbolic link to one of its parent directories.", file);
+          } else {
+            // for example a directory that is not readable by the current user
+            LOG.warn("'{}' is ignored. It can't be read: {}", file, exc.toString());
+          }
+          return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult postVisitDirectory(Path dir, IOException exc) {
+          if (linkedDepth > 0) {
+            linkedDepth--;
+          }
+          if (exc != null) {
+            LOG.warn("Directory '{}' is partially ignored. It can't be read: {}", dir, exc.toString());
+          }
+          return FileVisitResult.CONTINUE;
+        }
+      });
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to index files of directory " + dirToIndex, e);
+    }
+  }
+
+  private static boolean isHiddenDirectory(Path dir) {
+    Path fileName = dir.getFileName();
+    return (fileName != null && fileName.toString().startsWith(".")) || dir.toFile().isHidden();
+  }
+
+  private static String relativePath(Path root, String rootRelativePath, Path dir) {
+    String relativeToRoot = FilenameUtils.separatorsToUnix(root.relativize(dir).toString());
+    if (rootRelativePath.isEmpty()) {
+      return relativeToRoot;
     }
+    return relativeToRoot.isEmpty() ? rootRelativePath : (rootRelativePath + "/" + relativeToRoot);
   }
 
   private void indexFile(InputFileBuilder inputFileBuilder, DefaultModuleFileSystem fileSystem, Progress progress, File sourceFile, InputFile.Type type) {
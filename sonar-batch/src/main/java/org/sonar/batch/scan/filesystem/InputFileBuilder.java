@@ -33,6 +33,8 @@ import org.sonar.batch.bootstrap.DefaultAnalysisMode;
 import javax.annotation.CheckForNull;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
 
 class InputFileBuilder {
 
@@ -46,9 +48,11 @@ class InputFileBuilder {
   private final DefaultAnalysisMode analysisMode;
   private final Settings settings;
   private final FileMetadata fileMetadata;
+  private final CharHandlerFactory[] charHandlerFactories;
 
   InputFileBuilder(String moduleKey, PathResolver pathResolver, LanguageDetection langDetection,
-    StatusDetection statusDetection, DefaultModuleFileSystem fs, DefaultAnalysisMode analysisMode, Settings settings, FileMetadata fileMetadata) {
+    StatusDetection statusDetection, DefaultModuleFileSystem fs, DefaultAnalysisMode analysisMode, Settings settings, FileMetadata fileMetadata,
+    CharHandlerFactory[] charHandlerFactories) {
     this.moduleKey = moduleKey;
     this.pathResolver = pathResolver;
     this.langDetection = langDetection;
@@ -57,6 +61,7 @@ class InputFileBuilder {
     this.analysisMode = analysisMode;
     this.settings = settings;
     this.fileMetadata = fileMetadata;
+    this.charHandlerFactories = charHandlerFactories;
   }
 
   String moduleKey() {
@@ -104,7 +109,7 @@ class InputFileBuilder {
     }
     inputFile.setLanguage(lang);
 
-    inputFile.initMetadata(fileMetadata.readMetadata(inputFile.file(), fs.encoding()));
+    inputFile.initMetadata(fileMetadata.readMetadata(inputFile.file(), fs.encoding(), charHandlers(inputFile)));
 
     inputFile.setStatus(statusDetection.status(inputFile.moduleKey(), inputFile.relativePath(), inputFile.hash()));
     if (analysisMode.isIncremental() && inputFile.status() == InputFile.Status.SAME) {
@@ -113,4 +118,15 @@ class InputFileBuilder {
     return inputFile;
   }
 
+  private FileMetadata.CharHandler[] charHandlers(DefaultInputFile inputFile) {
+    List<FileMetadata.CharHandler> handlers = new ArrayList<>();
+    for (CharHandlerFactory factory : charHandlerFactories) {
+      FileMetadata.CharHandler handler = factory.create(inputFile);
+      if (handler != null) {
+        handlers.add(handler);
+      }
+    }
+    return handlers.toArray(new FileMetadata.CharHandler[handlers.size()]);
+  }
+
 }
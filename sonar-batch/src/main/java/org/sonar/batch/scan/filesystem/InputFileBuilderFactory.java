@@ -36,10 +36,13 @@ public class InputFileBuilderFactory {
   private final DefaultAnalysisMode analysisMode;
   private final Settings settings;
   private final FileMetadata fileMetadata;
+  private final CharHandlerFactory[] charHandlerFactories;
 
   public InputFileBuilderFactory(ProjectDefinition def, PathResolver pathResolver, LanguageDetectionFactory langDetectionFactory,
-    StatusDetectionFactory statusDetectionFactory, DefaultAnalysisMode analysisMode, Settings settings, FileMetadata fileMetadata) {
+    StatusDetectionFactory statusDetectionFactory, DefaultAnalysisMode analysisMode, Settings settings, FileMetadata fileMetadata,
+    CharHandlerFactory[] charHandlerFactories) {
     this.fileMetadata = fileMetadata;
+    this.charHandlerFactories = charHandlerFactories;
     this.moduleKey = def.getKeyWithBranch();
     this.pathResolver = pathResolver;
     this.langDetectionFactory = langDetectionFactory;
@@ -48,7 +51,13 @@ public class InputFileBuilderFactory {
     this.settings = settings;
   }
 
+  public InputFileBuilderFactory(ProjectDefinition def, PathResolver pathResolver, LanguageDetectionFactory langDetectionFactory,
+    StatusDetectionFactory statusDetectionFactory, DefaultAnalysisMode analysisMode, Settings settings, FileMetadata fileMetadata) {
+    this(def, pathResolver, langDetectionFactory, statusDetectionFactory, analysisMode, settings, fileMetadata, new CharHandlerFactory[0]);
+  }
+
   InputFileBuilder create(DefaultModuleFileSystem fs) {
-    return new InputFileBuilder(moduleKey, pathResolver, langDetectionFactory.create(), statusDetectionFactory.create(), fs, analysisMode, settings, fileMetadata);
+    return new InputFileBuilder(moduleKey, pathResolver, langDetectionFactory.create(), statusDetectionFactory.create(), fs, analysisMode, settings, fileMetadata,
+      charHandlerFactories);
   }
 }
@@ -31,6 +31,7 @@ import org.slf4j.LoggerFactory;
 import org.sonar.api.CoreProperties;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.fs.internal.PathPattern;
+import org.sonar.api.batch.fs.internal.PathPatternSet;
 import org.sonar.api.config.Settings;
 import org.sonar.api.utils.MessageException;
 
@@ -51,6 +52,7 @@ class LanguageDetection {
    * Lower-case extension -> languages
    */
   private final Map<String, PathPattern[]> patternsByLanguage = Maps.newLinkedHashMap();
+  private final Map<String, PathPatternSet> patternSetsByLanguage = Maps.newHashMap();
   private final List<String> languagesToConsider = Lists.newArrayList();
   private final String forcedLanguage;
 
@@ -74,6 +76,10 @@ class LanguageDetection {
       }
     }
 
+    for (Map.Entry<String, PathPattern[]> languagePatterns : patternsByLanguage.entrySet()) {
+      patternSetsByLanguage.put(languagePatterns.getKey(), new PathPatternSet(languagePatterns.getValue()));
+    }
+
     forcedLanguage = StringUtils.defaultIfBlank(settings.getString(CoreProperties.PROJECT_LANGUAGE_PROPERTY), null);
     // First try with lang patterns
     if (forcedLanguage != null) {
@@ -118,15 +124,8 @@ class LanguageDetection {
   }
 
   private boolean isCandidateForLanguage(InputFile inputFile, String languageKey) {
-    PathPattern[] patterns = patternsByLanguage.get(languageKey);
-    if (patterns != null) {
-      for (PathPattern pathPattern : patterns) {
-        if (pathPattern.match(inputFile, false)) {
-          return true;
-        }
-      }
-    }
-    return false;
+    PathPatternSet patterns = patternSetsByLanguage.get(languageKey);
+    return patterns != null && patterns.match(inputFile, false);
   }
 
   private String getFileLangPatternPropKey(String languageKey) {
@@ -20,6 +20,8 @@
 package org.sonar.batch.scan.measure;
 
 import com.google.common.base.Preconditions;
+import com.google.common.collect.Maps;
+import java.util.concurrent.ConcurrentMap;
 import org.sonar.api.batch.BatchSide;
 import org.sonar.api.batch.measure.MetricFinder;
 import org.sonar.api.measures.Measure;
@@ -37,6 +39,11 @@ import org.sonar.batch.index.Caches;
 @BatchSide
 public class MeasureCache {
 
+  /**
+   * Keys of measures without characteristic, person nor rule, by metric key
+   */
+  private static final ConcurrentMap<String, String> SIMPLE_MEASURE_KEYS = Maps.newConcurrentMap();
+
   private final Cache<Measure> cache;
 
   public MeasureCache(Caches caches, MetricFinder metricFinder, TechnicalDebtModel techDebtModel) {
@@ -83,6 +90,10 @@ public class MeasureCache {
   }
 
   private static String computeMeasureKey(Measure m) {
+    if (m.getCharacteristic() == null && m.getPersonId() == null && !(m instanceof RuleMeasure) && m.getMetricKey() != null) {
+      // most common case, avoid building a new key on each access
+      return simpleMeasureKey(m.getMetricKey());
+    }
     StringBuilder sb = new StringBuilder();
     if (m.getMetricKey() != null) {
       sb.append(m.getMetricKey());
@@ -104,4 +115,13 @@ public class MeasureCache {
     return sb.toString();
   }
 
+  private static String simpleMeasureKey(String metricKey) {
+    String key = SIMPLE_MEASURE_KEYS.get(metricKey);
+    if (key == null) {
+      key = metricKey + "||";
+      SIMPLE_MEASURE_KEYS.putIfAbsent(metricKey, key);
+    }
+    return key;
+  }
+
 }
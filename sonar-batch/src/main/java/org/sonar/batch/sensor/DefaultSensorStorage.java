@@ -68,6 +68,10 @@ import org.sonar.core.component.ComponentKeys;
 import java.util.Map;
 import java.util.Set;
 
+/**
+ * Store methods are synchronized because thread-safe sensors can be executed concurrently and batch caches are not
+ * thread-safe, see {@link org.sonar.api.batch.sensor.SensorDescriptor#threadSafe()}
+ */
 public class DefaultSensorStorage implements SensorStorage {
 
   private final MetricFinder metricFinder;
@@ -101,7 +105,7 @@ public class DefaultSensorStorage implements SensorStorage {
   }
 
   @Override
-  public void store(Measure newMeasure) {
+  public synchronized void store(Measure newMeasure) {
     DefaultMeasure<?> measure = (DefaultMeasure<?>) newMeasure;
     org.sonar.api.measures.Metric m = findMetricOrFail(measure.metric().key());
     org.sonar.api.measures.Measure measureToSave = new org.sonar.api.measures.Measure(m);
@@ -153,7 +157,7 @@ public class DefaultSensorStorage implements SensorStorage {
   }
 
   @Override
-  public void store(Issue issue) {
+  public synchronized void store(Issue issue) {
     String componentKey;
     InputPath inputPath = issue.inputPath();
     if (inputPath != null) {
@@ -186,12 +190,12 @@ public class DefaultSensorStorage implements SensorStorage {
   }
 
   @Override
-  public void store(Duplication duplication) {
+  public synchronized void store(Duplication duplication) {
     duplicationCache.put(duplication.originBlock().resourceKey(), (DefaultDuplication) duplication);
   }
 
   @Override
-  public void store(DefaultHighlighting highlighting) {
+  public synchronized void store(DefaultHighlighting highlighting) {
     BatchReportWriter writer = reportPublisher.getWriter();
     DefaultInputFile inputFile = (DefaultInputFile) highlighting.inputFile();
     writer.writeComponentSyntaxHighlighting(resourceCache.get(inputFile).batchId(),
@@ -213,7 +217,7 @@ public class DefaultSensorStorage implements SensorStorage {
       }));
   }
 
-  public void store(DefaultInputFile inputFile, Map<Symbol, Set<TextRange>> referencesBySymbol) {
+  public synchronized void store(DefaultInputFile inputFile, Map<Symbol, Set<TextRange>> referencesBySymbol) {
     BatchReportWriter writer = reportPublisher.getWriter();
     writer.writeComponentSymbols(resourceCache.get(inputFile).batchId(),
       Iterables.transform(referencesBySymbol.entrySet(), new Function<Map.Entry<Symbol, Set<TextRange>>, BatchReport.Symbols.Symbol>() {
@@ -244,7 +248,7 @@ public class DefaultSensorStorage implements SensorStorage {
   }
 
   @Override
-  public void store(DefaultCoverage defaultCoverage) {
+  public synchronized void store(DefaultCoverage defaultCoverage) {
     File file = getFile(defaultCoverage.inputFile());
     CoverageType type = defaultCoverage.type();
     if (defaultCoverage.linesToCover() > 0) {
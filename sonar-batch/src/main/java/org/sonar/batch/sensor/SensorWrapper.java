@@ -47,6 +47,13 @@ public class SensorWrapper implements org.sonar.api.batch.Sensor {
     return wrappedSensor;
   }
 
+  /**
+   * See {@link org.sonar.api.batch.sensor.SensorDescriptor#threadSafe()}
+   */
+  public boolean isThreadSafe() {
+    return descriptor.isThreadSafe();
+  }
+
   @Override
   public boolean shouldExecuteOnProject(Project project) {
     return optimizer.shouldExecute(descriptor);
@@ -0,0 +1,123 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2014 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.batch.cpd;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+import org.junit.Test;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.internal.DefaultInputFile;
+import org.sonar.api.utils.SonarException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+public class CpdExecutorTest {
+
+  List<InputFile> files = Arrays.<InputFile>asList(
+    new DefaultInputFile("foo", "src/A.java"),
+    new DefaultInputFile("foo", "src/B.java"),
+    new DefaultInputFile("foo", "src/C.java"),
+    new DefaultInputFile("foo", "src/D.java"));
+
+  @Test
+  public void results_are_handled_in_order_of_files() {
+    final List<String> results = new ArrayList<>();
+    new CpdExecutor<String>("test", 3, 0) {
+      @Override
+      Callable<String> newTask(final InputFile inputFile) {
+        return new Callable<String>() {
+          @Override
+          public String call() throws Exception {
+            // first files are the slowest
+            TimeUnit.MILLISECONDS.sleep(40 - 10 * files.indexOf(inputFile));
+            return inputFile.relativePath();
+          }
+        };
+      }
+
+      @Override
+      void onResult(InputFile inputFile, @Nullable String result) {
+        assertThat(Thread.currentThread().getName()).doesNotStartWith("cpd-");
+        results.add(result);
+      }
+    }.execute(files);
+
+    assertThat(results).containsExactly("src/A.java", "src/B.java", "src/C.java", "src/D.java");
+  }
+
+  @Test
+  public void result_is_null_on_timeout() {
+    final CountDownLatch latch = new CountDownLatch(1);
+    final List<String> results = new ArrayList<>();
+    new CpdExecutor<String>("test", 2, 1) {
+      @Override
+      Callable<String> newTask(final InputFile inputFile) {
+        return new Callable<String>() {
+          @Override
+          public String call() throws Exception {
+            if (inputFile.relativePath().equals("src/B.java")) {
+              latch.await();
+            }
+            return inputFile.relativePath();
+          }
+        };
+      }
+
+      @Override
+      void onResult(InputFile inputFile, @Nullable String result) {
+        results.add(result);
+      }
+    }.execute(files);
+    latch.countDown();
+
+    assertThat(results).containsExactly("src/A.java", null, "src/C.java", "src/D.java");
+  }
+
+  @Test
+  public void fail_if_task_fails() {
+    try {
+      new CpdExecutor<String>("test", 1, 0) {
+        @Override
+        Callable<String> newTask(final InputFile inputFile) {
+          return new Callable<String>() {
+            @Override
+            public String call() {
+              throw new IllegalStateException("unexpected");
+            }
+          };
+        }
+
+        @Override
+        void onResult(InputFile inputFile, @Nullable String result) {
+          fail();
+        }
+      }.execute(files);
+      fail();
+    } catch (SonarException e) {
+      assertThat(e).hasMessageStartingWith("Fail during test for ");
+    }
+  }
+}
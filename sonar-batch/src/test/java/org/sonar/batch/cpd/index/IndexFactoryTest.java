@@ -28,7 +28,11 @@ import org.sonar.api.resources.Project;
 import org.sonar.batch.bootstrap.DefaultAnalysisMode;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -50,17 +54,28 @@ public class IndexFactoryTest {
   }
 
   @Test
-  public void crossProjectEnabled() {
+  public void crossProjectNotSupported() {
     settings.setProperty(CoreProperties.CPD_CROSS_PROJECT, "true");
-    assertThat(factory.verifyCrossProject(project, logger)).isTrue();
-    verify(logger).info("Cross-project analysis enabled");
+    factory.verifyCrossProject(project, logger);
+    verify(logger).warn("Cross-project analysis is not available, duplications are detected within the project only.");
+  }
+
+  @Test
+  public void verify_cross_project_once() {
+    settings.setProperty(CoreProperties.CPD_CROSS_PROJECT, "true");
+    IndexFactory spy = spy(factory);
+
+    assertThat(spy.create(project, "java").isCrossProject()).isFalse();
+    assertThat(spy.create(project, "js").isCrossProject()).isFalse();
+
+    verify(spy, times(1)).verifyCrossProject(eq(project), any(Logger.class));
   }
 
   @Test
   public void noCrossProjectWithBranch() {
     settings.setProperty(CoreProperties.CPD_CROSS_PROJECT, "true");
     settings.setProperty(CoreProperties.PROJECT_BRANCH_PROPERTY, "branch");
-    assertThat(factory.verifyCrossProject(project, logger)).isFalse();
+    factory.verifyCrossProject(project, logger);
     verify(logger).info("Cross-project analysis disabled. Not supported on project branches.");
   }
 
@@ -68,14 +83,14 @@ public class IndexFactoryTest {
   public void cross_project_should_be_disabled_on_preview() {
     when(analysisMode.isPreview()).thenReturn(true);
     settings.setProperty(CoreProperties.CPD_CROSS_PROJECT, "true");
-    assertThat(factory.verifyCrossProject(project, logger)).isFalse();
+    factory.verifyCrossProject(project, logger);
     verify(logger).info("Cross-project analysis disabled. Not supported in preview mode.");
   }
 
   @Test
   public void crossProjectDisabled() {
     settings.setProperty(CoreProperties.CPD_CROSS_PROJECT, "false");
-    assertThat(factory.verifyCrossProject(project, logger)).isFalse();
+    factory.verifyCrossProject(project, logger);
     verify(logger).info("Cross-project analysis disabled");
   }
 
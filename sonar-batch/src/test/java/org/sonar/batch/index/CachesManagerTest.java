@@ -42,7 +42,7 @@ public class CachesManagerTest {
   public static CachesManager createCacheOnTemp(TemporaryFolder temp) {
     try {
       BootstrapProperties bootstrapProps = new BootstrapProperties(ImmutableMap.of(CoreProperties.WORKING_DIRECTORY, temp.newFolder().getAbsolutePath()));
-      return new CachesManager(new TempFolderProvider().provide(bootstrapProps));
+      return new CachesManager(new TempFolderProvider().provide(bootstrapProps), bootstrapProps);
     } catch (IOException e) {
       throw new RuntimeException(e);
     }
@@ -56,6 +56,19 @@ public class CachesManagerTest {
     cachesMgr.start();
   }
 
+  @Test
+  public void memory_budget_is_converted_to_number_of_buffers() {
+    assertThat(cachesMgr.bufferCount()).isEqualTo(CachesManager.MIN_BUFFERS);
+    assertThat(CachesManager.bufferCount(null)).isEqualTo(CachesManager.MIN_BUFFERS);
+    assertThat(CachesManager.bufferCount("0")).isEqualTo(CachesManager.MIN_BUFFERS);
+    assertThat(CachesManager.bufferCount("64")).isEqualTo(64 * 1024 * 1024 / CachesManager.PAGE_SIZE);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void fail_if_memory_budget_is_not_a_number() {
+    CachesManager.bufferCount("lot");
+  }
+
   @Test
   public void should_stop_and_clean_temp_dir() {
     File tempDir = cachesMgr.tempDir();
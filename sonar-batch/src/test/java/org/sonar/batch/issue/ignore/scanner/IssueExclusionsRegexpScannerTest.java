@@ -26,6 +26,8 @@ import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.sonar.api.batch.fs.internal.DefaultInputFile;
+import org.sonar.api.batch.fs.internal.FileMetadata;
 import org.sonar.batch.issue.ignore.pattern.IssueExclusionPatternInitializer;
 import org.sonar.batch.issue.ignore.pattern.IssuePattern;
 import org.sonar.batch.issue.ignore.pattern.LineRange;
@@ -36,6 +38,8 @@ import java.util.Arrays;
 import java.util.Set;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
@@ -166,4 +170,36 @@ public class IssueExclusionsRegexpScannerTest {
     verifyNoMoreInteractions(patternsInitializer);
   }
 
+  @Test
+  public void shouldUseContentReadDuringIndexing() throws Exception {
+    File file = new File(Resources.getResource(
+      "org/sonar/batch/issue/ignore/scanner/IssueExclusionsRegexpScannerTest/file-with-double-regexp.txt").toURI());
+    DefaultInputFile inputFile = new DefaultInputFile("polop", "src/MyFile.java");
+    new FileMetadata().readMetadata(file, UTF_8, regexpScanner.create(inputFile));
+
+    // file is not read again
+    regexpScanner.scan(inputFile.key(), new File("unknown.txt"), UTF_8);
+
+    Set<LineRange> lineRanges = Sets.newHashSet();
+    lineRanges.add(new LineRange(21, 25));
+    verify(patternMatcher, times(1)).addPatternToExcludeLines(inputFile.key(), lineRanges);
+  }
+
+  @Test
+  public void shouldReadFileAgainWhenScannedFilesAreCleared() throws Exception {
+    File file = new File(Resources.getResource(
+      "org/sonar/batch/issue/ignore/scanner/IssueExclusionsRegexpScannerTest/file-with-double-regexp.txt").toURI());
+    DefaultInputFile inputFile = new DefaultInputFile("polop", "src/MyFile.java");
+    new FileMetadata().readMetadata(file, UTF_8, regexpScanner.create(inputFile));
+
+    regexpScanner.clearScannedFiles();
+
+    try {
+      regexpScanner.scan(inputFile.key(), new File("unknown.txt"), UTF_8);
+      fail();
+    } catch (IllegalStateException e) {
+      assertThat(e).hasMessageContaining("unknown.txt");
+    }
+  }
+
 }
@@ -43,6 +43,7 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 
 import static com.google.common.collect.Lists.newArrayList;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -333,6 +334,25 @@ public class IssueTrackingTest {
     assertThat(result.matching(newIssue5)).isSameAs(referenceIssue1);
   }
 
+  @Test
+  public void match_many_issues_on_same_rule_by_checksum() {
+    List<ServerIssue> referenceIssues = newArrayList();
+    List<DefaultIssue> newIssues = newArrayList();
+    for (int i = 1; i <= 5000; i++) {
+      referenceIssues.add(newReferenceIssue("message " + i, i, "squid", "AvoidCycle", "checksum" + i));
+      // lines have been shifted and messages changed
+      newIssues.add(newDefaultIssue("new message " + i, i + 10, RuleKey.of("squid", "AvoidCycle"), "checksum" + i));
+    }
+
+    IssueTrackingResult result = new IssueTrackingResult();
+    tracking.mapIssues(newIssues, referenceIssues, null, result);
+
+    assertThat(result.unmatched()).isEmpty();
+    for (int i = 0; i < 5000; i++) {
+      assertThat(result.matching(newIssues.get(i))).isSameAs(referenceIssues.get(i));
+    }
+  }
+
   @Test
   public void dont_load_checksum_if_no_new_issue() {
     sourceHashHolder = mock(SourceHashHolder.class);
@@ -31,12 +31,15 @@ import org.junit.rules.TemporaryFolder;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.utils.MessageException;
 import org.sonar.api.utils.System2;
+import org.sonar.api.utils.log.LogTester;
+import org.sonar.api.utils.log.LoggerLevel;
 import org.sonar.batch.mediumtest.BatchMediumTester;
 import org.sonar.batch.mediumtest.TaskResult;
 import org.sonar.xoo.XooPlugin;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -48,6 +51,9 @@ public class FileSystemMediumTest {
   @Rule
   public ExpectedException thrown = ExpectedException.none();
 
+  @Rule
+  public LogTester logTester = new LogTester();
+
   public BatchMediumTester tester = BatchMediumTester.builder()
     .registerPlugin("xoo", new XooPlugin())
     .addDefaultQProfile("xoo", "Sonar Way")
@@ -237,6 +243,121 @@ public class FileSystemMediumTest {
     }
   }
 
+  @Test
+  public void skipExcludedDirectories() throws IOException {
+    if (!System2.INSTANCE.isOsWindows()) {
+      File srcDir = new File(baseDir, "src");
+      FileUtils.write(new File(srcDir, "sample.xoo"), "Sample xoo\ncontent");
+      FileUtils.write(new File(srcDir, "generated/foo/generated.xoo"), "Generated xoo\ncontent");
+      // a warning is logged if the excluded directory is traversed
+      Files.createSymbolicLink(new File(srcDir, "generated/foo/loop").toPath(), srcDir.toPath());
+
+      TaskResult result = tester.newTask()
+        .properties(builder
+          .put("sonar.sources", "src")
+          .put("sonar.exclusions", "src/generated/**")
+          .build())
+        .start();
+
+      assertThat(result.inputFiles()).hasSize(1);
+      assertThat(result.inputFile("src/sample.xoo")).isNotNull();
+      for (String warning : logTester.logs(LoggerLevel.WARN)) {
+        assertThat(warning).doesNotContain("loop");
+      }
+    }
+  }
+
+  @Test
+  public void doNotSkipBaseDirWhenExclusionsRequireADirectory() throws IOException {
+    FileUtils.write(new File(baseDir, "sample.xoo"), "Sample xoo\ncontent");
+    FileUtils.write(new File(baseDir, "src/excluded.xoo"), "Excluded xoo\ncontent");
+
+    TaskResult result = tester.newTask()
+      .properties(builder
+        .put("sonar.sources", ".")
+        .put("sonar.exclusions", "**/*/**")
+        .build())
+      .start();
+
+    assertThat(result.inputFiles()).hasSize(1);
+    assertThat(result.inputFile("sample.xoo")).isNotNull();
+  }
+
+  @Test
+  public void skipHiddenDirectories() throws IOException {
+    File srcDir = new File(baseDir, "src");
+    FileUtils.write(new File(srcDir, "sample.xoo"), "Sample xoo\ncontent");
+    FileUtils.write(new File(srcDir, ".hidden/hidden.xoo"), "Hidden xoo\ncontent");
+
+    TaskResult result = tester.newTask()
+      .properties(builder
+        .put("sonar.sources", "src")
+        .build())
+      .start();
+
+    assertThat(result.inputFiles()).hasSize(1);
+    assertThat(result.inputFile("src/sample.xoo")).isNotNull();
+  }
+
+  @Test
+  public void indexFilesOfSymlinkedDirectories() throws IOException {
+    if (!System2.INSTANCE.isOsWindows()) {
+      File srcDir = new File(baseDir, "src");
+      FileUtils.write(new File(srcDir, "sample.xoo"), "Sample xoo\ncontent");
+      File linkedDir = temp.newFolder();
+      FileUtils.write(new File(linkedDir, "linked.xoo"), "Linked xoo\ncontent");
+      Files.createSymbolicLink(new File(srcDir, "link").toPath(), linkedDir.toPath());
+
+      TaskResult result = tester.newTask()
+        .properties(builder
+          .put("sonar.sources", "src")
+          .build())
+        .start();
+
+      assertThat(result.inputFiles()).hasSize(2);
+      assertThat(result.inputFile("src/link/linked.xoo")).isNotNull();
+    }
+  }
+
+  @Test
+  public void ignoreSymlinksToParentDirectories() throws IOException {
+    if (!System2.INSTANCE.isOsWindows()) {
+      File srcDir = new File(baseDir, "src");
+      FileUtils.write(new File(srcDir, "foo/sample.xoo"), "Sample xoo\ncontent");
+      Files.createSymbolicLink(new File(srcDir, "foo/loop").toPath(), srcDir.toPath());
+
+      TaskResult result = tester.newTask()
+        .properties(builder
+          .put("sonar.sources", "src")
+          .build())
+        .start();
+
+      assertThat(result.inputFiles()).hasSize(1);
+      assertThat(result.inputFile("src/foo/sample.xoo")).isNotNull();
+    }
+  }
+
+  @Test
+  public void ignoreUnreadableDirectories() throws IOException {
+    File srcDir = new File(baseDir, "src");
+    FileUtils.write(new File(srcDir, "sample.xoo"), "Sample xoo\ncontent");
+    File unreadableDir = new File(srcDir, "unreadable");
+    FileUtils.write(new File(unreadableDir, "unreadable.xoo"), "Unreadable xoo\ncontent");
+    unreadableDir.setReadable(false);
+
+    try {
+      TaskResult result = tester.newTask()
+        .properties(builder
+          .put("sonar.sources", "src")
+          .build())
+        .start();
+
+      assertThat(result.inputFile("src/sample.xoo")).isNotNull();
+    } finally {
+      unreadableDir.setReadable(true);
+    }
+  }
+
   @Test
   public void indexAnyFile() throws IOException {
     File srcDir = new File(baseDir, "src");
@@ -0,0 +1,75 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2014 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.batch.phases;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.sonar.api.batch.Sensor;
+import org.sonar.api.batch.SensorContext;
+import org.sonar.api.resources.Project;
+import org.sonar.api.utils.log.LogTester;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PhasesTimeProfilerTest {
+
+  @Rule
+  public LogTester logTester = new LogTester();
+
+  PhasesTimeProfiler underTest = new PhasesTimeProfiler();
+
+  @Test
+  public void profile_interleaved_sensor_executions() {
+    Sensor first = new FakeSensor("First");
+    Sensor second = new FakeSensor("Second");
+
+    underTest.onSensorExecution(new SensorExecutionEvent(first, true));
+    underTest.onSensorExecution(new SensorExecutionEvent(second, true));
+    underTest.onSensorExecution(new SensorExecutionEvent(first, false));
+    underTest.onSensorExecution(new SensorExecutionEvent(second, false));
+
+    assertThat(logTester.logs()).hasSize(4);
+    assertThat(logTester.logs().get(2)).startsWith("Sensor First (done) | time=");
+    assertThat(logTester.logs().get(3)).startsWith("Sensor Second (done) | time=");
+  }
+
+  private static class FakeSensor implements Sensor {
+    private final String name;
+
+    FakeSensor(String name) {
+      this.name = name;
+    }
+
+    @Override
+    public boolean shouldExecuteOnProject(Project project) {
+      return true;
+    }
+
+    @Override
+    public void analyse(Project module, SensorContext context) {
+      // nothing to do
+    }
+
+    @Override
+    public String toString() {
+      return name;
+    }
+  }
+}
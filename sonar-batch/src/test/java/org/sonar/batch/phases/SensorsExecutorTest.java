@@ -0,0 +1,192 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2014 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.batch.phases;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.sonar.api.batch.Phase;
+import org.sonar.api.batch.Sensor;
+import org.sonar.api.batch.SensorContext;
+import org.sonar.api.batch.sensor.SensorDescriptor;
+import org.sonar.api.config.Settings;
+import org.sonar.api.resources.Project;
+import org.sonar.batch.bootstrap.BatchExtensionDictionnary;
+import org.sonar.batch.events.EventBus;
+import org.sonar.batch.sensor.SensorOptimizer;
+import org.sonar.batch.sensor.SensorWrapper;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class SensorsExecutorTest {
+
+  Project project = new Project("project");
+  BatchExtensionDictionnary selector = mock(BatchExtensionDictionnary.class);
+  Settings settings = new Settings();
+  SensorContext context = mock(SensorContext.class);
+  org.sonar.api.batch.sensor.SensorContext newContext = mock(org.sonar.api.batch.sensor.SensorContext.class);
+  CountDownLatch latch = new CountDownLatch(2);
+  SensorsExecutor executor;
+
+  @Before
+  public void setUp() {
+    when(selector.evaluatePhase(any())).thenReturn(Phase.Name.DEFAULT);
+    executor = new SensorsExecutor(selector, project, mock(EventBus.class), settings);
+  }
+
+  @Test
+  public void execute_sensors_sequentially_by_default() {
+    FakeSensor sensor1 = new FakeSensor(latch, true);
+    FakeSensor sensor2 = new FakeSensor(latch, true);
+    select(wrap(sensor1), wrap(sensor2));
+
+    executor.execute(context);
+
+    // the first sensor can't see the second one
+    assertThat(sensor1.concurrent).isFalse();
+    assertThat(sensor2.concurrent).isTrue();
+  }
+
+  @Test
+  public void execute_thread_safe_sensors_concurrently() {
+    settings.setProperty(SensorsExecutor.THREADS_PROPERTY, 2);
+    FakeSensor sensor1 = new FakeSensor(latch, true);
+    FakeSensor sensor2 = new FakeSensor(latch, true);
+    select(wrap(sensor1), wrap(sensor2));
+
+    executor.execute(context);
+
+    assertThat(sensor1.concurrent).isTrue();
+    assertThat(sensor2.concurrent).isTrue();
+    assertThat(sensor1.context).isSameAs(newContext);
+  }
+
+  @Test
+  public void do_not_execute_concurrently_sensors_that_are_not_thread_safe() {
+    settings.setProperty(SensorsExecutor.THREADS_PROPERTY, 2);
+    FakeSensor sensor1 = new FakeSensor(latch, false);
+    FakeSensor sensor2 = new FakeSensor(latch, true);
+    select(wrap(sensor1), wrap(sensor2));
+
+    executor.execute(context);
+
+    assertThat(sensor1.concurrent).isFalse();
+    assertThat(sensor2.concurrent).isTrue();
+  }
+
+  @Test
+  public void do_not_execute_concurrently_sensors_of_deprecated_api() {
+    settings.setProperty(SensorsExecutor.THREADS_PROPERTY, 2);
+    final FakeSensor sensor1 = new FakeSensor(latch, true);
+    FakeSensor sensor2 = new FakeSensor(latch, true);
+    Sensor deprecatedSensor = new Sensor() {
+      @Override
+      public boolean shouldExecuteOnProject(Project project) {
+        return true;
+      }
+
+      @Override
+      public void analyse(Project module, SensorContext context) {
+        sensor1.execute(newContext);
+      }
+    };
+    select(deprecatedSensor, wrap(sensor2));
+
+    executor.execute(context);
+
+    assertThat(sensor1.concurrent).isFalse();
+    assertThat(sensor2.concurrent).isTrue();
+  }
+
+  @Test
+  public void do_not_execute_concurrently_sensors_with_dependencies() {
+    settings.setProperty(SensorsExecutor.THREADS_PROPERTY, 2);
+    FakeSensor sensor1 = new FakeSensor(latch, true);
+    FakeSensor sensor2 = new FakeSensor(latch, true);
+    SensorWrapper wrapper1 = wrap(sensor1);
+    when(selector.hasDependencies(wrapper1)).thenReturn(true);
+    select(wrapper1, wrap(sensor2));
+
+    executor.execute(context);
+
+    assertThat(sensor1.concurrent).isFalse();
+    assertThat(sensor2.concurrent).isTrue();
+  }
+
+  @Test
+  public void do_not_execute_concurrently_sensors_of_different_phases() {
+    settings.setProperty(SensorsExecutor.THREADS_PROPERTY, 2);
+    FakeSensor sensor1 = new FakeSensor(latch, true);
+    FakeSensor sensor2 = new FakeSensor(latch, true);
+    SensorWrapper wrapper1 = wrap(sensor1);
+    when(selector.evaluatePhase(wrapper1)).thenReturn(Phase.Name.PRE);
+    select(wrapper1, wrap(sensor2));
+
+    executor.execute(context);
+
+    assertThat(sensor1.concurrent).isFalse();
+    assertThat(sensor2.concurrent).isTrue();
+  }
+
+  private SensorWrapper wrap(FakeSensor sensor) {
+    return new SensorWrapper(sensor, newContext, mock(SensorOptimizer.class));
+  }
+
+  private void select(Sensor... sensors) {
+    when(selector.select(Sensor.class, project, true, null)).thenReturn(Arrays.asList(sensors));
+  }
+
+  static class FakeSensor implements org.sonar.api.batch.sensor.Sensor {
+    private final CountDownLatch latch;
+    private final boolean threadSafe;
+    private volatile boolean concurrent;
+    private volatile org.sonar.api.batch.sensor.SensorContext context;
+
+    FakeSensor(CountDownLatch latch, boolean threadSafe) {
+      this.latch = latch;
+      this.threadSafe = threadSafe;
+    }
+
+    @Override
+    public void describe(SensorDescriptor descriptor) {
+      descriptor.name("Fake");
+      if (threadSafe) {
+        descriptor.threadSafe();
+      }
+    }
+
+    @Override
+    public void execute(org.sonar.api.batch.sensor.SensorContext context) {
+      this.context = context;
+      latch.countDown();
+      try {
+        concurrent = latch.await(500, TimeUnit.MILLISECONDS);
+      } catch (InterruptedException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+  }
+}
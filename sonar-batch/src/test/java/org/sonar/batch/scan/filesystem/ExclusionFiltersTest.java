@@ -131,4 +131,32 @@ public class ExclusionFiltersTest {
     assertThat(filter.prepareMainExclusions()[0].toString()).isEqualTo("**/*Dao.java");
   }
 
+  @Test
+  public void exclude_directories() {
+    Settings settings = new Settings();
+    settings.setProperty(CoreProperties.PROJECT_EXCLUSIONS_PROPERTY, "**/node_modules/**,src/generated/**,**/*Dao.java,file:**/build/**");
+    ExclusionFilters filter = new ExclusionFilters(new FileExclusions(settings));
+    filter.prepare();
+
+    assertThat(filter.isExcludedDirectory("node_modules", InputFile.Type.MAIN)).isTrue();
+    assertThat(filter.isExcludedDirectory("web/app/node_modules", InputFile.Type.MAIN)).isTrue();
+    assertThat(filter.isExcludedDirectory("src/generated", InputFile.Type.MAIN)).isTrue();
+    assertThat(filter.isExcludedDirectory("src", InputFile.Type.MAIN)).isFalse();
+    assertThat(filter.isExcludedDirectory("src/main/java", InputFile.Type.MAIN)).isFalse();
+    assertThat(filter.isExcludedDirectory("build", InputFile.Type.MAIN)).isFalse();
+
+    // source exclusions do not apply to tests
+    assertThat(filter.isExcludedDirectory("node_modules", InputFile.Type.TEST)).isFalse();
+  }
+
+  @Test
+  public void never_exclude_base_directory() {
+    Settings settings = new Settings();
+    settings.setProperty(CoreProperties.PROJECT_EXCLUSIONS_PROPERTY, "*/**,**/*/**");
+    ExclusionFilters filter = new ExclusionFilters(new FileExclusions(settings));
+    filter.prepare();
+
+    assertThat(filter.isExcludedDirectory("", InputFile.Type.MAIN)).isFalse();
+    assertThat(filter.isExcludedDirectory("src", InputFile.Type.MAIN)).isTrue();
+  }
 }
@@ -45,6 +45,8 @@ public interface ActiveRuleMapper {
 
   List<ActiveRuleDto> selectAll();
 
+  List<ActiveRuleDto> selectAllWithKeys();
+
   void insertParameter(ActiveRuleParamDto dto);
 
   void updateParameter(ActiveRuleParamDto dto);
@@ -66,4 +66,8 @@ public class LoadedTemplateDao implements DaoComponent {
   public void delete(DbSession session, String type, String key) {
     session.getMapper(LoadedTemplateMapper.class).delete(type, key);
   }
+
+  public void deleteByType(DbSession session, String type) {
+    session.getMapper(LoadedTemplateMapper.class).deleteByType(type);
+  }
 }
@@ -28,4 +28,6 @@ public interface LoadedTemplateMapper {
   void insert(LoadedTemplateDto template);
 
   void delete(@Param("type") String type, @Param("key") String key);
+
+  void deleteByType(@Param("type") String type);
 }
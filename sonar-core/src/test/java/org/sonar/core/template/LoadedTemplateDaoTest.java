@@ -22,6 +22,8 @@ package org.sonar.core.template;
 import org.junit.Before;
 import org.junit.Test;
 import org.sonar.core.persistence.AbstractDaoTestCase;
+import org.sonar.core.persistence.DbSession;
+import org.sonar.core.persistence.MyBatis;
 
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
@@ -52,4 +54,21 @@ public class LoadedTemplateDaoTest extends AbstractDaoTestCase {
 
     checkTables("shouldInsert", "loaded_templates");
   }
+
+  @Test
+  public void shouldDeleteByType() {
+    setupData("shouldDeleteByType");
+
+    DbSession session = getMyBatis().openSession(false);
+    try {
+      dao.deleteByType(session, "RULES_DEFS");
+      session.commit();
+    } finally {
+      MyBatis.closeQuietly(session);
+    }
+
+    assertThat(dao.countByTypeAndKey("RULES_DEFS", "abc"), is(0));
+    assertThat(dao.countByTypeAndKey("RULES_DEFS", "def"), is(0));
+    assertThat(dao.countByTypeAndKey("DASHBOARD", "HOTSPOTS"), is(1));
+  }
 }
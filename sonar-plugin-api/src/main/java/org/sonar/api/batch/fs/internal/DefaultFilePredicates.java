@@ -85,11 +85,7 @@ public class DefaultFilePredicates implements FilePredicates {
     if (inclusionPatterns.length == 0) {
       return TruePredicate.TRUE;
     }
-    FilePredicate[] predicates = new FilePredicate[inclusionPatterns.length];
-    for (int i = 0; i < inclusionPatterns.length; i++) {
-      predicates[i] = new PathPatternPredicate(PathPattern.create(inclusionPatterns[i]));
-    }
-    return or(predicates);
+    return new PathPatternPredicate(PathPatternSet.create(inclusionPatterns));
   }
 
   @Override
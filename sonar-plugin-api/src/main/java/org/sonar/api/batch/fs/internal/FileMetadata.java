@@ -19,6 +19,7 @@
  */
 package org.sonar.api.batch.fs.internal;
 
+import com.google.common.collect.ObjectArrays;
 import com.google.common.primitives.Ints;
 import org.apache.commons.codec.binary.Hex;
 import org.apache.commons.codec.digest.DigestUtils;
@@ -227,10 +228,20 @@ public class FileMetadata {
    * Maximum performance is needed.
    */
   public Metadata readMetadata(File file, Charset encoding) {
+    return readMetadata(file, encoding, new CharHandler[0]);
+  }
+
+  /**
+   * Same as {@link #readMetadata(File, Charset)}, other handlers being fed during the same pass, so that the file
+   * is read only once.
+   * @since 5.2
+   */
+  public Metadata readMetadata(File file, Charset encoding, CharHandler... otherHandlers) {
     LineCounter lineCounter = new LineCounter(file, encoding);
     FileHashComputer fileHashComputer = new FileHashComputer();
     LineOffsetCounter lineOffsetCounter = new LineOffsetCounter();
-    readFile(file, encoding, lineCounter, fileHashComputer, lineOffsetCounter);
+    CharHandler[] handlers = ObjectArrays.concat(new CharHandler[] {lineCounter, fileHashComputer, lineOffsetCounter}, otherHandlers, CharHandler.class);
+    readFile(file, encoding, handlers);
     return new Metadata(lineCounter.lines(), lineCounter.nonBlankLines(), fileHashComputer.getHash(), lineOffsetCounter.getOriginalLineOffsets(),
       lineOffsetCounter.getLastValidOffset());
   }
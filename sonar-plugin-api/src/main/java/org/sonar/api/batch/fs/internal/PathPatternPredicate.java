@@ -26,15 +26,22 @@ import org.sonar.api.batch.fs.InputFile;
  */
 class PathPatternPredicate extends AbstractFilePredicate {
 
-  private final PathPattern pattern;
+  private final PathPatternSet patterns;
 
   PathPatternPredicate(PathPattern pattern) {
-    this.pattern = pattern;
+    this(new PathPatternSet(new PathPattern[] {pattern}));
+  }
+
+  /**
+   * Matches at least one of the patterns
+   */
+  PathPatternPredicate(PathPatternSet patterns) {
+    this.patterns = patterns;
   }
 
   @Override
   public boolean apply(InputFile f) {
-    return pattern.match(f);
+    return patterns.match(f);
   }
 
 }
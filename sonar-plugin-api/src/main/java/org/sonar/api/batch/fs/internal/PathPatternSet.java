@@ -0,0 +1,122 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2014 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.batch.fs.internal;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.lang.StringUtils;
+import org.sonar.api.batch.fs.InputFile;
+
+import javax.annotation.CheckForNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Set of {@link PathPattern} that is checked at once. Patterns ending with a fixed file extension, like <code>**&#47;*.java</code>,
+ * are indexed by this extension so that only the patterns that can match the extension of a file are evaluated.
+ * It is immutable, so it can be used by concurrent threads.
+ *
+ * @since 5.2
+ */
+public class PathPatternSet {
+
+  private final PathPattern[] patterns;
+  private final ListMultimap<String, PathPattern> patternsByExtension = ArrayListMultimap.create();
+  private final List<PathPattern> otherPatterns = new ArrayList<>();
+
+  public PathPatternSet(PathPattern[] patterns) {
+    this.patterns = patterns;
+    for (PathPattern pattern : patterns) {
+      String extension = fixedExtension(pattern.pattern.toString());
+      if (extension == null) {
+        otherPatterns.add(pattern);
+      } else {
+        patternsByExtension.put(extension, pattern);
+      }
+    }
+  }
+
+  public static PathPatternSet create(String[] patterns) {
+    return new PathPatternSet(PathPattern.create(patterns));
+  }
+
+  public PathPattern[] patterns() {
+    return patterns;
+  }
+
+  public boolean isEmpty() {
+    return patterns.length == 0;
+  }
+
+  /**
+   * @return true if at least one of the patterns matches the file
+   */
+  public boolean match(InputFile inputFile) {
+    return match(inputFile, true);
+  }
+
+  /**
+   * @see PathPattern#match(InputFile, boolean)
+   */
+  public boolean match(InputFile inputFile, boolean caseSensitiveFileExtension) {
+    if (!patternsByExtension.isEmpty()) {
+      // same file name than inputFile.file(), without requiring the module base directory
+      String extension = FilenameUtils.getExtension(inputFile.relativePath());
+      if (!caseSensitiveFileExtension) {
+        // extension of path is lower-cased before being matched
+        extension = PathPattern.sanitizeExtension(extension);
+      }
+      if (match(patternsByExtension.get(extension), inputFile, caseSensitiveFileExtension)) {
+        return true;
+      }
+    }
+    return match(otherPatterns, inputFile, caseSensitiveFileExtension);
+  }
+
+  private static boolean match(List<PathPattern> patterns, InputFile inputFile, boolean caseSensitiveFileExtension) {
+    for (PathPattern pattern : patterns) {
+      if (pattern.match(inputFile, caseSensitiveFileExtension)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Extension that a path must have to match the pattern, or null if it's not fixed, for example
+   * with <code>**&#47;*.jav?</code> or <code>src/**</code>.
+   */
+  @CheckForNull
+  static String fixedExtension(String pattern) {
+    String normalizedPattern = pattern.replace('\\', '/');
+    String lastSegment = normalizedPattern.substring(normalizedPattern.lastIndexOf('/') + 1);
+    int dotIndex = lastSegment.lastIndexOf('.');
+    if (dotIndex < 0) {
+      return null;
+    }
+    String extension = lastSegment.substring(dotIndex + 1);
+    if (extension.isEmpty() || StringUtils.containsAny(extension, "*?")) {
+      return null;
+    }
+    return extension;
+  }
+}
@@ -86,4 +86,13 @@ public interface SensorDescriptor {
    */
   SensorDescriptor disabledInPreview();
 
+  /**
+   * Declares that this {@link Sensor} can be executed concurrently with the other thread-safe sensors of the same phase,
+   * when the property <code>sonar.sensors.threads</code> is greater than 1. Default is to execute sensors one by one.
+   * The sensor must not share mutable state with other sensors. Data saved through the {@link SensorContext} is
+   * serialized by the platform.
+   * @since 5.2
+   */
+  SensorDescriptor threadSafe();
+
 }
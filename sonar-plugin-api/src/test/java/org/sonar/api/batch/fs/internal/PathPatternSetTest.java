@@ -0,0 +1,77 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2014 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.batch.fs.internal;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.batch.fs.InputFile;
+
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PathPatternSetTest {
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  @Test
+  public void match_any_pattern() {
+    PathPatternSet patterns = PathPatternSet.create(new String[] {"**/*Foo.java", "**/*.js", "src/generated/**"});
+
+    assertThat(patterns.match(new DefaultInputFile("ABCDE", "src/main/java/org/MyFoo.java"))).isTrue();
+    assertThat(patterns.match(new DefaultInputFile("ABCDE", "src/main/web/app.js"))).isTrue();
+    assertThat(patterns.match(new DefaultInputFile("ABCDE", "src/generated/Other.java"))).isTrue();
+    assertThat(patterns.match(new DefaultInputFile("ABCDE", "src/main/java/org/Other.java"))).isFalse();
+    assertThat(patterns.match(new DefaultInputFile("ABCDE", "src/main/java/org/MyFoo.JAVA"))).isFalse();
+    assertThat(patterns.match(new DefaultInputFile("ABCDE", "src/main/java/org/README"))).isFalse();
+  }
+
+  @Test
+  public void match_insensitive_file_extension() throws Exception {
+    PathPatternSet patterns = PathPatternSet.create(new String[] {"**/*Foo.java", "file:**/src/main/**Bar.php"});
+
+    Path moduleBaseDir = temp.newFolder().toPath();
+    assertThat(patterns.match(new DefaultInputFile("ABCDE", "src/main/java/org/MyFoo.JAVA").setModuleBaseDir(moduleBaseDir), false)).isTrue();
+    assertThat(patterns.match(new DefaultInputFile("ABCDE", "src/main/php/MyBar.PHP").setModuleBaseDir(moduleBaseDir), false)).isTrue();
+    assertThat(patterns.match(new DefaultInputFile("ABCDE", "src/main/php/MyBar.PHP").setModuleBaseDir(moduleBaseDir), true)).isFalse();
+    assertThat(patterns.match(new DefaultInputFile("ABCDE", "src/main/java/org/Other.java").setModuleBaseDir(moduleBaseDir), false)).isFalse();
+  }
+
+  @Test
+  public void empty_set() {
+    PathPatternSet patterns = PathPatternSet.create(new String[0]);
+
+    assertThat(patterns.isEmpty()).isTrue();
+    assertThat(patterns.match(new DefaultInputFile("ABCDE", "src/main/java/org/MyFoo.java"))).isFalse();
+  }
+
+  @Test
+  public void fixed_extension() {
+    assertThat(PathPatternSet.fixedExtension("**/*.java")).isEqualTo("java");
+    assertThat(PathPatternSet.fixedExtension("src\\**\\*.tar.gz")).isEqualTo("gz");
+    assertThat(PathPatternSet.fixedExtension("**/.gitignore")).isEqualTo("gitignore");
+    assertThat(PathPatternSet.fixedExtension("**/*.jav?")).isNull();
+    assertThat(PathPatternSet.fixedExtension("**/*.java*")).isNull();
+    assertThat(PathPatternSet.fixedExtension("src/foo.bar/**")).isNull();
+    assertThat(PathPatternSet.fixedExtension("**/Makefile")).isNull();
+    assertThat(PathPatternSet.fixedExtension("src/")).isNull();
+  }
+}
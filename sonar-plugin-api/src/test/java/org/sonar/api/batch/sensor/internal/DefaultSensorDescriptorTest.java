@@ -34,13 +34,20 @@ public class DefaultSensorDescriptorTest {
       .onlyOnLanguage("java")
       .onlyOnFileType(InputFile.Type.MAIN)
       .requireProperty("sonar.foo.reportPath")
-      .createIssuesForRuleRepository("squid-java");
+      .createIssuesForRuleRepository("squid-java")
+      .threadSafe();
 
     assertThat(descriptor.name()).isEqualTo("Foo");
     assertThat(descriptor.languages()).containsOnly("java");
     assertThat(descriptor.type()).isEqualTo(InputFile.Type.MAIN);
     assertThat(descriptor.properties()).containsOnly("sonar.foo.reportPath");
     assertThat(descriptor.ruleRepositories()).containsOnly("squid-java");
+    assertThat(descriptor.isThreadSafe()).isTrue();
+  }
+
+  @Test
+  public void not_thread_safe_by_default() {
+    assertThat(new DefaultSensorDescriptor().isThreadSafe()).isFalse();
   }
 
 }